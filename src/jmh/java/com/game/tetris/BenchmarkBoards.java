@@ -0,0 +1,44 @@
+package com.game.tetris;
+
+/**
+ * 基准测试共用的预置局面
+ */
+final class BenchmarkBoards {
+
+    /**
+     * 预置的非空行数
+     */
+    static final int FILLED_ROWS = 12;
+
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * 底部FILLED_ROWS行各留一个错开的空洞，模拟对局中后期的局面
+     *
+     * @return 预置面板
+     */
+    static Board prefilled() {
+        Board board = new Board();
+        for (int i = 0; i < FILLED_ROWS; i++) {
+            int hole = (i * 3) % Board.COLS;
+            board.setRow(Board.ROWS - 1 - i, Board.FULL_ROW & ~(1 << hole), TetrominoType.fromId(i % 7 + 1));
+        }
+        return board;
+    }
+
+    /**
+     * 底部lines行全满，其余行与prefilled()相同，用于测试消行
+     *
+     * @param lines 全满的行数
+     * @return 预置面板
+     */
+    static Board withFullLines(int lines) {
+        Board board = prefilled();
+        for (int i = 0; i < lines; i++) {
+            board.setRow(Board.ROWS - 1 - i * 2, Board.FULL_ROW, TetrominoType.I);
+        }
+        return board;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 面板碰撞检查与消行的基准测试，对应原TetrisPanel中的checkCoincide/checkCanDrop/destroyLines
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param({"0", "1", "4"})
+    public int fullLines;
+
+    private Board source;
+
+    private Board board;
+
+    private Tetromino tetromino;
+
+    @Setup
+    public void setup() {
+        this.source = BenchmarkBoards.withFullLines(this.fullLines);
+        this.board = new Board();
+        this.board.copyFrom(this.source);
+        this.tetromino = new Tetromino(TetrominoType.L);
+        // 放到预置区域顶部附近，使检查需要与非空行按位与
+        for (int i = 0; i < Board.ROWS - BenchmarkBoards.FILLED_ROWS - 2; i++) {
+            this.tetromino.dropSoft();
+        }
+    }
+
+    @Benchmark
+    public boolean collides() {
+        return this.board.collides(this.tetromino);
+    }
+
+    @Benchmark
+    public boolean canDrop() {
+        return this.board.canDrop(this.tetromino);
+    }
+
+    /**
+     * 每次先还原预置局面，单独的copy()基准给出还原的开销
+     */
+    @Benchmark
+    public int clearLines() {
+        this.board.copyFrom(this.source);
+        return this.board.clearLines();
+    }
+
+    @Benchmark
+    public Board copy() {
+        this.board.copyFrom(this.source);
+        return this.board;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 在预置局面上完整执行一次直接落底（下落、落地、消行、换下一个方块组）的基准测试
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HardDropBenchmark {
+
+    private Board source;
+
+    private GameEngine engine;
+
+    @Setup
+    public void setup() {
+        this.source = BenchmarkBoards.prefilled();
+        this.engine = new GameEngine(42);
+    }
+
+    @Benchmark
+    public StepResult hardDropCycle() {
+        this.engine.getWall().copyFrom(this.source);
+        return this.engine.step(Action.HARD_DROP);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.game.tetris;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 将完整画面绘制到离屏BufferedImage的基准测试，以headless模式运行
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PaintBenchmark {
+
+    private TetrisPanel panel;
+
+    private BufferedImage image;
+
+    private Graphics2D graphics;
+
+    @Setup
+    public void setup() {
+        this.panel = new TetrisPanel();
+        this.panel.setSize(540 + TetrisRenderer.SIDE_PANEL_WIDTH, 595);
+        this.image = new BufferedImage(540 + TetrisRenderer.SIDE_PANEL_WIDTH, 595, BufferedImage.TYPE_INT_RGB);
+        this.graphics = this.image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        this.panel.paint(this.graphics.create());
+        return this.image;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 落点生成和单层落点搜索的基准测试，search的每次调用评估一个方块组的全部落点
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlacementBenchmark {
+
+    @Param({"T", "I", "O"})
+    private TetrominoType type;
+
+    @Param({"CLASSIC", "SRS"})
+    private RotationSystem rotationSystem;
+
+    private Board board;
+
+    private Board scratch;
+
+    private MoveGenerator moves;
+
+    private PlacementPolicy policy;
+
+    @Setup
+    public void setup() {
+        this.board = BenchmarkBoards.prefilled();
+        this.scratch = new Board();
+        this.moves = new MoveGenerator();
+        this.policy = new PlacementPolicy();
+    }
+
+    @Benchmark
+    public int generate() {
+        return this.moves.generate(this.board, this.type, this.rotationSystem);
+    }
+
+    @Benchmark
+    public double search() {
+        int count = this.moves.generate(this.board, this.type, this.rotationSystem);
+        double best = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            best = Math.max(best, this.policy.evaluate(this.board, this.moves, i, this.scratch));
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 带碰撞检查的旋转基准测试：七种方块组依次贴着左墙落在预置局面上，再各左右旋转一次，SRS下多数旋转需要踢墙
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RotationBenchmark {
+
+    private static final TetrominoType[] TYPES = TetrominoType.values();
+
+    @Param({"CLASSIC", "SRS"})
+    public RotationSystem rotationSystem;
+
+    private Board board;
+
+    private Tetromino tetromino;
+
+    /**
+     * 各类型贴墙落地的位置
+     */
+    private final int[] rows = new int[TYPES.length];
+
+    private final int[] cols = new int[TYPES.length];
+
+    @Setup
+    public void setup() {
+        this.board = BenchmarkBoards.prefilled();
+        this.tetromino = new Tetromino(TetrominoType.T, this.rotationSystem);
+        for (int i = 0; i < TYPES.length; i++) {
+            this.tetromino.spawn(TYPES[i]);
+            while (this.tetromino.getLeft() > 0) {
+                this.tetromino.moveLeft();
+            }
+            this.tetromino.dropBy(this.board.dropDistance(this.tetromino));
+            this.rows[i] = this.tetromino.getRow();
+            this.cols[i] = this.tetromino.getCol();
+        }
+    }
+
+    @Benchmark
+    public int rotateAgainstWall() {
+        int kicks = 0;
+        for (int i = 0; i < TYPES.length; i++) {
+            this.tetromino.place(TYPES[i], 0, this.rows[i], this.cols[i]);
+            kicks += this.tetromino.rotate(this.board, true);
+            this.tetromino.place(TYPES[i], 0, this.rows[i], this.cols[i]);
+            kicks += this.tetromino.rotate(this.board, false);
+        }
+        return kicks;
+    }
+
+}
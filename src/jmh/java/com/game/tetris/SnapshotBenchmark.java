@@ -0,0 +1,54 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 覆盖已有快照和从快照还原完整游戏状态的基准测试
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+    @Param({"UNIFORM", "BAG"})
+    private PieceGeneratorType generatorType;
+
+    private GameEngine engine;
+
+    private GameSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        this.engine = new GameEngine(this.generatorType.create(PieceGeneratorType.DEFAULT_PREVIEW, 42), 42);
+        this.engine.getWall().copyFrom(BenchmarkBoards.prefilled());
+        this.snapshot = this.engine.snapshot();
+    }
+
+    @Benchmark
+    public GameSnapshot snapshot() {
+        this.engine.snapshot(this.snapshot);
+        return this.snapshot;
+    }
+
+    @Benchmark
+    public GameEngine restore() {
+        this.engine.restore(this.snapshot);
+        return this.engine;
+    }
+
+}
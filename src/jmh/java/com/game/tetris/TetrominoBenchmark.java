@@ -0,0 +1,58 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 方块组生成与旋转的基准测试，rotate()与生成器无关，只需关注其中一组参数
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TetrominoBenchmark {
+
+    @Param({"UNIFORM", "BAG", "HISTORY"})
+    public PieceGeneratorType generatorType;
+
+    private PieceGenerator generator;
+
+    private Tetromino tetromino;
+
+    @Setup
+    public void setup() {
+        this.generator = this.generatorType.create(PieceGeneratorType.DEFAULT_PREVIEW, 42);
+        this.tetromino = new Tetromino(TetrominoType.T);
+    }
+
+    @Benchmark
+    public TetrominoType next() {
+        return this.generator.next();
+    }
+
+    @Benchmark
+    public Tetromino spawn() {
+        this.tetromino.spawn(this.generator.next());
+        return this.tetromino;
+    }
+
+    @Benchmark
+    public int rotate() {
+        this.tetromino.rotateRight();
+        return this.tetromino.getCellRow(3) + this.tetromino.getCellCol(3);
+    }
+
+}
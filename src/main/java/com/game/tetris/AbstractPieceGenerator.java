@@ -0,0 +1,145 @@
+package com.game.tetris;
+
+/**
+ * 方块组序列生成器的公共实现：SplitMix64随机数和预览用的环形队列<br>
+ * 随机数状态只是一个long，不经过java.util.Random中的AtomicLong，也便于复制
+ */
+public abstract class AbstractPieceGenerator implements PieceGenerator {
+
+    /**
+     * SplitMix64的步长
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 预览队列，容量为2的幂，保存类型编号
+     */
+    private final byte[] queue;
+
+    /**
+     * 预览队列下标掩码
+     */
+    private final int mask;
+
+    /**
+     * 最多可预览的数量
+     */
+    private final int previewCapacity;
+
+    /**
+     * 队首下标
+     */
+    private int head;
+
+    /**
+     * 队列中已生成的数量
+     */
+    private int size;
+
+    /**
+     * 随机数状态
+     */
+    private long state;
+
+    protected AbstractPieceGenerator(int previewCapacity, long seed) {
+        if (previewCapacity < 1) {
+            throw new IllegalArgumentException("previewCapacity must be positive: " + previewCapacity);
+        }
+        this.previewCapacity = previewCapacity;
+        this.queue = new byte[Integer.highestOneBit(previewCapacity) << 1];
+        this.mask = this.queue.length - 1;
+        this.state = seed;
+    }
+
+    @Override
+    public TetrominoType next() {
+        fill(1);
+        int id = this.queue[this.head];
+        this.head = (this.head + 1) & this.mask;
+        this.size--;
+        return TetrominoType.fromId(id);
+    }
+
+    @Override
+    public TetrominoType peek(int index) {
+        if (index < 0 || index >= this.previewCapacity) {
+            throw new IndexOutOfBoundsException("preview index " + index + " out of " + this.previewCapacity);
+        }
+        fill(index + 1);
+        return TetrominoType.fromId(this.queue[(this.head + index) & this.mask]);
+    }
+
+    @Override
+    public int getPreviewCapacity() {
+        return this.previewCapacity;
+    }
+
+    @Override
+    public void reset(long seed) {
+        this.state = seed;
+        this.head = 0;
+        this.size = 0;
+        onReset();
+    }
+
+    @Override
+    public void copyFrom(PieceGenerator other) {
+        if (other.getClass() != getClass() || other.getPreviewCapacity() != this.previewCapacity) {
+            throw new IllegalArgumentException("cannot copy " + other.getType() + " generator into " + getType());
+        }
+        AbstractPieceGenerator source = (AbstractPieceGenerator) other;
+        System.arraycopy(source.queue, 0, this.queue, 0, this.queue.length);
+        this.head = source.head;
+        this.size = source.size;
+        this.state = source.state;
+        copyStateFrom(source);
+    }
+
+    /**
+     * 保证队列中至少有count个已生成的类型
+     */
+    private void fill(int count) {
+        while (this.size < count) {
+            this.queue[(this.head + this.size) & this.mask] = (byte) generate();
+            this.size++;
+        }
+    }
+
+    /**
+     * 生成下一个方块组类型编号
+     *
+     * @return 类型编号，取值1~7
+     */
+    protected abstract int generate();
+
+    /**
+     * 重新开始序列时清除子类自身的状态
+     */
+    protected abstract void onReset();
+
+    /**
+     * 复制子类自身的状态
+     *
+     * @param other 同类型的生成器
+     */
+    protected abstract void copyStateFrom(AbstractPieceGenerator other);
+
+    /**
+     * @return 下一个64位随机数
+     */
+    protected final long nextLong() {
+        long z = (this.state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param bound 上界，不包含
+     * @return [0, bound)范围内的随机数
+     */
+    protected final int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+}
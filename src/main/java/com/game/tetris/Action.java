@@ -0,0 +1,43 @@
+package com.game.tetris;
+
+/**
+ * 玩家可对当前方块组执行的操作
+ */
+public enum Action {
+
+    /**
+     * 左移一格
+     */
+    MOVE_LEFT,
+
+    /**
+     * 右移一格
+     */
+    MOVE_RIGHT,
+
+    /**
+     * 右旋一次
+     */
+    ROTATE_RIGHT,
+
+    /**
+     * 左旋一次
+     */
+    ROTATE_LEFT,
+
+    /**
+     * 下降一格，无法下降时落地
+     */
+    SOFT_DROP,
+
+    /**
+     * 直接落底
+     */
+    HARD_DROP,
+
+    /**
+     * 把当前方块组放入暂存区，换出暂存的方块组，暂存区为空时换上下一个方块组；每个方块组落地前只能暂存一次
+     */
+    HOLD
+
+}
@@ -0,0 +1,195 @@
+package com.game.tetris;
+
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 主动绘制模式的画布<br>
+ * 独立的绘制线程按目标帧率直接向BufferStrategy绘制，不依赖Swing的repaint()合并；
+ * 按F3切换帧率、帧间隔百分位、逻辑更新耗时和GC停顿的叠加层
+ */
+public class ActiveRenderCanvas extends Canvas {
+
+    /**
+     * 确保序列化版本一致
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 叠加层字体
+     */
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    /**
+     * 叠加层背景色
+     */
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+
+    /**
+     * 游戏画面绘制器
+     */
+    private final transient TetrisRenderer renderer;
+
+    /**
+     * 游戏主循环
+     */
+    private final transient GameLoop loop;
+
+    /**
+     * 每帧的目标间隔，单位纳秒
+     */
+    private final long frameNanos;
+
+    /**
+     * 是否尝试垂直同步
+     */
+    private final boolean vsync;
+
+    /**
+     * 帧统计
+     */
+    private final transient FrameStats stats = new FrameStats();
+
+    /**
+     * 绘制线程运行标记
+     */
+    private volatile boolean isRunning;
+
+    /**
+     * 是否显示叠加层
+     */
+    private volatile boolean isOverlayVisible;
+
+    /**
+     * 绘制线程
+     */
+    private transient Thread renderThread;
+
+    /**
+     * @param renderer  游戏画面绘制器
+     * @param loop      游戏主循环
+     * @param targetFps 目标帧率
+     * @param vsync     是否尝试垂直同步
+     */
+    public ActiveRenderCanvas(TetrisRenderer renderer, GameLoop loop, int targetFps, boolean vsync) {
+        this.renderer = renderer;
+        this.loop = loop;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, targetFps);
+        this.vsync = vsync;
+        setIgnoreRepaint(true);
+        setFocusable(true);
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_F3) {
+                    ActiveRenderCanvas.this.isOverlayVisible = !ActiveRenderCanvas.this.isOverlayVisible;
+                }
+            }
+        });
+    }
+
+    /**
+     * 创建BufferStrategy并启动绘制线程，需在画布显示后调用
+     */
+    public void start() {
+        if (this.vsync) {
+            // 页面翻转在多数加速管线上会等待垂直回扫，不支持时退回普通双缓冲
+            try {
+                createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true),
+                        new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+            } catch (AWTException e) {
+                createBufferStrategy(2);
+            }
+        } else {
+            createBufferStrategy(2);
+        }
+        this.isRunning = true;
+        this.renderThread = new Thread(this::renderLoop, "tetris-render");
+        this.renderThread.setDaemon(true);
+        this.renderThread.start();
+    }
+
+    /**
+     * 停止绘制线程
+     */
+    public void stop() {
+        this.isRunning = false;
+        if (this.renderThread != null) {
+            this.renderThread.interrupt();
+        }
+    }
+
+    /**
+     * 按目标帧率循环绘制，落后超过一帧时不追帧，直接从当前时刻重新计时
+     */
+    private void renderLoop() {
+        BufferStrategy strategy = getBufferStrategy();
+        long last = System.nanoTime();
+        long deadline = last + this.frameNanos;
+        while (this.isRunning) {
+            renderFrame(strategy);
+            if (this.vsync) {
+                Toolkit.getDefaultToolkit().sync();
+            }
+            long now = System.nanoTime();
+            this.stats.record(now - last, this.loop.getLastUpdateNanos());
+            last = now;
+            long remaining = deadline - now;
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                deadline += this.frameNanos;
+            } else {
+                deadline = now + this.frameNanos;
+            }
+        }
+    }
+
+    /**
+     * 绘制一帧，缓冲区内容丢失时重绘
+     */
+    private void renderFrame(BufferStrategy strategy) {
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    this.renderer.render(g, getGraphicsConfiguration(), this.loop.isPause());
+                    if (this.isOverlayVisible) {
+                        paintOverlay(g);
+                    }
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+    }
+
+    /**
+     * 绘制统计叠加层
+     *
+     * @param g Graphics对象
+     */
+    private void paintOverlay(Graphics g) {
+        String[] lines = this.stats.getLines();
+        int lineHeight = 16;
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(4, 4, 300, lines.length * lineHeight + 8);
+        g.setColor(Color.WHITE);
+        g.setFont(OVERLAY_FONT);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 10, 20 + i * lineHeight);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.game.tetris;
+
+/**
+ * 7-bag随机：每7个方块组恰好包含全部七种类型各一次，顺序随机
+ */
+public class BagPieceGenerator extends AbstractPieceGenerator {
+
+    /**
+     * 当前袋子
+     */
+    private final byte[] bag = new byte[7];
+
+    /**
+     * 袋子中下一个要取出的下标，等于7时需要重新洗牌
+     */
+    private int index;
+
+    public BagPieceGenerator(int previewCapacity, long seed) {
+        super(previewCapacity, seed);
+        onReset();
+    }
+
+    @Override
+    public PieceGeneratorType getType() {
+        return PieceGeneratorType.BAG;
+    }
+
+    @Override
+    protected int generate() {
+        if (this.index == this.bag.length) {
+            shuffle();
+        }
+        return this.bag[this.index++];
+    }
+
+    @Override
+    protected void onReset() {
+        this.index = this.bag.length;
+    }
+
+    @Override
+    protected void copyStateFrom(AbstractPieceGenerator other) {
+        BagPieceGenerator source = (BagPieceGenerator) other;
+        System.arraycopy(source.bag, 0, this.bag, 0, this.bag.length);
+        this.index = source.index;
+    }
+
+    /**
+     * Fisher-Yates洗牌
+     */
+    private void shuffle() {
+        for (int i = 0; i < this.bag.length; i++) {
+            this.bag[i] = (byte) (i + 1);
+        }
+        for (int i = this.bag.length - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            byte tmp = this.bag[i];
+            this.bag[i] = this.bag[j];
+            this.bag[j] = tmp;
+        }
+        this.index = 0;
+    }
+
+}
@@ -0,0 +1,526 @@
+package com.game.tetris;
+
+import java.util.Arrays;
+
+/**
+ * 面板方块填充情况记录<br>
+ * 每一行用一个int位图表示，第col位为1表示该格已被占据；另用一个int按每格3位打包记录该行的方块类型，仅供绘制使用<br>
+ * 整个面板只有2 * ROWS个int，行的内容是不可变的值，复制面板即复制这些值，快照和还原的开销固定且很小<br>
+ * 面板同时增量维护占据情况的Zobrist哈希：每格对应一个固定的随机数，哈希值为所有已占据格子随机数的异或，
+ * 落地时异或新占据的格子，消行时只对移动过的行按行重新计算<br>
+ * 另外缓存每列的高度，落地时逐格更新、消行时随哈希一并重算，直接落底的距离由方块组底部轮廓与列高度求最小值得到
+ */
+public class Board {
+
+    /**
+     * 行数，即一列中的方块数
+     */
+    public static final int ROWS = 20;
+
+    /**
+     * 列数，即一行中的方块数
+     */
+    public static final int COLS = 10;
+
+    /**
+     * 满行位图
+     */
+    public static final int FULL_ROW = (1 << COLS) - 1;
+
+    /**
+     * 每格的Zobrist随机数，下标为row * COLS + col，由固定种子生成，哈希值在不同进程间保持一致
+     */
+    private static final long[] ZOBRIST = new long[ROWS * COLS];
+
+    /**
+     * 行哈希表的分段位数，每行位图拆成低5位和高5位两段查表
+     */
+    private static final int HALF_BITS = COLS / 2;
+
+    private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+
+    /**
+     * 行哈希表：[row][段][该段的位图]，值为该段已占据格子随机数的异或，消行时一行只需两次查表
+     */
+    private static final long[] ROW_HASHES = new long[ROWS * 2 << HALF_BITS];
+
+    /*
+     * 静态初始化块，用SplitMix64从固定种子生成Zobrist随机数，并构建行哈希表
+     */
+    static {
+        long state = 0x5EED7E7815L;
+        for (int i = 0; i < ZOBRIST.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            ZOBRIST[i] = z ^ (z >>> 31);
+        }
+        for (int row = 0; row < ROWS; row++) {
+            for (int half = 0; half < 2; half++) {
+                for (int bits = 0; bits <= HALF_MASK; bits++) {
+                    long hash = 0;
+                    for (int i = 0; i < HALF_BITS; i++) {
+                        if ((bits & (1 << i)) != 0) {
+                            hash ^= ZOBRIST[row * COLS + half * HALF_BITS + i];
+                        }
+                    }
+                    ROW_HASHES[((row << 1) + half << HALF_BITS) + bits] = hash;
+                }
+            }
+        }
+    }
+
+    /**
+     * 每列高度在打包long中占用的位数，需能表示0~ROWS
+     */
+    static final int HEIGHT_BITS = 5;
+
+    static final long HEIGHT_MASK = (1L << HEIGHT_BITS) - 1;
+
+    /**
+     * 每行的占据位图
+     */
+    private final int[] rows = new int[ROWS];
+
+    /**
+     * 每格方块类型编号占用的位数
+     */
+    private static final int TYPE_BITS = 3;
+
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    /**
+     * 每行的方块类型编号，第col格位于第col * TYPE_BITS位起的TYPE_BITS位，0表示空
+     */
+    private final int[] types = new int[ROWS];
+
+    /**
+     * 修改计数，面板内容每变化一次加一，供绘制缓存判断是否失效
+     */
+    private int version;
+
+    /**
+     * 占据情况的Zobrist哈希
+     */
+    private long hash;
+
+    /**
+     * 每列的高度，即该列最上方方块到底部的行数，空列为0；第col列位于第col * HEIGHT_BITS位起的HEIGHT_BITS位
+     */
+    private long heights;
+
+    /**
+     * 最近一次clearLines()消除的行在消除前的行号位图，第row位为1表示该行被消除
+     */
+    private int lastClearedMask;
+
+    /**
+     * 清空面板
+     */
+    public void clear() {
+        Arrays.fill(this.rows, 0);
+        Arrays.fill(this.types, 0);
+        this.hash = 0;
+        this.heights = 0;
+        this.version++;
+    }
+
+    /**
+     * 复制另一面板的全部内容，不创建新对象
+     *
+     * @param other 被复制的面板
+     */
+    public void copyFrom(Board other) {
+        System.arraycopy(other.rows, 0, this.rows, 0, ROWS);
+        System.arraycopy(other.types, 0, this.types, 0, ROWS);
+        this.hash = other.hash;
+        this.heights = other.heights;
+        this.lastClearedMask = other.lastClearedMask;
+        this.version++;
+    }
+
+    /**
+     * 直接设置一整行的内容，用于构造测试局面
+     *
+     * @param row  行号
+     * @param mask 该行的占据位图
+     * @param type 被占据格子的方块类型
+     */
+    public void setRow(int row, int mask, TetrominoType type) {
+        this.rows[row] = mask & FULL_ROW;
+        int packed = 0;
+        for (int col = 0; col < COLS; col++) {
+            if ((mask & (1 << col)) != 0) {
+                packed |= type.getId() << (col * TYPE_BITS);
+            }
+        }
+        this.types[row] = packed;
+        rebuild(0);
+        this.version++;
+    }
+
+    /**
+     * @param row 行号
+     * @param col 列号
+     * @return 该格是否已被占据
+     */
+    public boolean isOccupied(int row, int col) {
+        return (this.rows[row] & (1 << col)) != 0;
+    }
+
+    /**
+     * @param row 行号
+     * @param col 列号
+     * @return 该格的方块类型编号，0表示空
+     */
+    public int getType(int row, int col) {
+        return (this.types[row] >>> (col * TYPE_BITS)) & TYPE_MASK;
+    }
+
+    /**
+     * @param row 行号
+     * @return 该行的占据位图
+     */
+    public int getRow(int row) {
+        return this.rows[row];
+    }
+
+    /**
+     * @param row 行号
+     * @return 该行按每格3位打包的方块类型编号，0表示空，非0的格子与占据位图一一对应
+     */
+    public int getRowTypes(int row) {
+        return this.types[row];
+    }
+
+    /**
+     * 按打包的方块类型编号直接设置一整行，占据位图由非0的格子得出，用于从增量流重建面板
+     *
+     * @param row   行号
+     * @param types 每格3位打包的方块类型编号
+     */
+    public void setRowTypes(int row, int types) {
+        int mask = 0;
+        for (int col = 0; col < COLS; col++) {
+            if (((types >>> (col * TYPE_BITS)) & TYPE_MASK) != 0) {
+                mask |= 1 << col;
+            }
+        }
+        this.rows[row] = mask;
+        this.types[row] = types;
+        rebuild(0);
+        this.version++;
+    }
+
+    /**
+     * @return 最近一次clearLines()消除的行在消除前的行号位图
+     */
+    public int getLastClearedMask() {
+        return this.lastClearedMask;
+    }
+
+    /**
+     * @return 修改计数，内容未变化时保持不变
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * 占据情况的Zobrist哈希，增量维护，O(1)读取。占据情况相同的面板哈希值相同，方块类型不参与计算，
+     * 可用于置换表、回放校验和训练数据去重
+     *
+     * @return 64位哈希值
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * @param col 列号
+     * @return 该列最上方方块到底部的行数，空列为0
+     */
+    public int getColumnHeight(int col) {
+        return (int) ((this.heights >>> (col * HEIGHT_BITS)) & HEIGHT_MASK);
+    }
+
+    /**
+     * @return 打包的各列高度，第col列位于第col * HEIGHT_BITS位起的HEIGHT_BITS位
+     */
+    public long getColumnHeights() {
+        return this.heights;
+    }
+
+    /**
+     * @param row   行号
+     * @param fresh 在该行首次出现方块的列的位图
+     * @return 这些列的高度按打包格式组成的值
+     */
+    private static long freshHeights(int row, int fresh) {
+        long heights = 0;
+        while (fresh != 0) {
+            heights |= (long) (ROWS - row) << (Integer.numberOfTrailingZeros(fresh) * HEIGHT_BITS);
+            fresh &= fresh - 1;
+        }
+        return heights;
+    }
+
+    /**
+     * 计算一行的Zobrist哈希
+     *
+     * @param row  行号
+     * @param mask 该行的占据位图
+     * @return 该行所有已占据格子随机数的异或
+     */
+    private static long rowHash(int row, int mask) {
+        int base = row << 1 << HALF_BITS;
+        return ROW_HASHES[base + (mask & HALF_MASK)] ^ ROW_HASHES[base + (1 << HALF_BITS) + (mask >>> HALF_BITS)];
+    }
+
+    /**
+     * @return 堆叠高度，即最上方非空行到底部的行数，空面板为0
+     */
+    public int getHeight() {
+        for (int row = 0; row < ROWS; row++) {
+            if (this.rows[row] != 0) {
+                return ROWS - row;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 检查当前行是否已满
+     *
+     * @param row 当前行号
+     * @return 当前行是否已满
+     */
+    public boolean isLineFull(int row) {
+        return this.rows[row] == FULL_ROW;
+    }
+
+    /**
+     * 方块组重叠检查，越界也视为重叠
+     *
+     * @param tetromino 方块组
+     * @return 方块组是否越界或与已有方块重叠
+     */
+    public boolean collides(Tetromino tetromino) {
+        int top = tetromino.getTop();
+        if (top < 0 || tetromino.getBottom() >= ROWS || tetromino.getLeft() < 0 || tetromino.getRight() >= COLS) {
+            return true;
+        }
+        return overlaps(tetromino, top);
+    }
+
+    /**
+     * 方块组下落的可行性检查
+     *
+     * @param tetromino 方块组
+     * @return 方块组是否可以继续下落一格
+     */
+    public boolean canDrop(Tetromino tetromino) {
+        if (tetromino.getBottom() + 1 >= ROWS) {
+            return false;
+        }
+        return !overlaps(tetromino, tetromino.getTop() + 1);
+    }
+
+    /**
+     * 方块组直接落底时可以下落的行数，调用前需保证方块组不重叠<br>
+     * 方块组每列最下方的方块都在该列最上方方块之上时，落点只取决于各列高度，O(包围盒列数)即可得到；
+     * 否则方块组已被平移到悬空方块下方，改为逐行检查
+     *
+     * @param tetromino 方块组
+     * @return 下落的行数
+     */
+    public int dropDistance(Tetromino tetromino) {
+        int left = tetromino.getLeft();
+        int distance = ROWS;
+        for (int j = tetromino.getWidth() - 1; j >= 0; j--) {
+            // 该列最上方方块所在行，空列为ROWS（即地面）
+            int surface = ROWS - getColumnHeight(left + j);
+            int bottom = tetromino.getColumnBottom(j);
+            if (bottom >= surface) {
+                return scanDropDistance(tetromino);
+            }
+            distance = Math.min(distance, surface - 1 - bottom);
+        }
+        return distance;
+    }
+
+    /**
+     * 逐行检查方块组可以下落的行数
+     *
+     * @param tetromino 方块组
+     * @return 下落的行数
+     */
+    private int scanDropDistance(Tetromino tetromino) {
+        int top = tetromino.getTop();
+        int distance = 0;
+        while (tetromino.getBottom() + distance + 1 < ROWS && !overlaps(tetromino, top + distance + 1)) {
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * 将方块组包围盒的行位图与面板对应行按位与，调用前需保证不越界
+     *
+     * @param tetromino 方块组
+     * @param top       包围盒最上方所对应的面板行
+     * @return 是否存在重叠
+     */
+    private boolean overlaps(Tetromino tetromino, int top) {
+        for (int i = tetromino.getHeight() - 1; i >= 0; i--) {
+            if ((this.rows[top + i] & tetromino.getRowMask(i)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 方块组落地，写入面板
+     *
+     * @param tetromino 方块组
+     */
+    public void land(Tetromino tetromino) {
+        int id = tetromino.getType().getId();
+        for (int i = 0; i < 4; i++) {
+            int row = tetromino.getCellRow(i);
+            int col = tetromino.getCellCol(i);
+            if ((this.rows[row] & (1 << col)) == 0) {
+                this.hash ^= ZOBRIST[row * COLS + col];
+            }
+            this.rows[row] |= 1 << col;
+            if (ROWS - row > getColumnHeight(col)) {
+                int heightShift = col * HEIGHT_BITS;
+                this.heights = (this.heights & ~(HEIGHT_MASK << heightShift)) | ((long) (ROWS - row) << heightShift);
+            }
+            int shift = col * TYPE_BITS;
+            this.types[row] = (this.types[row] & ~(TYPE_MASK << shift)) | (id << shift);
+        }
+        this.version++;
+    }
+
+    /**
+     * 消除所有已填满的行，自底向上一次遍历完成压缩
+     *
+     * @return 消除的行数
+     */
+    public int clearLines() {
+        int write = ROWS - 1;
+        int clearedMask = 0;
+        for (int read = ROWS - 1; read >= 0; read--) {
+            int mask = this.rows[read];
+            if (mask == FULL_ROW) {
+                clearedMask |= 1 << read;
+                continue;
+            }
+            if (write != read) {
+                this.rows[write] = mask;
+                this.types[write] = this.types[read];
+            }
+            write--;
+        }
+        int cleared = write + 1;
+        this.lastClearedMask = clearedMask;
+        if (cleared > 0) {
+            Arrays.fill(this.rows, 0, cleared, 0);
+            Arrays.fill(this.types, 0, cleared, 0);
+            // 行下移后格子对应的随机数改变，按行查表重新计算，比逐行异或出旧值再异或入新值少一半查表
+            rebuild(cleared);
+            this.version++;
+        }
+        return cleared;
+    }
+
+    /**
+     * 删除给定的行，上方的行下移，与clearLines()删除已满的行的效果相同，用于在增量流的接收端重放消行
+     *
+     * @param removedMask 被删除的行的行号位图
+     */
+    public void removeRows(int removedMask) {
+        if (removedMask == 0) {
+            return;
+        }
+        int write = ROWS - 1;
+        for (int read = ROWS - 1; read >= 0; read--) {
+            if ((removedMask & (1 << read)) != 0) {
+                continue;
+            }
+            this.rows[write] = this.rows[read];
+            this.types[write] = this.types[read];
+            write--;
+        }
+        Arrays.fill(this.rows, 0, write + 1, 0);
+        Arrays.fill(this.types, 0, write + 1, 0);
+        rebuild(write + 1);
+        this.version++;
+    }
+
+    /**
+     * 从底部插入若干行垃圾行，已有的行整体上移，被挤出顶部的行丢弃<br>
+     * 垃圾行除hole列外全部填满，同一批垃圾行的空列相同
+     *
+     * @param lines   插入的行数，超过ROWS时按ROWS处理
+     * @param holeCol 垃圾行的空列
+     * @param type    垃圾行方块的类型，仅供绘制使用
+     * @return 是否有方块被挤出顶部
+     * @throws IllegalArgumentException 空列不在[0, COLS)内
+     */
+    public boolean addGarbage(int lines, int holeCol, TetrominoType type) {
+        if (holeCol < 0 || holeCol >= COLS) {
+            throw new IllegalArgumentException("holeCol must be in [0, " + COLS + "): " + holeCol);
+        }
+        lines = Math.min(lines, ROWS);
+        if (lines <= 0) {
+            return false;
+        }
+        boolean isToppedOut = false;
+        for (int row = 0; row < lines; row++) {
+            isToppedOut |= this.rows[row] != 0;
+        }
+        System.arraycopy(this.rows, lines, this.rows, 0, ROWS - lines);
+        System.arraycopy(this.types, lines, this.types, 0, ROWS - lines);
+        int mask = FULL_ROW & ~(1 << holeCol);
+        int packed = 0;
+        for (int col = 0; col < COLS; col++) {
+            if (col != holeCol) {
+                packed |= type.getId() << (col * TYPE_BITS);
+            }
+        }
+        Arrays.fill(this.rows, ROWS - lines, ROWS, mask);
+        Arrays.fill(this.types, ROWS - lines, ROWS, packed);
+        // 所有行都移动过，按行重新计算哈希和各列高度
+        rebuild(0);
+        this.version++;
+        return isToppedOut;
+    }
+
+    /**
+     * 自上而下一次遍历，按行查表重新计算Zobrist哈希，同时重算各列高度
+     *
+     * @param firstRow 开始遍历的行，其上方的行必须为空
+     */
+    private void rebuild(int firstRow) {
+        long hash = 0, heights = 0;
+        int seen = 0;
+        for (int row = firstRow; row < ROWS; row++) {
+            int mask = this.rows[row];
+            if (mask != 0) {
+                hash ^= rowHash(row, mask);
+                int fresh = mask & ~seen;
+                if (fresh != 0) {
+                    seen |= fresh;
+                    heights |= freshHeights(row, fresh);
+                }
+            }
+        }
+        this.hash = hash;
+        this.heights = heights;
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.game.tetris;
+
+/**
+ * 局面评估函数，分数越高局面越好<br>
+ * 实现应当无状态，以便在多个搜索线程间共享
+ */
+public interface BoardEvaluator {
+
+    /**
+     * 评估方块组落地并消行之后的局面
+     *
+     * @param board        落地并消行之后的面板
+     * @param clearedLines 本次落地消除的行数
+     * @return 局面分数
+     */
+    double evaluate(Board board, int clearedLines);
+
+}
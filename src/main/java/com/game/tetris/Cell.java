@@ -1,13 +1,11 @@
 package com.game.tetris;
 
-import java.awt.Image;
-
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * 方块类
+ * 方块类，只记录位置和方块类型编号，绘制时由SpriteAtlas根据类型编号取贴图
  */
 @AllArgsConstructor
 @Data
@@ -18,7 +16,7 @@ public class Cell {
 
     private int col;
 
-    private Image image;
+    private byte type;
 
     public void moveRight() {
         this.col++;
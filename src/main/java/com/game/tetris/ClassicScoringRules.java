@@ -0,0 +1,57 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最初的计分规则：只按一次消除的行数查GameEngine.SCORE_CASCADES得分，没有下降、连击、背靠背和T旋得分；
+ * 每消除10行升一级，从0级开始，重力间隔从700毫秒起每级减少60毫秒，最短100毫秒
+ */
+public class ClassicScoringRules implements ScoringRules {
+
+    /**
+     * 0级的重力间隔
+     */
+    private static final long BASE_GRAVITY_MILLIS = 700;
+
+    /**
+     * 每升一级重力间隔的减少量
+     */
+    private static final long GRAVITY_STEP_MILLIS = 60;
+
+    /**
+     * 最短重力间隔
+     */
+    private static final long MIN_GRAVITY_MILLIS = 100;
+
+    @Override
+    public ScoringType getType() {
+        return ScoringType.CLASSIC;
+    }
+
+    @Override
+    public int getLevel(int lines) {
+        return lines / 10;
+    }
+
+    @Override
+    public long getGravityIntervalNanos(int level) {
+        long millis = Math.max(MIN_GRAVITY_MILLIS, BASE_GRAVITY_MILLIS - GRAVITY_STEP_MILLIS * level);
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Override
+    public int getSoftDropPoints(int rows) {
+        return 0;
+    }
+
+    @Override
+    public int getHardDropPoints(int rows) {
+        return 0;
+    }
+
+    @Override
+    public int getLockPoints(int clearedLines, TSpin tSpin, int combo, boolean isBackToBack, int level) {
+        return GameEngine.SCORE_CASCADES[clearedLines];
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.game.tetris;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主动绘制模式的帧统计：帧率、帧间隔百分位、逻辑更新耗时和GC停顿<br>
+ * 帧间隔保存在固定大小的环形数组中，叠加层文字每秒只刷新一次，记录时不创建新对象
+ */
+public class FrameStats {
+
+    /**
+     * 参与百分位统计的最近帧数
+     */
+    private static final int WINDOW = 240;
+
+    /**
+     * 叠加层刷新周期，单位纳秒
+     */
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 最近的帧间隔，单位纳秒
+     */
+    private final long[] frameNanos = new long[WINDOW];
+
+    /**
+     * 计算百分位时的排序缓冲区
+     */
+    private final long[] sorted = new long[WINDOW];
+
+    /**
+     * 各垃圾收集器
+     */
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /**
+     * 环形数组的写入位置
+     */
+    private int next;
+
+    /**
+     * 环形数组中的有效帧数
+     */
+    private int size;
+
+    /**
+     * 当前统计周期的开始时间和帧数
+     */
+    private long periodStart = System.nanoTime();
+
+    private int periodFrames;
+
+    /**
+     * 上一个统计周期结束时GC的累计次数和累计耗时
+     */
+    private long gcCount, gcMillis;
+
+    /**
+     * 叠加层文字
+     */
+    private String[] lines = {"FPS: -"};
+
+    public FrameStats() {
+        this.gcCount = totalGcCount();
+        this.gcMillis = totalGcMillis();
+    }
+
+    /**
+     * 记录一帧
+     *
+     * @param intervalNanos 与上一帧的间隔，单位纳秒
+     * @param updateNanos   最近一次逻辑更新的耗时，单位纳秒
+     */
+    public void record(long intervalNanos, long updateNanos) {
+        this.frameNanos[this.next] = intervalNanos;
+        this.next = (this.next + 1) % WINDOW;
+        this.size = Math.min(this.size + 1, WINDOW);
+        this.periodFrames++;
+        long now = System.nanoTime();
+        if (now - this.periodStart >= REFRESH_NANOS) {
+            refresh(now, updateNanos);
+        }
+    }
+
+    /**
+     * @return 叠加层文字，每秒刷新一次
+     */
+    public String[] getLines() {
+        return this.lines;
+    }
+
+    /**
+     * 统计周期结束，重新生成叠加层文字
+     */
+    private void refresh(long now, long updateNanos) {
+        double fps = this.periodFrames * 1e9 / (now - this.periodStart);
+        System.arraycopy(this.frameNanos, 0, this.sorted, 0, this.size);
+        Arrays.sort(this.sorted, 0, this.size);
+        long count = totalGcCount();
+        long millis = totalGcMillis();
+        this.lines = new String[]{
+                String.format("FPS: %.1f", fps),
+                String.format("帧间隔 p50/p99/max: %.2f/%.2f/%.2f ms",
+                        percentile(50) / 1e6, percentile(99) / 1e6, percentile(100) / 1e6),
+                String.format("逻辑更新: %.3f ms", updateNanos / 1e6),
+                String.format("GC: %d 次, %d ms/s", count - this.gcCount, millis - this.gcMillis)
+        };
+        this.gcCount = count;
+        this.gcMillis = millis;
+        this.periodStart = now;
+        this.periodFrames = 0;
+    }
+
+    /**
+     * 最近秩法求百分位数，调用前需已排序
+     */
+    private long percentile(double percentile) {
+        if (this.size == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * this.size);
+        return this.sorted[Math.min(this.size - 1, Math.max(0, rank - 1))];
+    }
+
+    private long totalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : this.collectors) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : this.collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+}
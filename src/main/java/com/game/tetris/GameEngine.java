@@ -0,0 +1,629 @@
+package com.game.tetris;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 不依赖任何界面的游戏核心引擎<br>
+ * 持有面板、当前和下一个方块组、暂存区、消除行数和得分，所有游戏规则都在此执行，
+ * 可在java.awt.headless=true的环境下独立运行。得分和等级按可替换的ScoringRules计算，
+ * 连击、背靠背和T旋所需的状态在每次操作和落地时增量维护，落地时不扫描面板。
+ * 预览直接读取生成器的环形队列，出现新方块组和暂存时都不创建新对象
+ */
+public class GameEngine {
+
+    /**
+     * 经典规则的得分梯度，下标为一次消除的行数
+     */
+    public static final int[] SCORE_CASCADES = {0, 1, 10, 30, 200};
+
+    /**
+     * 垃圾行绘制时使用的方块类型
+     */
+    private static final TetrominoType GARBAGE_TYPE = TetrominoType.O;
+
+    /**
+     * SRS踢墙表中最远的偏移下标，T用它完成旋转时总是算作完整的T旋
+     */
+    private static final int TST_KICK = 4;
+
+    /**
+     * 本局使用的随机数种子
+     */
+    private long seed;
+
+    /**
+     * 本局独立的方块组序列生成器，不与其他对局共享
+     */
+    private final PieceGenerator generator;
+
+    /**
+     * 旋转系统，整局不变
+     */
+    private final RotationSystem rotationSystem;
+
+    /**
+     * 计分与等级规则，整局不变
+     */
+    private final ScoringRules scoring;
+
+    /**
+     * 面板方块填充情况记录
+     */
+    private final Board wall = new Board();
+
+    /**
+     * 当前下落方块组
+     */
+    private final Tetromino tetromino;
+
+    /**
+     * 下一个下落方块组，始终与generator.peek(0)一致
+     */
+    private final Tetromino nextTetromino;
+
+    /**
+     * 暂存区中的方块组类型，为null表示暂存区为空
+     */
+    private TetrominoType heldType;
+
+    /**
+     * 当前方块组是否已暂存过，落地后清除
+     */
+    private boolean isHoldUsed;
+
+    /**
+     * 游戏结果计数器，记录当前已消除行数
+     */
+    private int lines;
+
+    /**
+     * 游戏结果计数器，记录当前已获得分数，得分增幅有梯度
+     */
+    private int scores;
+
+    /**
+     * 已落地的方块组数量
+     */
+    private int pieces;
+
+    /**
+     * 最近一次落地消除的行数
+     */
+    private int lastClearedLines;
+
+    /**
+     * 连击数，连续第n+1次落地消行时为n，最近一次落地未消行时为-1
+     */
+    private int combo;
+
+    /**
+     * 最近一次消行是否为困难消行（消四行或T旋消行），为真时下一次困难消行即为背靠背
+     */
+    private boolean isBackToBack;
+
+    /**
+     * 最近一次落地的T旋判定结果
+     */
+    private TSpin lastTSpin = TSpin.NONE;
+
+    /**
+     * 当前方块组最后一次成功的操作是旋转时为所用踢墙偏移的下标，否则为-1
+     */
+    private int lastKick;
+
+    /**
+     * 游戏结束标记
+     */
+    private boolean isGameOver;
+
+    /**
+     * 是否记录消行耗时，关闭时不调用System.nanoTime()
+     */
+    private boolean isTimed;
+
+    /**
+     * 最近一次落地消除已满的行的耗时，单位纳秒
+     */
+    private long lastClearNanos;
+
+    public GameEngine() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param seed 随机数种子，相同的种子和操作序列总能复现同一局游戏
+     */
+    public GameEngine(long seed) {
+        this(new UniformPieceGenerator(PieceGeneratorType.DEFAULT_PREVIEW, seed), seed);
+    }
+
+    /**
+     * 使用SRS旋转和原来的计分规则
+     *
+     * @param generator 方块组序列生成器，由本引擎独占
+     * @param seed      随机数种子，用于重置生成器
+     */
+    public GameEngine(PieceGenerator generator, long seed) {
+        this(generator, seed, RotationSystem.SRS);
+    }
+
+    /**
+     * 使用原来的计分规则
+     *
+     * @param generator      方块组序列生成器，由本引擎独占
+     * @param seed           随机数种子，用于重置生成器
+     * @param rotationSystem 旋转系统
+     */
+    public GameEngine(PieceGenerator generator, long seed, RotationSystem rotationSystem) {
+        this(generator, seed, rotationSystem, ScoringType.CLASSIC.create());
+    }
+
+    /**
+     * @param generator      方块组序列生成器，由本引擎独占
+     * @param seed           随机数种子，用于重置生成器
+     * @param rotationSystem 旋转系统
+     * @param scoring        计分与等级规则
+     */
+    public GameEngine(PieceGenerator generator, long seed, RotationSystem rotationSystem, ScoringRules scoring) {
+        this.seed = seed;
+        this.generator = generator;
+        this.rotationSystem = rotationSystem;
+        this.scoring = scoring;
+        this.combo = -1;
+        this.lastKick = -1;
+        this.generator.reset(seed);
+        this.tetromino = new Tetromino(this.generator.next(), rotationSystem);
+        this.nextTetromino = new Tetromino(this.generator.peek(0), rotationSystem);
+    }
+
+    /**
+     * 以新的随机种子开始新的一局
+     */
+    public void reset() {
+        reset(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * 清空面板并重置所有计数，以给定种子开始新的一局
+     *
+     * @param seed 随机数种子
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.generator.reset(seed);
+        this.wall.clear();
+        this.tetromino.spawn(this.generator.next());
+        this.nextTetromino.spawn(this.generator.peek(0));
+        this.lines = 0;
+        this.scores = 0;
+        this.pieces = 0;
+        this.lastClearedLines = 0;
+        this.heldType = null;
+        this.isHoldUsed = false;
+        this.combo = -1;
+        this.isBackToBack = false;
+        this.lastTSpin = TSpin.NONE;
+        this.lastKick = -1;
+        this.isGameOver = false;
+    }
+
+    /**
+     * 保存当前状态到新的快照
+     *
+     * @return 快照
+     */
+    public GameSnapshot snapshot() {
+        GameSnapshot snapshot = new GameSnapshot(this.generator.getType()
+                .create(this.generator.getPreviewCapacity(), this.seed));
+        snapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 把当前状态覆盖写入已有的快照，不创建新对象
+     *
+     * @param snapshot 由本引擎创建的快照
+     */
+    public void snapshot(GameSnapshot snapshot) {
+        snapshot.wall.copyFrom(this.wall);
+        snapshot.generator.copyFrom(this.generator);
+        snapshot.type = this.tetromino.getType();
+        snapshot.rotation = this.tetromino.getRotation();
+        snapshot.row = this.tetromino.getRow();
+        snapshot.col = this.tetromino.getCol();
+        snapshot.seed = this.seed;
+        snapshot.lines = this.lines;
+        snapshot.scores = this.scores;
+        snapshot.pieces = this.pieces;
+        snapshot.lastClearedLines = this.lastClearedLines;
+        snapshot.heldType = this.heldType;
+        snapshot.isHoldUsed = this.isHoldUsed;
+        snapshot.combo = this.combo;
+        snapshot.isBackToBack = this.isBackToBack;
+        snapshot.lastTSpin = this.lastTSpin;
+        snapshot.lastKick = this.lastKick;
+        snapshot.isGameOver = this.isGameOver;
+    }
+
+    /**
+     * 还原到快照时的状态，快照本身不变，可以多次还原
+     *
+     * @param snapshot 由本引擎创建的快照
+     */
+    public void restore(GameSnapshot snapshot) {
+        this.wall.copyFrom(snapshot.wall);
+        this.generator.copyFrom(snapshot.generator);
+        this.tetromino.place(snapshot.type, snapshot.rotation, snapshot.row, snapshot.col);
+        this.nextTetromino.spawn(this.generator.peek(0));
+        this.seed = snapshot.seed;
+        this.lines = snapshot.lines;
+        this.scores = snapshot.scores;
+        this.pieces = snapshot.pieces;
+        this.lastClearedLines = snapshot.lastClearedLines;
+        this.heldType = snapshot.heldType;
+        this.isHoldUsed = snapshot.isHoldUsed;
+        this.combo = snapshot.combo;
+        this.isBackToBack = snapshot.isBackToBack;
+        this.lastTSpin = snapshot.lastTSpin;
+        this.lastKick = snapshot.lastKick;
+        this.isGameOver = snapshot.isGameOver;
+    }
+
+    /**
+     * 对当前方块组执行一步操作
+     *
+     * @param action 操作
+     * @return 操作产生的事件
+     */
+    public StepResult step(Action action) {
+        if (this.isGameOver) {
+            return StepResult.REJECTED;
+        }
+        switch (action) {
+            case MOVE_LEFT:
+                return moveLeft();
+            case MOVE_RIGHT:
+                return moveRight();
+            case ROTATE_RIGHT:
+                return rotate(true);
+            case ROTATE_LEFT:
+                return rotate(false);
+            case SOFT_DROP:
+                return drop(true);
+            case HARD_DROP:
+                return dropHard();
+            case HOLD:
+                return hold();
+            default:
+                return StepResult.REJECTED;
+        }
+    }
+
+    /**
+     * 重力作用下自动下落一格，与SOFT_DROP的区别只在于不计软降得分
+     *
+     * @return 下落产生的事件
+     */
+    public StepResult tick() {
+        if (this.isGameOver) {
+            return StepResult.REJECTED;
+        }
+        return drop(false);
+    }
+
+    private StepResult moveRight() {
+        this.tetromino.moveRight();
+        if (this.wall.collides(this.tetromino)) {
+            this.tetromino.moveLeft();
+            return StepResult.REJECTED;
+        }
+        this.lastKick = -1;
+        return StepResult.MOVED;
+    }
+
+    private StepResult moveLeft() {
+        this.tetromino.moveLeft();
+        if (this.wall.collides(this.tetromino)) {
+            this.tetromino.moveRight();
+            return StepResult.REJECTED;
+        }
+        this.lastKick = -1;
+        return StepResult.MOVED;
+    }
+
+    private StepResult rotate(boolean isClockwise) {
+        int kick = this.tetromino.rotate(this.wall, isClockwise);
+        if (kick < 0) {
+            return StepResult.REJECTED;
+        }
+        this.lastKick = kick;
+        return StepResult.MOVED;
+    }
+
+    /**
+     * @param isSoftDrop 是否为玩家主动的软降，是则计软降得分
+     */
+    private StepResult drop(boolean isSoftDrop) {
+        if (this.wall.canDrop(this.tetromino)) {
+            this.tetromino.dropSoft();
+            this.lastKick = -1;
+            if (isSoftDrop) {
+                this.scores += this.scoring.getSoftDropPoints(1);
+            }
+            return StepResult.MOVED;
+        }
+        return lock();
+    }
+
+    private StepResult dropHard() {
+        int distance = this.wall.dropDistance(this.tetromino);
+        if (distance > 0) {
+            this.tetromino.dropBy(distance);
+            this.lastKick = -1;
+            this.scores += this.scoring.getHardDropPoints(distance);
+        }
+        return lock();
+    }
+
+    /**
+     * 把当前方块组放入暂存区，换上暂存的方块组，暂存区为空时换上下一个方块组，换上的方块组回到出现位置<br>
+     * 每个方块组落地前只能暂存一次；换上的方块组在出现位置无处可放时拒绝，不改变任何状态
+     */
+    private StepResult hold() {
+        if (this.isHoldUsed) {
+            return StepResult.REJECTED;
+        }
+        Tetromino t = this.tetromino;
+        TetrominoType current = t.getType();
+        int rotation = t.getRotation(), row = t.getRow(), col = t.getCol();
+        t.spawn(this.heldType != null ? this.heldType : this.generator.peek(0));
+        if (this.wall.collides(t)) {
+            t.place(current, rotation, row, col);
+            return StepResult.REJECTED;
+        }
+        if (this.heldType == null) {
+            this.generator.next();
+            this.nextTetromino.spawn(this.generator.peek(0));
+        }
+        this.heldType = current;
+        this.isHoldUsed = true;
+        this.lastKick = -1;
+        return StepResult.MOVED;
+    }
+
+    /**
+     * 在面板底部插入对战中对手送来的垃圾行，当前方块组被顶起时随之上移<br>
+     * 有方块被挤出顶部，或当前方块组已无处可放时游戏结束
+     *
+     * @param lines   垃圾行的行数
+     * @param holeCol 垃圾行的空列
+     * @return 游戏是否因此结束
+     * @throws IllegalArgumentException 空列不在[0, Board.COLS)内
+     */
+    public boolean addGarbage(int lines, int holeCol) {
+        if (this.isGameOver || lines <= 0) {
+            return this.isGameOver;
+        }
+        boolean isToppedOut = this.wall.addGarbage(lines, holeCol, GARBAGE_TYPE);
+        while (this.wall.collides(this.tetromino) && this.tetromino.getTop() > 0) {
+            this.tetromino.dropBy(-1);
+            this.lastKick = -1;
+        }
+        this.isGameOver = isToppedOut || this.wall.collides(this.tetromino);
+        return this.isGameOver;
+    }
+
+    /**
+     * 当前方块组落地、消除已满的行、结算得分、判定游戏结束，并换上下一个方块组<br>
+     * T旋只检查T中心的四个斜角，连击和背靠背只依赖上一次落地的状态，结算是O(1)的
+     *
+     * @return 落地产生的事件
+     */
+    private StepResult lock() {
+        TSpin tSpin = detectTSpin();
+        this.wall.land(this.tetromino);
+        long start = this.isTimed ? System.nanoTime() : 0;
+        int cleared = this.wall.clearLines();
+        if (this.isTimed) {
+            this.lastClearNanos = System.nanoTime() - start;
+        }
+        boolean isDifficult = cleared == 4 || (cleared > 0 && tSpin != TSpin.NONE);
+        boolean isBackToBack = isDifficult && this.isBackToBack;
+        if (cleared > 0) {
+            this.combo++;
+            this.isBackToBack = isDifficult;
+        } else {
+            this.combo = -1;
+        }
+        this.scores += this.scoring.getLockPoints(cleared, tSpin, this.combo, isBackToBack, getLevel());
+        this.lastClearedLines = cleared;
+        this.lastTSpin = tSpin;
+        this.lastKick = -1;
+        this.isHoldUsed = false;
+        this.lines += cleared;
+        this.pieces++;
+        this.tetromino.spawn(this.generator.next());
+        this.nextTetromino.spawn(this.generator.peek(0));
+        // 新方块组在出现位置与面板重叠时游戏结束（block-out），与暂存和垃圾行的判定一致
+        this.isGameOver = this.wall.collides(this.tetromino);
+        if (this.isGameOver) {
+            return StepResult.GAME_OVER;
+        }
+        return cleared > 0 ? StepResult.LINES_CLEARED : StepResult.LOCKED;
+    }
+
+    /**
+     * 按三角规则判定即将落地的方块组是否为T旋：最后一次成功的操作是旋转，且中心四个斜角至少三个被占据，
+     * 面板之外的斜角算作占据；朝向一侧的两个斜角都被占据，或旋转用到了最远的踢墙偏移时为T旋，否则为迷你T旋
+     *
+     * @return 判定结果
+     */
+    private TSpin detectTSpin() {
+        Tetromino t = this.tetromino;
+        if (t.getType() != TetrominoType.T || this.lastKick < 0) {
+            return TSpin.NONE;
+        }
+        int row = t.getRow(), col = t.getCol();
+        int facingRow = t.getFacingRow(), facingCol = t.getFacingCol();
+        int corners = 0, front = 0;
+        for (int dr = -1; dr <= 1; dr += 2) {
+            for (int dc = -1; dc <= 1; dc += 2) {
+                int r = row + dr, c = col + dc;
+                if (r >= Board.ROWS || c < 0 || c >= Board.COLS || (r >= 0 && this.wall.isOccupied(r, c))) {
+                    corners++;
+                    if (dr == facingRow || dc == facingCol) {
+                        front++;
+                    }
+                }
+            }
+        }
+        if (corners < 3) {
+            return TSpin.NONE;
+        }
+        return front == 2 || this.lastKick == TST_KICK ? TSpin.FULL : TSpin.MINI;
+    }
+
+    /**
+     * @return 面板，调用方不应修改
+     */
+    public Board getWall() {
+        return this.wall;
+    }
+
+    /**
+     * @return 当前下落方块组，调用方不应修改
+     */
+    public Tetromino getTetromino() {
+        return this.tetromino;
+    }
+
+    /**
+     * @return 下一个下落方块组，调用方不应修改
+     */
+    public Tetromino getNextTetromino() {
+        return this.nextTetromino;
+    }
+
+    /**
+     * @return 预览的方块组数量，即生成器的预览容量
+     */
+    public int getPreviewCount() {
+        return this.generator.getPreviewCapacity();
+    }
+
+    /**
+     * 读取预览，不创建新对象，供绘制和机器人的前瞻搜索使用
+     *
+     * @param index 预览下标，0为下一个方块组，需小于getPreviewCount()
+     * @return 方块组类型
+     */
+    public TetrominoType getPreview(int index) {
+        return this.generator.peek(index);
+    }
+
+    /**
+     * @return 暂存区中的方块组类型，暂存区为空时为null
+     */
+    public TetrominoType getHeldType() {
+        return this.heldType;
+    }
+
+    /**
+     * @return 当前方块组是否已暂存过，为真时HOLD会被拒绝
+     */
+    public boolean isHoldUsed() {
+        return this.isHoldUsed;
+    }
+
+    /**
+     * @return 方块组序列生成器，调用方不应调用next()或reset()
+     */
+    public PieceGenerator getGenerator() {
+        return this.generator;
+    }
+
+    public RotationSystem getRotationSystem() {
+        return this.rotationSystem;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @return 计分与等级规则
+     */
+    public ScoringRules getScoring() {
+        return this.scoring;
+    }
+
+    /**
+     * @return 当前等级，由计分规则根据已消除行数得出
+     */
+    public int getLevel() {
+        return this.scoring.getLevel(this.lines);
+    }
+
+    /**
+     * @return 当前等级的重力间隔，单位纳秒
+     */
+    public long getGravityIntervalNanos() {
+        return this.scoring.getGravityIntervalNanos(getLevel());
+    }
+
+    public int getLines() {
+        return this.lines;
+    }
+
+    public int getScores() {
+        return this.scores;
+    }
+
+    public int getPieces() {
+        return this.pieces;
+    }
+
+    public int getLastClearedLines() {
+        return this.lastClearedLines;
+    }
+
+    /**
+     * @return 连击数，最近一次落地未消行时为-1
+     */
+    public int getCombo() {
+        return this.combo;
+    }
+
+    /**
+     * @return 最近一次消行是否为困难消行，即下一次困难消行能否获得背靠背加成
+     */
+    public boolean isBackToBack() {
+        return this.isBackToBack;
+    }
+
+    /**
+     * @return 最近一次落地的T旋判定结果
+     */
+    public TSpin getLastTSpin() {
+        return this.lastTSpin;
+    }
+
+    public boolean isGameOver() {
+        return this.isGameOver;
+    }
+
+    /**
+     * @param isTimed 是否记录消行耗时
+     */
+    public void setTimed(boolean isTimed) {
+        this.isTimed = isTimed;
+    }
+
+    /**
+     * @return 最近一次落地消除已满的行的耗时，单位纳秒，只在setTimed(true)后有效
+     */
+    public long getLastClearNanos() {
+        return this.lastClearNanos;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.game.tetris;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 游戏事件总线，把事件分发给所有订阅者<br>
+ * 订阅者列表写时复制，分发时遍历不可变的数组，不加锁；没有订阅者时分发只是一次空遍历
+ */
+public class GameEventBus implements GameEventListener {
+
+    /**
+     * 订阅者
+     */
+    private final List<GameEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param listener 订阅者
+     */
+    public void subscribe(GameEventListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * @param listener 订阅者
+     */
+    public void unsubscribe(GameEventListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public void onPieceSpawned(TetrominoType type) {
+        for (GameEventListener listener : this.listeners) {
+            listener.onPieceSpawned(type);
+        }
+    }
+
+    @Override
+    public void onPieceLocked(int clearedLines) {
+        for (GameEventListener listener : this.listeners) {
+            listener.onPieceLocked(clearedLines);
+        }
+    }
+
+    @Override
+    public void onGameOver(int scores, int lines) {
+        for (GameEventListener listener : this.listeners) {
+            listener.onGameOver(scores, lines);
+        }
+    }
+
+}
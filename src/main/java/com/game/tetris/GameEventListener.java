@@ -0,0 +1,34 @@
+package com.game.tetris;
+
+/**
+ * 游戏事件监听器，回调在游戏主循环线程中执行，实现应尽快返回且不能阻塞<br>
+ * 所有方法都有空的默认实现，只需覆盖关心的事件
+ */
+public interface GameEventListener {
+
+    /**
+     * 新的方块组出现
+     *
+     * @param type 方块组类型
+     */
+    default void onPieceSpawned(TetrominoType type) {
+    }
+
+    /**
+     * 方块组落地
+     *
+     * @param clearedLines 本次落地消除的行数，取值0~4，与GameEngine.SCORE_CASCADES的下标对应
+     */
+    default void onPieceLocked(int clearedLines) {
+    }
+
+    /**
+     * 游戏结束
+     *
+     * @param scores 最终得分
+     * @param lines  最终消除行数
+     */
+    default void onGameOver(int scores, int lines) {
+    }
+
+}
@@ -0,0 +1,748 @@
+package com.game.tetris;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定时间步长的游戏主循环<br>
+ * 整个进程只有一个长期存在的逻辑线程，引擎状态只在该线程中修改；
+ * 键盘输入先进入无锁队列，在下一次逻辑更新时统一执行。暂停和恢复只切换标记，不创建线程。
+ * 读取引擎状态（例如绘制）时需要持有引擎对象的锁<br>
+ * 设置回放目录后，每局实际执行的输入和重力下落都会按逻辑帧记录到回放文件；
+ * 播放回放时不再处理键盘输入和重力，改为按帧执行回放文件中的事件<br>
+ * 练习模式下每个方块组出现时保存一份快照，可以撤销到上一个方块组出现时的局面，也可以重做<br>
+ * 方块组出现、落地和游戏结束等事件通过事件总线发布；设置运行指标后还会记录各操作的耗时、按键延迟和重力下落的抖动
+ */
+public class GameLoop {
+
+    /**
+     * 逻辑更新频率
+     */
+    public static final int TICKS_PER_SECOND = 60;
+
+    /**
+     * 每次逻辑更新的时间步长，单位纳秒
+     */
+    public static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+
+    /**
+     * 落后过多时单帧最多补偿的逻辑更新次数，避免卡顿后雪崩
+     */
+    private static final int MAX_CATCH_UP_TICKS = 10;
+
+    /**
+     * 练习模式最多保存的快照数量，超出后丢弃最早的快照
+     */
+    private static final int HISTORY_CAPACITY = 256;
+
+    /**
+     * 游戏主循环事件监听器，回调均在逻辑线程中执行
+     */
+    public interface Listener {
+
+        /**
+         * 一次逻辑更新后引擎状态发生了变化
+         */
+        void onStateChanged();
+
+        /**
+         * 游戏结束
+         */
+        void onGameOver();
+
+    }
+
+    /**
+     * 游戏核心引擎
+     */
+    private final GameEngine engine;
+
+    /**
+     * 事件监听器
+     */
+    private final Listener listener;
+
+    /**
+     * 输入子系统，按键事件经无锁队列交给逻辑线程，在每个固定步长内转换为操作
+     */
+    private final InputController input = new InputController();
+
+    /**
+     * 唯一的逻辑线程
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 游戏暂停标记
+     */
+    private volatile boolean isPause = true;
+
+    /**
+     * 游戏结束标记，供其他线程无锁读取
+     */
+    private volatile boolean isGameOver;
+
+    /**
+     * 请求重新开始的标记
+     */
+    private volatile boolean restartRequested;
+
+    /**
+     * 最近一次逻辑更新的耗时，单位纳秒
+     */
+    private volatile long lastUpdateNanos;
+
+    /**
+     * 回放文件保存目录，为null时不记录
+     */
+    private volatile File recordDirectory;
+
+    /**
+     * 成绩记录文件，为null时不记录
+     */
+    private volatile ScoreLog scoreLog;
+
+    /**
+     * 最近一局在最高分中的名次，从0开始，未进入或未记录时为-1
+     */
+    private volatile int lastRank = -1;
+
+    /**
+     * 请求播放的回放，在下一帧生效
+     */
+    private volatile ReplayPlayer requestedReplay;
+
+    /**
+     * 请求播放的回放快进到的逻辑帧
+     */
+    private volatile long requestedReplayFrame;
+
+    /**
+     * 本局的回放记录器，只在逻辑线程中访问
+     */
+    private ReplayRecorder recorder;
+
+    /**
+     * 正在播放的回放，只在逻辑线程中修改
+     */
+    private volatile ReplayPlayer replay;
+
+    /**
+     * 本局开始后经过的逻辑帧数
+     */
+    private long frame;
+
+    /**
+     * 游戏事件总线
+     */
+    private final GameEventBus events = new GameEventBus();
+
+    /**
+     * 运行指标，为null时不记录
+     */
+    private volatile GameMetrics metrics;
+
+    /**
+     * 上一次重力下落的时间，0表示需要重新开始计算抖动
+     */
+    private long lastGravityNanos;
+
+    /**
+     * 是否为练习模式
+     */
+    private volatile boolean isPractice;
+
+    /**
+     * 请求撤销或重做的次数，撤销为负，在下一帧生效
+     */
+    private final AtomicInteger historyRequests = new AtomicInteger();
+
+    /**
+     * 练习模式的快照环，快照对象循环复用，只在逻辑线程中访问
+     */
+    private final GameSnapshot[] history = new GameSnapshot[HISTORY_CAPACITY];
+
+    /**
+     * 快照环中最早、当前和最新快照的序号，序号对HISTORY_CAPACITY取模即为下标
+     */
+    private int historyFirst, historyCursor, historyLast;
+
+    /**
+     * 上一帧的时间戳，单位纳秒
+     */
+    private long lastFrameNanos;
+
+    /**
+     * 尚未消耗的逻辑时间，单位纳秒
+     */
+    private long accumulatorNanos;
+
+    /**
+     * 距上次重力下落经过的逻辑时间，单位纳秒
+     */
+    private long gravityNanos;
+
+    public GameLoop(GameEngine engine, Listener listener) {
+        this.engine = engine;
+        this.listener = listener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tetris-game-loop");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::frame, TICK_NANOS, TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 请求开始新的一局，在下一帧生效
+     */
+    public void restart() {
+        this.requestedReplay = null;
+        this.restartRequested = true;
+        this.isPause = false;
+    }
+
+    /**
+     * 请求从头播放回放，快进到给定帧后按原始帧率实时播放，在下一帧生效<br>
+     * 播放结束后游戏暂停，恢复后可以从回放结束时的局面继续游戏
+     *
+     * @param player 回放播放器，播放结束后由主循环关闭
+     * @param frame  快进到的逻辑帧，0表示从头播放
+     */
+    public void replay(ReplayPlayer player, long frame) {
+        if (!player.isCompatible(this.engine)) {
+            throw new IllegalArgumentException("回放的生成方式、旋转系统或计分规则与引擎不一致: "
+                    + player.getGeneratorType() + ", " + player.getRotationSystem() + ", " + player.getScoringType());
+        }
+        this.requestedReplayFrame = frame;
+        this.requestedReplay = player;
+        this.restartRequested = true;
+        this.isPause = false;
+    }
+
+    /**
+     * 设置回放文件保存目录，从下一局开始生效
+     *
+     * @param directory 回放文件保存目录，为null时不记录
+     */
+    public void setRecordDirectory(File directory) {
+        this.recordDirectory = directory;
+    }
+
+    /**
+     * 设置成绩记录文件，之后每局正常结束时追加一条记录；练习模式和播放回放的对局不记录
+     *
+     * @param scoreLog 成绩记录文件，为null时不记录
+     */
+    public void setScoreLog(ScoreLog scoreLog) {
+        this.scoreLog = scoreLog;
+    }
+
+    public ScoreLog getScoreLog() {
+        return this.scoreLog;
+    }
+
+    /**
+     * @return 最近一局在最高分中的名次，从0开始，未进入或未记录时为-1
+     */
+    public int getLastRank() {
+        return this.lastRank;
+    }
+
+    /**
+     * @return 游戏事件总线，订阅者的回调在逻辑线程中执行
+     */
+    public GameEventBus getEvents() {
+        return this.events;
+    }
+
+    /**
+     * 设置运行指标并订阅游戏事件
+     *
+     * @param metrics 运行指标
+     */
+    public void setMetrics(GameMetrics metrics) {
+        synchronized (this.engine) {
+            this.engine.setTimed(true);
+        }
+        this.events.subscribe(metrics);
+        this.metrics = metrics;
+    }
+
+    /**
+     * 设置是否为练习模式，从下一局开始生效
+     *
+     * @param isPractice 是否为练习模式
+     */
+    public void setPractice(boolean isPractice) {
+        this.isPractice = isPractice;
+    }
+
+    public boolean isPractice() {
+        return this.isPractice;
+    }
+
+    /**
+     * 练习模式下请求撤销到上一个方块组出现时的局面，在下一帧生效，暂停和游戏结束后同样可用
+     */
+    public void undo() {
+        this.historyRequests.decrementAndGet();
+    }
+
+    /**
+     * 练习模式下请求重做一次被撤销的方块组，在下一帧生效
+     */
+    public void redo() {
+        this.historyRequests.incrementAndGet();
+    }
+
+    /**
+     * @return 是否正在播放回放
+     */
+    public boolean isReplaying() {
+        return this.replay != null;
+    }
+
+    /**
+     * 暂停游戏进程
+     */
+    public void pause() {
+        this.isPause = true;
+    }
+
+    /**
+     * 暂停后继续游戏进程
+     */
+    public void resume() {
+        this.isPause = false;
+    }
+
+    public boolean isPause() {
+        return this.isPause;
+    }
+
+    public boolean isGameOver() {
+        return this.isGameOver;
+    }
+
+    /**
+     * @return 最近一次逻辑更新的耗时，单位纳秒
+     */
+    public long getLastUpdateNanos() {
+        return this.lastUpdateNanos;
+    }
+
+    /**
+     * 提交一个输入，在下一次逻辑更新时执行一次，不影响按键状态
+     *
+     * @param action 操作
+     */
+    public void submit(Action action) {
+        long nanos = System.nanoTime();
+        GameMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.inputSubmitted(nanos);
+        }
+        this.input.tap(action, nanos);
+    }
+
+    /**
+     * 按键按下，在下一次逻辑更新时执行，按住期间由输入子系统处理自动平移和软降
+     *
+     * @param action 按键对应的操作
+     */
+    public void press(Action action) {
+        long nanos = System.nanoTime();
+        GameMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.inputSubmitted(nanos);
+        }
+        this.input.press(action, nanos);
+    }
+
+    /**
+     * 按键松开
+     *
+     * @param action 按键对应的操作
+     */
+    public void release(Action action) {
+        this.input.release(action, System.nanoTime());
+    }
+
+    /**
+     * @return 输入子系统，可调整DAS、ARR和软降倍率
+     */
+    public InputController getInput() {
+        return this.input;
+    }
+
+    /**
+     * 关闭回放文件并停止逻辑线程，最多等待一秒
+     */
+    public void shutdown() {
+        this.scheduler.execute(() -> {
+            closeRecorder();
+            closeReplay();
+        });
+        this.scheduler.shutdown();
+        try {
+            this.scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 每帧由调度器调用一次，按固定步长消耗累计的时间
+     */
+    private void frame() {
+        try {
+            long now = System.nanoTime();
+            if (this.restartRequested) {
+                this.restartRequested = false;
+                start(this.requestedReplay, this.requestedReplayFrame);
+                this.requestedReplay = null;
+                this.input.clear();
+                this.accumulatorNanos = 0;
+                this.gravityNanos = 0;
+                this.lastFrameNanos = now;
+                this.listener.onStateChanged();
+                if (this.isGameOver) {
+                    // 回放快进越过文件末尾时局面已经结束，之后的帧都会提前返回，在这里完成结束处理
+                    finish();
+                }
+                return;
+            }
+            int moves = this.historyRequests.getAndSet(0);
+            if (moves != 0 && this.isPractice && this.replay == null && moveHistory(moves)) {
+                this.accumulatorNanos = 0;
+                this.gravityNanos = 0;
+                this.lastFrameNanos = now;
+                this.input.clear();
+                this.lastGravityNanos = 0;
+                this.listener.onStateChanged();
+                return;
+            }
+            if (this.isPause || this.isGameOver) {
+                // 暂停期间不累计时间，恢复后从当前时刻继续
+                this.input.clear();
+                this.lastFrameNanos = now;
+                this.lastGravityNanos = 0;
+                return;
+            }
+            this.accumulatorNanos += now - this.lastFrameNanos;
+            this.lastFrameNanos = now;
+            boolean changed = false;
+            int ticks = 0;
+            while (this.accumulatorNanos >= TICK_NANOS && ticks < MAX_CATCH_UP_TICKS && !this.isGameOver) {
+                this.accumulatorNanos -= TICK_NANOS;
+                changed |= update();
+                ticks++;
+            }
+            if (ticks == MAX_CATCH_UP_TICKS) {
+                this.accumulatorNanos = 0;
+            }
+            if (changed) {
+                this.listener.onStateChanged();
+            }
+            if (this.isGameOver) {
+                finish();
+            }
+        } catch (RuntimeException e) {
+            // 调度任务抛出异常会被取消，记录后继续运行
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 一局结束：保存成绩，关闭记录和回放，然后通知界面
+     */
+    private void finish() {
+        saveScore();
+        closeRecorder();
+        closeReplay();
+        this.listener.onGameOver();
+    }
+
+    /**
+     * 开始新的一局：结束上一局的记录和回放，重置引擎，然后开始记录或播放回放
+     *
+     * @param player 要播放的回放，为null时开始普通的一局
+     * @param frame  回放快进到的逻辑帧
+     */
+    private void start(ReplayPlayer player, long frame) {
+        closeRecorder();
+        closeReplay();
+        synchronized (this.engine) {
+            this.frame = 0;
+            if (player == null) {
+                this.engine.reset();
+            } else {
+                this.engine.reset(player.getSeed());
+                try {
+                    player.fastForward(this.engine, frame);
+                    this.frame = frame;
+                    this.replay = player;
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    close(player);
+                }
+            }
+            this.isGameOver = this.engine.isGameOver();
+        }
+        this.lastGravityNanos = 0;
+        this.events.onPieceSpawned(this.engine.getTetromino().getType());
+        this.historyFirst = 0;
+        this.historyCursor = 0;
+        this.historyLast = 0;
+        if (player == null && this.isPractice) {
+            saveHistory();
+        }
+        File directory = this.recordDirectory;
+        if (player == null && directory != null) {
+            try {
+                this.recorder = ReplayRecorder.create(directory, this.engine);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 一次固定步长的逻辑更新：执行排队的输入，然后处理重力；播放回放时改为执行本帧的回放事件
+     *
+     * @return 引擎状态是否发生变化
+     */
+    private boolean update() {
+        long start = System.nanoTime();
+        boolean changed = false;
+        synchronized (this.engine) {
+            if (this.replay != null) {
+                changed = updateReplay();
+            } else {
+                GameMetrics metrics = this.metrics;
+                boolean polled = false, inputChanged = false;
+                int count = this.input.update(start);
+                for (int i = 0; i < count && !this.isGameOver; i++) {
+                    Action action = this.input.getAction(i);
+                    polled = true;
+                    long stepStart = metrics != null ? System.nanoTime() : 0;
+                    StepResult result = this.engine.step(action);
+                    if (metrics != null) {
+                        long stepEnd = System.nanoTime();
+                        metrics.recordStep(action, stepEnd - stepStart);
+                        long pressed = this.input.getActionNanos(i);
+                        if (pressed != 0 && result != StepResult.REJECTED) {
+                            metrics.recordInputToState(stepEnd - pressed);
+                        }
+                    }
+                    if (result != StepResult.REJECTED && this.recorder != null) {
+                        record(action);
+                    }
+                    inputChanged |= apply(result);
+                    onStep(result);
+                }
+                if (polled && metrics != null) {
+                    metrics.inputApplied(inputChanged);
+                }
+                changed = inputChanged;
+                // 按住下键时重力按软降倍率加快，每帧最多下落一格，多出的时间最多保留一格；
+                // 软降产生的下落按SOFT_DROP执行和记录，以便计入软降得分并在回放时得到相同的分数
+                int gravityFactor = this.input.getGravityFactor();
+                this.gravityNanos += TICK_NANOS * gravityFactor;
+                long interval = this.engine.getGravityIntervalNanos();
+                if (!this.isGameOver && this.gravityNanos >= interval) {
+                    this.gravityNanos = Math.min(this.gravityNanos - interval, interval);
+                    long tickStart = metrics != null ? System.nanoTime() : 0;
+                    JfrEvents.GravityTick tick = JfrEvents.ENABLED ? JfrEvents.gravityBegin() : null;
+                    StepResult result = gravityFactor == 1 ? this.engine.tick() : this.engine.step(Action.SOFT_DROP);
+                    if (tick != null) {
+                        JfrEvents.gravityEnd(tick, this.engine, result);
+                    }
+                    if (metrics != null) {
+                        metrics.recordStep(Action.SOFT_DROP, System.nanoTime() - tickStart);
+                        // 软降期间的下落间隔不是重力间隔，不计入抖动
+                        if (this.lastGravityNanos != 0 && gravityFactor == 1) {
+                            metrics.recordGravityJitter(Math.abs(tickStart - this.lastGravityNanos - interval));
+                        }
+                        this.lastGravityNanos = gravityFactor == 1 ? tickStart : 0;
+                    }
+                    changed |= apply(result);
+                    if (this.recorder != null) {
+                        record(gravityFactor == 1 ? null : Action.SOFT_DROP);
+                    }
+                    onStep(result);
+                }
+            }
+        }
+        this.frame++;
+        this.lastUpdateNanos = System.nanoTime() - start;
+        return changed;
+    }
+
+    /**
+     * 方块组落地后发布事件并记录消行耗时；练习模式下为新出现的方块组保存快照，并丢弃可以重做的快照
+     *
+     * @param result 引擎返回的事件
+     */
+    private void onStep(StepResult result) {
+        if (result == StepResult.REJECTED || result == StepResult.MOVED) {
+            return;
+        }
+        GameMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordClearLines(this.engine.getLastClearNanos());
+        }
+        if (JfrEvents.ENABLED) {
+            JfrEvents.pieceLocked(this.engine, result);
+        }
+        this.events.onPieceLocked(this.engine.getLastClearedLines());
+        if (result == StepResult.GAME_OVER) {
+            this.events.onGameOver(this.engine.getScores(), this.engine.getLines());
+        } else {
+            this.events.onPieceSpawned(this.engine.getTetromino().getType());
+        }
+        if (!this.isPractice || this.replay != null) {
+            return;
+        }
+        this.historyCursor++;
+        this.historyLast = this.historyCursor;
+        if (this.historyLast - this.historyFirst >= HISTORY_CAPACITY) {
+            this.historyFirst++;
+        }
+        saveHistory();
+    }
+
+    /**
+     * 把当前局面保存到快照环中historyCursor对应的位置，调用方需持有引擎的锁或位于逻辑线程
+     */
+    private void saveHistory() {
+        int index = this.historyCursor % HISTORY_CAPACITY;
+        if (this.history[index] == null) {
+            this.history[index] = this.engine.snapshot();
+        } else {
+            this.engine.snapshot(this.history[index]);
+        }
+    }
+
+    /**
+     * 在快照环中移动并还原局面，撤销后本局的回放记录不再能复现，因此停止记录
+     *
+     * @param moves 移动的步数，撤销为负
+     * @return 局面是否发生变化
+     */
+    private boolean moveHistory(int moves) {
+        int cursor = Math.max(this.historyFirst, Math.min(this.historyLast, this.historyCursor + moves));
+        if (cursor == this.historyCursor) {
+            return false;
+        }
+        this.historyCursor = cursor;
+        this.lastGravityNanos = 0;
+        synchronized (this.engine) {
+            this.engine.restore(this.history[cursor % HISTORY_CAPACITY]);
+            this.isGameOver = this.engine.isGameOver();
+        }
+        closeRecorder();
+        return true;
+    }
+
+    /**
+     * 执行回放中属于本帧的事件，回放结束后暂停游戏
+     *
+     * @return 引擎状态是否发生变化
+     */
+    private boolean updateReplay() {
+        this.input.clear();
+        boolean changed = false;
+        try {
+            while (!this.isGameOver && this.replay.hasNext() && this.replay.peekFrame() <= this.frame) {
+                StepResult result = this.replay.applyNext(this.engine);
+                changed |= apply(result);
+                onStep(result);
+            }
+            if (!this.isGameOver && !this.replay.hasNext()) {
+                closeReplay();
+                this.isPause = true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeReplay();
+            this.isPause = true;
+        }
+        return changed;
+    }
+
+    /**
+     * 记录一个已执行的事件，写入失败时停止本局的记录
+     *
+     * @param action 操作，为null表示重力下落
+     */
+    private void record(Action action) {
+        try {
+            if (action == null) {
+                this.recorder.recordGravity(this.frame);
+            } else {
+                this.recorder.record(this.frame, action);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeRecorder();
+        }
+    }
+
+    /**
+     * 把刚结束的一局追加到成绩记录文件，时长为本局的逻辑帧数，不含暂停；写入失败时停止记录
+     */
+    private void saveScore() {
+        ScoreLog scoreLog = this.scoreLog;
+        this.lastRank = -1;
+        if (scoreLog == null || this.replay != null || this.isPractice) {
+            return;
+        }
+        try {
+            this.lastRank = scoreLog.append(this.engine, this.frame * TICK_NANOS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            this.scoreLog = null;
+        }
+    }
+
+    private void closeRecorder() {
+        if (this.recorder != null) {
+            close(this.recorder);
+            this.recorder = null;
+        }
+    }
+
+    private void closeReplay() {
+        if (this.replay != null) {
+            close(this.replay);
+            this.replay = null;
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param result 引擎返回的事件
+     * @return 引擎状态是否发生变化
+     */
+    private boolean apply(StepResult result) {
+        if (result == StepResult.GAME_OVER) {
+            this.isGameOver = true;
+        }
+        return result != StepResult.REJECTED;
+    }
+
+}
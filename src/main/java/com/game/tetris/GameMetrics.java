@@ -0,0 +1,286 @@
+package com.game.tetris;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * 游戏运行指标：方块组计数、按消除行数统计的落地次数、各热点路径的耗时直方图、按键到状态变化和到画面的延迟、重力下落的抖动<br>
+ * 计数器使用LongAdder，直方图无锁，记录方法可以在游戏主循环线程和绘制线程中同时调用。
+ * 指标可以注册为JMX MBean，也可以按固定周期输出到控制台
+ */
+public class GameMetrics implements GameMetricsMXBean, GameEventListener {
+
+    /**
+     * 注册到平台MBeanServer时使用的名称
+     */
+    public static final String OBJECT_NAME = "com.game.tetris:type=GameMetrics";
+
+    private final LongAdder piecesSpawned = new LongAdder();
+
+    private final LongAdder gamesOver = new LongAdder();
+
+    /**
+     * 按一次消除的行数统计的落地次数
+     */
+    private final LongAdder[] linesClearedByCount = new LongAdder[GameEngine.SCORE_CASCADES.length];
+
+    private final Histogram softDrop = new Histogram();
+
+    private final Histogram hardDrop = new Histogram();
+
+    private final Histogram clearLines = new Histogram();
+
+    private final Histogram paint = new Histogram();
+
+    private final Histogram inputLatency = new Histogram();
+
+    private final Histogram inputToState = new Histogram();
+
+    private final Histogram gravityJitter = new Histogram();
+
+    /**
+     * 最早一个尚未执行的输入的提交时间，0表示没有
+     */
+    private final AtomicLong submittedInputNanos = new AtomicLong();
+
+    /**
+     * 最早一个已执行但尚未绘制的输入的提交时间，0表示没有
+     */
+    private final AtomicLong appliedInputNanos = new AtomicLong();
+
+    /**
+     * 定期输出指标的线程，未开启时为null
+     */
+    private ScheduledExecutorService dumper;
+
+    public GameMetrics() {
+        for (int i = 0; i < this.linesClearedByCount.length; i++) {
+            this.linesClearedByCount[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onPieceSpawned(TetrominoType type) {
+        this.piecesSpawned.increment();
+    }
+
+    @Override
+    public void onPieceLocked(int clearedLines) {
+        this.linesClearedByCount[clearedLines].increment();
+    }
+
+    @Override
+    public void onGameOver(int scores, int lines) {
+        this.gamesOver.increment();
+    }
+
+    /**
+     * 记录一次引擎操作的耗时，只统计单步下落和直接落底
+     *
+     * @param action 操作
+     * @param nanos  耗时，单位纳秒
+     */
+    public void recordStep(Action action, long nanos) {
+        if (action == Action.SOFT_DROP) {
+            this.softDrop.record(nanos);
+        } else if (action == Action.HARD_DROP) {
+            this.hardDrop.record(nanos);
+        }
+    }
+
+    /**
+     * @param nanos 消除已满的行的耗时，单位纳秒
+     */
+    public void recordClearLines(long nanos) {
+        this.clearLines.record(nanos);
+    }
+
+    /**
+     * @param nanos 重力下落的实际间隔与应有间隔之差的绝对值，单位纳秒
+     */
+    public void recordGravityJitter(long nanos) {
+        this.gravityJitter.record(nanos);
+    }
+
+    /**
+     * @param nanos 从按键到对应操作改变引擎状态的延迟，单位纳秒
+     */
+    public void recordInputToState(long nanos) {
+        this.inputToState.record(nanos);
+    }
+
+    /**
+     * 输入被提交，只记住最早一个尚未执行的输入
+     *
+     * @param nanos 提交时间，System.nanoTime()
+     */
+    public void inputSubmitted(long nanos) {
+        this.submittedInputNanos.compareAndSet(0, nanos);
+    }
+
+    /**
+     * 已提交的输入执行完毕
+     *
+     * @param changed 引擎状态是否发生变化，未变化时不会重绘，丢弃本次采样
+     */
+    public void inputApplied(boolean changed) {
+        long submitted = this.submittedInputNanos.getAndSet(0);
+        if (changed && submitted != 0) {
+            this.appliedInputNanos.compareAndSet(0, submitted);
+        }
+    }
+
+    /**
+     * 一帧绘制完成
+     *
+     * @param startNanos 开始绘制的时间，System.nanoTime()
+     * @param endNanos   绘制完成的时间，System.nanoTime()
+     */
+    public void painted(long startNanos, long endNanos) {
+        this.paint.record(endNanos - startNanos);
+        long applied = this.appliedInputNanos.getAndSet(0);
+        if (applied != 0) {
+            this.inputLatency.record(endNanos - applied);
+        }
+    }
+
+    @Override
+    public long getPiecesSpawned() {
+        return this.piecesSpawned.sum();
+    }
+
+    @Override
+    public long[] getLinesClearedByCount() {
+        long[] counts = new long[this.linesClearedByCount.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.linesClearedByCount[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public long getGamesOver() {
+        return this.gamesOver.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getSoftDropNanos() {
+        return this.softDrop.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getHardDropNanos() {
+        return this.hardDrop.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getClearLinesNanos() {
+        return this.clearLines.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getPaintNanos() {
+        return this.paint.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getInputLatencyNanos() {
+        return this.inputLatency.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getInputToStateNanos() {
+        return this.inputToState.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getGravityJitterNanos() {
+        return this.gravityJitter.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        this.piecesSpawned.reset();
+        this.gamesOver.reset();
+        for (LongAdder adder : this.linesClearedByCount) {
+            adder.reset();
+        }
+        this.softDrop.reset();
+        this.hardDrop.reset();
+        this.clearLines.reset();
+        this.paint.reset();
+        this.inputLatency.reset();
+        this.inputToState.reset();
+        this.gravityJitter.reset();
+    }
+
+    /**
+     * 注册到平台MBeanServer，同名MBean已存在时注册失败
+     *
+     * @return 是否注册成功
+     */
+    public boolean register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            return true;
+        } catch (JMException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 开始按固定周期输出指标，重复调用时先停止上一次的输出
+     *
+     * @param period 周期
+     * @param unit   周期的单位
+     * @param out    输出目标
+     */
+    public synchronized void startDump(long period, TimeUnit unit, PrintStream out) {
+        stopDump();
+        this.dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tetris-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dumper.scheduleAtFixedRate(() -> out.println(this), period, period, unit);
+    }
+
+    /**
+     * 停止定期输出
+     */
+    public synchronized void stopDump() {
+        if (this.dumper != null) {
+            this.dumper.shutdownNow();
+            this.dumper = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[metrics] pieces=").append(getPiecesSpawned())
+                .append(" gamesOver=").append(getGamesOver()).append(" locksByLines=");
+        long[] counts = getLinesClearedByCount();
+        for (int i = 0; i < counts.length; i++) {
+            builder.append(i == 0 ? "[" : ", ").append(counts[i]);
+        }
+        return builder.append(']')
+                .append("\n  softDrop      ").append(getSoftDropNanos())
+                .append("\n  hardDrop      ").append(getHardDropNanos())
+                .append("\n  clearLines    ").append(getClearLinesNanos())
+                .append("\n  paint         ").append(getPaintNanos())
+                .append("\n  inputToState  ").append(getInputToStateNanos())
+                .append("\n  inputLatency  ").append(getInputLatencyNanos())
+                .append("\n  gravityJitter ").append(getGravityJitterNanos())
+                .toString();
+    }
+
+}
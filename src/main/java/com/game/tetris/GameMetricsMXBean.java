@@ -0,0 +1,63 @@
+package com.game.tetris;
+
+/**
+ * 通过JMX暴露的运行指标，耗时类指标的单位均为纳秒
+ */
+public interface GameMetricsMXBean {
+
+    /**
+     * @return 出现过的方块组数量
+     */
+    long getPiecesSpawned();
+
+    /**
+     * @return 按一次消除的行数统计的落地次数，下标0~4与GameEngine.SCORE_CASCADES对应
+     */
+    long[] getLinesClearedByCount();
+
+    /**
+     * @return 已结束的对局数
+     */
+    long getGamesOver();
+
+    /**
+     * @return 单步下落（按键下落和重力下落）的耗时
+     */
+    HistogramSnapshot getSoftDropNanos();
+
+    /**
+     * @return 直接落底的耗时
+     */
+    HistogramSnapshot getHardDropNanos();
+
+    /**
+     * @return 落地时消除已满的行的耗时
+     */
+    HistogramSnapshot getClearLinesNanos();
+
+    /**
+     * @return 绘制一帧的耗时
+     */
+    HistogramSnapshot getPaintNanos();
+
+    /**
+     * @return 从按键到对应操作改变引擎状态的延迟，不含自动平移产生的操作
+     */
+    HistogramSnapshot getInputToStateNanos();
+
+    /**
+     * @return 从按键到包含该输入结果的画面绘制完成的延迟
+     */
+    HistogramSnapshot getInputLatencyNanos();
+
+    /**
+     * @return 相邻两次重力下落的实际间隔与当前等级重力间隔之差的绝对值
+     */
+    HistogramSnapshot getGravityJitterNanos();
+
+    /**
+     * 清空全部指标
+     */
+    void reset();
+
+}
@@ -0,0 +1,16 @@
+package com.game.tetris;
+
+/**
+ * 无界面对局中决定下一步操作的策略，每局游戏使用独立的实例，无需线程安全
+ */
+public interface GamePolicy {
+
+    /**
+     * 根据当前局面决定下一步操作
+     *
+     * @param engine 当前对局的引擎，策略不应直接修改
+     * @return 下一步操作
+     */
+    Action decide(GameEngine engine);
+
+}
@@ -0,0 +1,82 @@
+package com.game.tetris;
+
+/**
+ * 一局游戏在某一时刻的完整状态：面板、当前方块组、暂存区、计数器、随机数种子和方块组序列生成器的状态<br>
+ * 下一个方块组由生成器的预览得出，无需单独保存。快照由GameEngine.snapshot()创建或覆盖，
+ * 可以重复用于同一引擎的snapshot(GameSnapshot)和restore(GameSnapshot)，覆盖时不创建新对象
+ */
+public class GameSnapshot {
+
+    /**
+     * 面板
+     */
+    final Board wall = new Board();
+
+    /**
+     * 方块组序列生成器的副本
+     */
+    final PieceGenerator generator;
+
+    /**
+     * 当前方块组的类型、旋转状态和位置
+     */
+    TetrominoType type;
+
+    int rotation, row, col;
+
+    /**
+     * 暂存区的方块组类型，为null表示为空，以及当前方块组是否已暂存过
+     */
+    TetrominoType heldType;
+
+    boolean isHoldUsed;
+
+    /**
+     * 计数器和游戏结束标记
+     */
+    long seed;
+
+    int lines, scores, pieces, lastClearedLines;
+
+    /**
+     * 连击、背靠背和T旋的状态
+     */
+    int combo, lastKick;
+
+    boolean isBackToBack;
+
+    TSpin lastTSpin;
+
+    boolean isGameOver;
+
+    /**
+     * @param generator 与引擎的生成器类型和预览数量一致的生成器，由本快照独占
+     */
+    GameSnapshot(PieceGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * @return 快照时面板的Zobrist哈希
+     */
+    public long getHash() {
+        return this.wall.getHash();
+    }
+
+    public int getLines() {
+        return this.lines;
+    }
+
+    public int getScores() {
+        return this.scores;
+    }
+
+    public int getPieces() {
+        return this.pieces;
+    }
+
+    public boolean isGameOver() {
+        return this.isGameOver;
+    }
+
+}
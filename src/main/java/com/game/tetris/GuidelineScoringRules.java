@@ -0,0 +1,97 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 现代指南式计分规则：消行、T旋和连击得分乘以等级，背靠背的困难消行得分乘以1.5，软降每行1分，硬降每行2分；
+ * 从1级开始每消除10行升一级，最高MAX_LEVEL级，重力间隔为(0.8 - (等级 - 1) * 0.007)^(等级 - 1)秒，在类加载时按等级算好
+ */
+public class GuidelineScoringRules implements ScoringRules {
+
+    /**
+     * 最高等级
+     */
+    public static final int MAX_LEVEL = 20;
+
+    /**
+     * 普通消除1~4行的基础得分
+     */
+    private static final int[] LINE_POINTS = {0, 100, 300, 500, 800};
+
+    /**
+     * T旋消除0~3行的基础得分
+     */
+    private static final int[] T_SPIN_POINTS = {400, 800, 1200, 1600};
+
+    /**
+     * 迷你T旋消除0~2行的基础得分
+     */
+    private static final int[] T_SPIN_MINI_POINTS = {100, 200, 400};
+
+    /**
+     * 每级连击的基础得分
+     */
+    private static final int COMBO_POINTS = 50;
+
+    /**
+     * 各等级的重力间隔，下标为等级
+     */
+    private static final long[] GRAVITY_NANOS = new long[MAX_LEVEL + 1];
+
+    static {
+        for (int level = 1; level <= MAX_LEVEL; level++) {
+            double seconds = Math.pow(0.8 - (level - 1) * 0.007, level - 1);
+            GRAVITY_NANOS[level] = (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+        }
+        GRAVITY_NANOS[0] = GRAVITY_NANOS[1];
+    }
+
+    @Override
+    public ScoringType getType() {
+        return ScoringType.GUIDELINE;
+    }
+
+    @Override
+    public int getLevel(int lines) {
+        return Math.min(MAX_LEVEL, 1 + lines / 10);
+    }
+
+    @Override
+    public long getGravityIntervalNanos(int level) {
+        return GRAVITY_NANOS[Math.max(0, Math.min(MAX_LEVEL, level))];
+    }
+
+    @Override
+    public int getSoftDropPoints(int rows) {
+        return rows;
+    }
+
+    @Override
+    public int getHardDropPoints(int rows) {
+        return rows * 2;
+    }
+
+    @Override
+    public int getLockPoints(int clearedLines, TSpin tSpin, int combo, boolean isBackToBack, int level) {
+        int points;
+        switch (tSpin) {
+            case FULL:
+                points = T_SPIN_POINTS[Math.min(clearedLines, T_SPIN_POINTS.length - 1)];
+                break;
+            case MINI:
+                points = T_SPIN_MINI_POINTS[Math.min(clearedLines, T_SPIN_MINI_POINTS.length - 1)];
+                break;
+            default:
+                points = LINE_POINTS[clearedLines];
+                break;
+        }
+        if (isBackToBack) {
+            points += points >> 1;
+        }
+        if (combo > 0) {
+            points += COMBO_POINTS * combo;
+        }
+        return points * level;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.game.tetris;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数线性直方图，记录非负的耗时等数值<br>
+ * 小于16的值各占一个桶，更大的值按2的幂分段，每段再均分为8个桶，相对误差不超过12.5%。
+ * 记录只有几次原子累加，可以在多个线程中同时调用，不创建新对象
+ */
+public class Histogram {
+
+    /**
+     * 每个2的幂分段内的子桶位数
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * 直接按值计数的桶数量
+     */
+    private static final int LINEAR_BUCKETS = 2 << SUB_BUCKET_BITS;
+
+    /**
+     * 桶的总数，覆盖long的全部非负值
+     */
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * (1 << SUB_BUCKET_BITS);
+
+    /**
+     * 各桶的计数
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * 记录次数
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * 记录值的总和
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 记录值的最大值
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 记录一个值，负值按0记录
+     *
+     * @param value 数值
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        this.counts.incrementAndGet(bucket(value));
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * 清空全部记录，与record()并发调用时可能丢失少量记录
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.reset();
+        this.sum.reset();
+        this.max.reset();
+    }
+
+    /**
+     * @return 当前记录的汇总
+     */
+    public HistogramSnapshot snapshot() {
+        long total = 0;
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = this.counts.get(i);
+            total += buckets[i];
+        }
+        long n = this.count.sum();
+        long mean = n == 0 ? 0 : this.sum.sum() / n;
+        return new HistogramSnapshot(total, mean, percentile(buckets, total, 0.50),
+                percentile(buckets, total, 0.90), percentile(buckets, total, 0.99), this.max.get());
+    }
+
+    /**
+     * @return 分位数所在桶的下界
+     */
+    private static long percentile(long[] buckets, long total, double fraction) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+
+    /**
+     * @param value 非负数值
+     * @return 数值所在桶的下标
+     */
+    private static int bucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return LINEAR_BUCKETS + ((exponent - SUB_BUCKET_BITS - 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    /**
+     * @param bucket 桶下标
+     * @return 该桶可容纳的最小值
+     */
+    private static long lowerBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int offset = bucket - LINEAR_BUCKETS;
+        int exponent = (offset >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS + 1;
+        long sub = offset & ((1 << SUB_BUCKET_BITS) - 1);
+        return (1L << exponent) + (sub << (exponent - SUB_BUCKET_BITS));
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.game.tetris;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 直方图在某一时刻的汇总，通过JMX暴露时映射为CompositeData
+ */
+public class HistogramSnapshot {
+
+    private final long count;
+
+    private final long mean;
+
+    private final long p50;
+
+    private final long p90;
+
+    private final long p99;
+
+    private final long max;
+
+    @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "max"})
+    public HistogramSnapshot(long count, long mean, long p50, long p90, long p99, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getMean() {
+        return this.mean;
+    }
+
+    public long getP50() {
+        return this.p50;
+    }
+
+    public long getP90() {
+        return this.p90;
+    }
+
+    public long getP99() {
+        return this.p99;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * 以微秒为单位输出，数值为纳秒时使用
+     *
+     * @return 汇总文本
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus", this.count,
+                this.mean / 1e3, this.p50 / 1e3, this.p90 / 1e3, this.p99 / 1e3, this.max / 1e3);
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.game.tetris;
+
+/**
+ * 基于历史记录的随机：记住最近4个方块组，若随机结果出现在历史中则重新随机，最多重试ROLLS次<br>
+ * 第一个方块组不会是S、Z、O，避免开局即产生空洞
+ */
+public class HistoryPieceGenerator extends AbstractPieceGenerator {
+
+    /**
+     * 重试次数
+     */
+    private static final int ROLLS = 6;
+
+    /**
+     * 最近出现过的类型编号，初始为Z、S、Z、S
+     */
+    private final byte[] history = new byte[4];
+
+    /**
+     * 历史记录中最早一项的下标
+     */
+    private int oldest;
+
+    /**
+     * 是否为第一个方块组
+     */
+    private boolean first;
+
+    public HistoryPieceGenerator(int previewCapacity, long seed) {
+        super(previewCapacity, seed);
+        onReset();
+    }
+
+    @Override
+    public PieceGeneratorType getType() {
+        return PieceGeneratorType.HISTORY;
+    }
+
+    @Override
+    protected int generate() {
+        int id;
+        if (this.first) {
+            this.first = false;
+            do {
+                id = nextInt(7) + 1;
+            } while (id == TetrominoType.S.getId() || id == TetrominoType.Z.getId() || id == TetrominoType.O.getId());
+        } else {
+            id = nextInt(7) + 1;
+            for (int roll = 1; roll < ROLLS && inHistory(id); roll++) {
+                id = nextInt(7) + 1;
+            }
+        }
+        this.history[this.oldest] = (byte) id;
+        this.oldest = (this.oldest + 1) & 3;
+        return id;
+    }
+
+    @Override
+    protected void onReset() {
+        this.history[0] = TetrominoType.Z.getId();
+        this.history[1] = TetrominoType.S.getId();
+        this.history[2] = TetrominoType.Z.getId();
+        this.history[3] = TetrominoType.S.getId();
+        this.oldest = 0;
+        this.first = true;
+    }
+
+    @Override
+    protected void copyStateFrom(AbstractPieceGenerator other) {
+        HistoryPieceGenerator source = (HistoryPieceGenerator) other;
+        System.arraycopy(source.history, 0, this.history, 0, this.history.length);
+        this.oldest = source.oldest;
+        this.first = source.first;
+    }
+
+    private boolean inHistory(int id) {
+        for (byte recent : this.history) {
+            if (recent == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
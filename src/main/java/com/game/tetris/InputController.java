@@ -0,0 +1,278 @@
+package com.game.tetris;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 输入子系统：记录按键的按下和松开，在逻辑线程的每个固定步长内把它们转换为引擎操作<br>
+ * 界面线程只把带时间戳的事件放入无锁队列；逻辑线程取出事件后维护按键状态，按自己的DAS（首次自动平移的延迟）
+ * 和ARR（之后的平移间隔）重复左右平移，按住下键时按软降倍率加快重力，与操作系统的按键重复速度无关。
+ * 操作系统的自动重复（重复的按下，或间隔极短的松开加按下）被识别后忽略
+ */
+public class InputController {
+
+    /**
+     * 事件类型：按下、松开、单击（不改变按键状态，只执行一次，供程序化输入使用）
+     */
+    private static final int PRESS = 0x10, RELEASE = 0x20, TAP = 0x30;
+
+    private static final int TYPE_MASK = 0x30, ACTION_MASK = 0x0F;
+
+    /**
+     * 松开后在这段时间内又按下视为操作系统的自动重复
+     */
+    private static final long REPEAT_GLITCH_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /**
+     * 每个逻辑帧最多输出的操作数
+     */
+    private static final int MAX_OUTPUT = 64;
+
+    /**
+     * 默认DAS、ARR和软降倍率
+     */
+    public static final long DEFAULT_DAS_MILLIS = 167, DEFAULT_ARR_MILLIS = 33;
+
+    public static final int DEFAULT_SOFT_DROP_FACTOR = 20;
+
+    /**
+     * Action序号到Action的映射
+     */
+    private static final Action[] ACTIONS = Action.values();
+
+    private final InputQueue queue = new InputQueue(256);
+
+    private volatile long dasNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DAS_MILLIS);
+
+    private volatile long arrNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_ARR_MILLIS);
+
+    private volatile int softDropFactor = DEFAULT_SOFT_DROP_FACTOR;
+
+    /**
+     * 各按键是否按住，下标为Action序号，以下状态只在逻辑线程中访问
+     */
+    private final boolean[] held = new boolean[ACTIONS.length];
+
+    /**
+     * 各按键尚未生效的松开时间，0表示没有
+     */
+    private final long[] releasedNanos = new long[ACTIONS.length];
+
+    /**
+     * 当前自动平移的方向，null表示没有
+     */
+    private Action shift;
+
+    /**
+     * 当前平移方向按下的时间
+     */
+    private long shiftStartNanos;
+
+    /**
+     * 当前平移方向已自动重复的次数
+     */
+    private long shiftRepeats;
+
+    /**
+     * 本帧输出的操作和对应按键事件的时间戳，自动重复产生的操作时间戳为0
+     */
+    private final Action[] outputs = new Action[MAX_OUTPUT];
+
+    private final long[] outputNanos = new long[MAX_OUTPUT];
+
+    private int outputCount;
+
+    /**
+     * 按键按下，可在任意线程中调用
+     *
+     * @param action 按键对应的操作
+     * @param nanos  事件时间戳，System.nanoTime()
+     * @return 是否成功入队，队列满时丢弃
+     */
+    public boolean press(Action action, long nanos) {
+        return this.queue.offer(PRESS | action.ordinal(), nanos);
+    }
+
+    /**
+     * 按键松开，可在任意线程中调用
+     *
+     * @param action 按键对应的操作
+     * @param nanos  事件时间戳，System.nanoTime()
+     * @return 是否成功入队，队列满时丢弃
+     */
+    public boolean release(Action action, long nanos) {
+        return this.queue.offer(RELEASE | action.ordinal(), nanos);
+    }
+
+    /**
+     * 执行一次操作，不影响按键状态，可在任意线程中调用
+     *
+     * @param action 操作
+     * @param nanos  事件时间戳，System.nanoTime()
+     * @return 是否成功入队，队列满时丢弃
+     */
+    public boolean tap(Action action, long nanos) {
+        return this.queue.offer(TAP | action.ordinal(), nanos);
+    }
+
+    /**
+     * 处理到目前为止的全部事件并计算本帧的自动平移，只能在逻辑线程中调用
+     *
+     * @param nowNanos 本帧的时间，System.nanoTime()
+     * @return 本帧输出的操作数量，通过getAction()/getActionNanos()读取
+     */
+    public int update(long nowNanos) {
+        this.outputCount = 0;
+        // 为自动平移留出空间，剩下的事件留到下一帧
+        while (this.outputCount < MAX_OUTPUT - Board.COLS && this.queue.poll()) {
+            int code = this.queue.getPolledCode();
+            long nanos = this.queue.getPolledTime();
+            int index = code & ACTION_MASK;
+            switch (code & TYPE_MASK) {
+                case PRESS:
+                    if (this.held[index]) {
+                        long released = this.releasedNanos[index];
+                        if (released == 0 || nanos - released < REPEAT_GLITCH_NANOS) {
+                            // 操作系统的自动重复
+                            this.releasedNanos[index] = 0;
+                            break;
+                        }
+                        doRelease(index, released);
+                    }
+                    doPress(index, nanos);
+                    break;
+                case RELEASE:
+                    if (this.held[index]) {
+                        this.releasedNanos[index] = nanos;
+                    }
+                    break;
+                default:
+                    emit(ACTIONS[index], nanos);
+                    break;
+            }
+        }
+        for (int index = 0; index < this.held.length; index++) {
+            long released = this.releasedNanos[index];
+            if (released != 0 && nowNanos - released >= REPEAT_GLITCH_NANOS) {
+                doRelease(index, nowNanos);
+            }
+        }
+        autoShift(nowNanos);
+        return this.outputCount;
+    }
+
+    private void doPress(int index, long nanos) {
+        this.held[index] = true;
+        this.releasedNanos[index] = 0;
+        Action action = ACTIONS[index];
+        emit(action, nanos);
+        if (action == Action.MOVE_LEFT || action == Action.MOVE_RIGHT) {
+            startShift(action, nanos);
+        }
+    }
+
+    private void doRelease(int index, long nanos) {
+        this.held[index] = false;
+        this.releasedNanos[index] = 0;
+        if (ACTIONS[index] == this.shift) {
+            // 松开当前方向时，如果另一个方向仍按住，则从现在开始向另一个方向平移
+            Action other = this.shift == Action.MOVE_LEFT ? Action.MOVE_RIGHT : Action.MOVE_LEFT;
+            if (this.held[other.ordinal()]) {
+                startShift(other, nanos);
+            } else {
+                this.shift = null;
+            }
+        }
+    }
+
+    private void startShift(Action action, long nanos) {
+        this.shift = action;
+        this.shiftStartNanos = nanos;
+        this.shiftRepeats = 0;
+    }
+
+    /**
+     * 按住平移方向超过DAS后，每隔ARR重复一次；ARR为0时每帧直接平移到底
+     */
+    private void autoShift(long nowNanos) {
+        if (this.shift == null) {
+            return;
+        }
+        long charged = nowNanos - this.shiftStartNanos - this.dasNanos;
+        if (charged < 0) {
+            return;
+        }
+        long arr = this.arrNanos;
+        long due = arr == 0 ? this.shiftRepeats + Board.COLS - 1 : 1 + charged / arr;
+        long repeats = Math.min(Board.COLS - 1, due - this.shiftRepeats);
+        for (long i = 0; i < repeats; i++) {
+            emit(this.shift, 0);
+        }
+        this.shiftRepeats = due;
+    }
+
+    private void emit(Action action, long nanos) {
+        if (this.outputCount < MAX_OUTPUT) {
+            this.outputs[this.outputCount] = action;
+            this.outputNanos[this.outputCount] = nanos;
+            this.outputCount++;
+        }
+    }
+
+    /**
+     * @param index 本帧输出的操作下标
+     * @return 操作
+     */
+    public Action getAction(int index) {
+        return this.outputs[index];
+    }
+
+    /**
+     * @param index 本帧输出的操作下标
+     * @return 产生该操作的按键事件的时间戳，自动重复产生的操作为0
+     */
+    public long getActionNanos(int index) {
+        return this.outputNanos[index];
+    }
+
+    /**
+     * @return 本帧的重力倍率，按住下键时为软降倍率，否则为1
+     */
+    public int getGravityFactor() {
+        int index = Action.SOFT_DROP.ordinal();
+        return this.held[index] && this.releasedNanos[index] == 0 ? this.softDropFactor : 1;
+    }
+
+    /**
+     * 丢弃未处理的事件并松开所有按键，暂停、重新开始等场合调用，只能在逻辑线程中调用
+     */
+    public void clear() {
+        this.queue.clear();
+        for (int index = 0; index < this.held.length; index++) {
+            this.held[index] = false;
+            this.releasedNanos[index] = 0;
+        }
+        this.shift = null;
+    }
+
+    /**
+     * @param dasMillis 按住平移键后开始自动平移的延迟，单位毫秒
+     */
+    public void setDasMillis(long dasMillis) {
+        this.dasNanos = TimeUnit.MILLISECONDS.toNanos(dasMillis);
+    }
+
+    /**
+     * @param arrMillis 自动平移的间隔，单位毫秒，0表示直接平移到底
+     */
+    public void setArrMillis(long arrMillis) {
+        this.arrNanos = TimeUnit.MILLISECONDS.toNanos(arrMillis);
+    }
+
+    /**
+     * @param softDropFactor 按住下键时重力加快的倍数
+     */
+    public void setSoftDropFactor(int softDropFactor) {
+        this.softDropFactor = Math.max(1, softDropFactor);
+    }
+
+}
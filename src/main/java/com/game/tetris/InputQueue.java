@@ -0,0 +1,130 @@
+package com.game.tetris;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界的多生产者单消费者无锁输入队列，每个元素是一个带时间戳的输入事件<br>
+ * 槽位按序号循环复用，每个槽位另有一个序号标记其状态：等于写入序号时可写，等于写入序号加一时可读。
+ * 生产者用CAS认领写入序号，写完数据后发布槽位序号；唯一的消费者读完后把槽位序号推进一圈。
+ * 入队和出队都不加锁、不创建新对象，队列满时入队失败
+ */
+public class InputQueue {
+
+    private final int mask;
+
+    /**
+     * 各槽位的序号
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * 各槽位的事件时间戳，System.nanoTime()
+     */
+    private final long[] times;
+
+    /**
+     * 各槽位的事件编码
+     */
+    private final int[] codes;
+
+    /**
+     * 下一个写入序号
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取序号，只由消费者访问
+     */
+    private long head;
+
+    /**
+     * 出队的事件
+     */
+    private long polledTime;
+
+    private int polledCode;
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.times = new long[size];
+        this.codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队，可在任意线程中调用
+     *
+     * @param code  事件编码
+     * @param nanos 事件时间戳，System.nanoTime()
+     * @return 是否成功，队列满时返回false
+     */
+    public boolean offer(int code, long nanos) {
+        long position;
+        while (true) {
+            position = this.tail.get();
+            long sequence = this.sequences.get((int) position & this.mask);
+            if (sequence == position) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                // 该槽位还未被消费者读走
+                return false;
+            }
+        }
+        int index = (int) position & this.mask;
+        this.times[index] = nanos;
+        this.codes[index] = code;
+        this.sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * 出队一个事件，成功后通过getPolledCode()/getPolledTime()读取，只能在消费者线程中调用
+     *
+     * @return 是否有事件
+     */
+    public boolean poll() {
+        int index = (int) this.head & this.mask;
+        if (this.sequences.get(index) != this.head + 1) {
+            return false;
+        }
+        this.polledTime = this.times[index];
+        this.polledCode = this.codes[index];
+        this.sequences.lazySet(index, this.head + this.mask + 1);
+        this.head++;
+        return true;
+    }
+
+    /**
+     * @return 最近出队的事件编码
+     */
+    public int getPolledCode() {
+        return this.polledCode;
+    }
+
+    /**
+     * @return 最近出队的事件时间戳
+     */
+    public long getPolledTime() {
+        return this.polledTime;
+    }
+
+    /**
+     * 丢弃所有已入队的事件，只能在消费者线程中调用
+     */
+    public void clear() {
+        while (poll()) {
+            // 逐个出队以推进各槽位的序号
+        }
+    }
+
+}
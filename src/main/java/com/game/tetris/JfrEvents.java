@@ -0,0 +1,282 @@
+package com.game.tetris;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+/**
+ * Java Flight Recorder自定义事件：方块组出现、落地、消行、游戏结束、每次绘制和每次重力下落<br>
+ * 通过-Dtetris.jfr开启：取值为true时只发出事件，由-XX:StartFlightRecording等外部方式录制；
+ * 取值为文件路径时在启动时开始录制，进程退出时写入该文件。
+ * ENABLED在类初始化时读取系统属性，不是编译期常量，但作为static final字段会被JIT当作常量折叠，
+ * 未开启时调用方的分支在编译后的代码中被消除；JfrEvents本身仍会被加载和初始化，只是不会创建任何事件对象
+ */
+public final class JfrEvents {
+
+    /**
+     * 是否发出自定义事件
+     */
+    public static final boolean ENABLED = System.getProperty("tetris.jfr") != null;
+
+    private JfrEvents() {
+    }
+
+    /**
+     * 按-Dtetris.jfr的取值开始录制，未开启或只发出事件时不做任何事
+     */
+    public static void start() {
+        String destination = System.getProperty("tetris.jfr");
+        if (destination == null || "true".equalsIgnoreCase(destination)) {
+            return;
+        }
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("tetris");
+            recording.setDestination(Paths.get(destination));
+            recording.setDumpOnExit(true);
+            recording.start();
+        } catch (IOException | ParseException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 方块组落地后发出落地、消行以及游戏结束或新方块组出现的事件，调用方需持有引擎的锁且ENABLED为true
+     *
+     * @param engine 游戏核心引擎
+     * @param result 引擎返回的事件，只处理落地类事件
+     */
+    public static void pieceLocked(GameEngine engine, StepResult result) {
+        int height = engine.getWall().getHeight();
+        int cleared = engine.getLastClearedLines();
+        PieceLock lock = new PieceLock();
+        if (lock.shouldCommit()) {
+            lock.linesCleared = cleared;
+            lock.boardHeight = height;
+            lock.pieces = engine.getPieces();
+            lock.commit();
+        }
+        if (cleared > 0) {
+            LineClear clear = new LineClear();
+            if (clear.shouldCommit()) {
+                clear.linesCleared = cleared;
+                clear.totalLines = engine.getLines();
+                clear.scores = engine.getScores();
+                clear.boardHeight = height;
+                clear.tSpin = engine.getLastTSpin().name();
+                clear.combo = engine.getCombo();
+                clear.backToBack = engine.isBackToBack();
+                clear.commit();
+            }
+        }
+        if (result == StepResult.GAME_OVER) {
+            GameOver over = new GameOver();
+            if (over.shouldCommit()) {
+                over.scores = engine.getScores();
+                over.lines = engine.getLines();
+                over.pieces = engine.getPieces();
+                over.boardHeight = height;
+                over.commit();
+            }
+        } else {
+            pieceSpawned(engine);
+        }
+    }
+
+    /**
+     * 开始记录一次重力下落，ENABLED为true时调用
+     *
+     * @return 重力下落事件，下落结束后交给gravityEnd()
+     */
+    public static GravityTick gravityBegin() {
+        GravityTick tick = new GravityTick();
+        tick.begin();
+        return tick;
+    }
+
+    /**
+     * 结束并提交一次重力下落事件
+     *
+     * @param tick   gravityBegin()返回的事件
+     * @param engine 游戏核心引擎
+     * @param result 引擎返回的事件
+     */
+    public static void gravityEnd(GravityTick tick, GameEngine engine, StepResult result) {
+        tick.end();
+        if (tick.shouldCommit()) {
+            tick.level = engine.getLevel();
+            tick.result = result.name();
+            tick.boardHeight = engine.getWall().getHeight();
+            tick.commit();
+        }
+    }
+
+    /**
+     * 发出方块组出现事件，调用方需持有引擎的锁且ENABLED为true
+     *
+     * @param engine 游戏核心引擎
+     */
+    public static void pieceSpawned(GameEngine engine) {
+        PieceSpawn spawn = new PieceSpawn();
+        if (spawn.shouldCommit()) {
+            spawn.pieceType = engine.getTetromino().getType().name();
+            spawn.nextType = engine.getNextTetromino().getType().name();
+            spawn.boardHeight = engine.getWall().getHeight();
+            spawn.commit();
+        }
+    }
+
+    /**
+     * 开始记录一次绘制，ENABLED为true时调用
+     *
+     * @return 绘制事件，绘制结束后交给paintEnd()
+     */
+    public static Paint paintBegin() {
+        Paint paint = new Paint();
+        paint.begin();
+        return paint;
+    }
+
+    /**
+     * 结束并提交一次绘制事件
+     *
+     * @param paint             paintBegin()返回的事件
+     * @param staticLayerRedrawn 本次是否重绘了静态图层
+     * @param boardHeight       堆叠高度
+     */
+    public static void paintEnd(Paint paint, boolean staticLayerRedrawn, int boardHeight) {
+        paint.end();
+        if (paint.shouldCommit()) {
+            paint.staticLayerRedrawn = staticLayerRedrawn;
+            paint.layers = staticLayerRedrawn ? "background+wall+ghost+tetromino+preview+hold+score" : "cached+ghost+tetromino+preview+hold+score";
+            paint.boardHeight = boardHeight;
+            paint.commit();
+        }
+    }
+
+    @Name("com.game.tetris.PieceSpawn")
+    @Label("Piece Spawn")
+    @Category("Tetris")
+    @Description("新的方块组出现")
+    public static class PieceSpawn extends Event {
+
+        @Label("Piece Type")
+        String pieceType;
+
+        @Label("Next Type")
+        String nextType;
+
+        @Label("Board Height")
+        int boardHeight;
+
+    }
+
+    @Name("com.game.tetris.PieceLock")
+    @Label("Piece Lock")
+    @Category("Tetris")
+    @Description("方块组落地")
+    public static class PieceLock extends Event {
+
+        @Label("Lines Cleared")
+        int linesCleared;
+
+        @Label("Board Height")
+        int boardHeight;
+
+        @Label("Pieces")
+        int pieces;
+
+    }
+
+    @Name("com.game.tetris.LineClear")
+    @Label("Line Clear")
+    @Category("Tetris")
+    @Description("落地后消除已满的行")
+    public static class LineClear extends Event {
+
+        @Label("Lines Cleared")
+        int linesCleared;
+
+        @Label("Total Lines")
+        int totalLines;
+
+        @Label("Scores")
+        int scores;
+
+        @Label("Board Height")
+        int boardHeight;
+
+        @Label("T-Spin")
+        String tSpin;
+
+        @Label("Combo")
+        int combo;
+
+        @Label("Back To Back")
+        boolean backToBack;
+
+    }
+
+    @Name("com.game.tetris.GameOver")
+    @Label("Game Over")
+    @Category("Tetris")
+    @Description("游戏结束")
+    public static class GameOver extends Event {
+
+        @Label("Scores")
+        int scores;
+
+        @Label("Lines")
+        int lines;
+
+        @Label("Pieces")
+        int pieces;
+
+        @Label("Board Height")
+        int boardHeight;
+
+    }
+
+    @Name("com.game.tetris.GravityTick")
+    @Label("Gravity Tick")
+    @Category("Tetris")
+    @Description("一次重力下落")
+    public static class GravityTick extends Event {
+
+        @Label("Level")
+        int level;
+
+        @Label("Result")
+        String result;
+
+        @Label("Board Height")
+        int boardHeight;
+
+    }
+
+    @Name("com.game.tetris.Paint")
+    @Label("Paint")
+    @Category("Tetris")
+    @Description("绘制一帧游戏画面")
+    public static class Paint extends Event {
+
+        @Label("Layers")
+        String layers;
+
+        @Label("Static Layer Redrawn")
+        boolean staticLayerRedrawn;
+
+        @Label("Board Height")
+        int boardHeight;
+
+    }
+
+}
@@ -0,0 +1,301 @@
+package com.game.tetris;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多层前瞻搜索策略：除当前方块组外，还按生成器的预览依次考虑下一个及更后面的方块组<br>
+ * 第一层的各个落点拆分成任务在ForkJoinPool上并行展开，由工作窃取平衡负载；
+ * 每个方块组有固定的时间预算，按迭代加深从1层搜索到最大层数，超时时采用最后一次完整搜索的结果。
+ * 各层的临时面板和落点生成器按线程缓存复用，相同局面的结果由置换表共享。<br>
+ * 叶子局面按最后一次落地消除的行数评估，中间层消除的行数体现在更低的局面高度上，
+ * 因此局面的值只取决于面板、剩余层数和后续的方块组序列，以三者为键放入置换表；
+ * 键中不含搜索代数，同一序列在后续方块组的搜索中仍可命中
+ */
+public class LookaheadPolicy extends PlacementPolicy {
+
+    /**
+     * 支持的最大搜索层数
+     */
+    public static final int MAX_DEPTH = 8;
+
+    /**
+     * 默认搜索层数：当前方块组、下一个方块组和再下一个方块组
+     */
+    public static final int DEFAULT_DEPTH = 3;
+
+    /**
+     * 默认每个方块组的时间预算，满足每秒20个方块组以上的速度
+     */
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+
+    /**
+     * 默认置换表槽位数量
+     */
+    private static final int TABLE_CAPACITY = 1 << 16;
+
+    /**
+     * 每个线程的搜索上下文，ForkJoinPool的工作线程长期存在，上下文随之复用
+     */
+    private static final ThreadLocal<SearchContext> CONTEXTS = ThreadLocal.withInitial(SearchContext::new);
+
+    /**
+     * 执行搜索的线程池
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * 最大搜索层数
+     */
+    private final int maxDepth;
+
+    /**
+     * 每个方块组的时间预算，单位纳秒
+     */
+    private final long budgetNanos;
+
+    /**
+     * 置换表，所有搜索线程共享
+     */
+    private final TranspositionTable table = new TranspositionTable(TABLE_CAPACITY);
+
+    /**
+     * 各层的方块组类型，第0层为当前方块组；多保存一层用于判定最后一层之后的游戏结束，超出预览的为null
+     */
+    private final TetrominoType[] pieces = new TetrominoType[MAX_DEPTH + 1];
+
+    /**
+     * 引擎的旋转系统，各层落点按它生成
+     */
+    private RotationSystem rotationSystem = RotationSystem.SRS;
+
+    /**
+     * 第一层各落点在当前迭代和上一次完整迭代中的分数
+     */
+    private final double[] scores = new double[MoveGenerator.MAX_PLACEMENTS];
+
+    private final double[] completedScores = new double[MoveGenerator.MAX_PLACEMENTS];
+
+    /**
+     * 暂存区的方块组类型，参与置换表的键；搜索本身不使用暂存区
+     */
+    private TetrominoType heldType;
+
+    /**
+     * 当前迭代中各层的方块组序列编码，见sequence()
+     */
+    private final long[] sequences = new long[MAX_DEPTH];
+
+    /**
+     * 上一个方块组完整搜索的层数
+     */
+    private int lastDepth;
+
+    /**
+     * 当前迭代的截止时间和超时标记
+     */
+    private long deadline;
+
+    private volatile boolean aborted;
+
+    public LookaheadPolicy() {
+        this(WeightedEvaluator.DEFAULT, DEFAULT_DEPTH, DEFAULT_BUDGET_NANOS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param evaluator   局面评估函数
+     * @param maxDepth    最大搜索层数，受生成器预览数量限制
+     * @param budgetNanos 每个方块组的时间预算，单位纳秒
+     * @param pool        执行搜索的线程池
+     */
+    public LookaheadPolicy(BoardEvaluator evaluator, int maxDepth, long budgetNanos, ForkJoinPool pool) {
+        super(evaluator);
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("maxDepth must be in [1, " + MAX_DEPTH + "]: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.budgetNanos = budgetNanos;
+        this.pool = pool;
+    }
+
+    @Override
+    protected int search(GameEngine engine, MoveGenerator moves) {
+        int count = moves.getCount();
+        if (count == 0) {
+            return -1;
+        }
+        int depth = Math.min(this.maxDepth, 1 + engine.getPreviewCount());
+        this.pieces[0] = moves.getType();
+        this.rotationSystem = moves.getRotationSystem();
+        for (int ply = 1; ply <= depth; ply++) {
+            this.pieces[ply] = ply <= engine.getPreviewCount() ? engine.getPreview(ply - 1) : null;
+        }
+        this.heldType = engine.getHeldType();
+        this.table.nextAge();
+        this.deadline = System.nanoTime() + this.budgetNanos;
+        this.lastDepth = 0;
+        for (int iteration = 1; iteration <= depth; iteration++) {
+            this.aborted = false;
+            for (int ply = 1; ply < iteration; ply++) {
+                this.sequences[ply] = sequence(ply, iteration);
+            }
+            this.pool.invoke(new RootTask(engine.getWall(), moves, iteration, 0, count));
+            // 第1层总是完整搜索，更深的迭代超时则丢弃
+            if (this.aborted && iteration > 1) {
+                break;
+            }
+            System.arraycopy(this.scores, 0, this.completedScores, 0, count);
+            this.lastDepth = iteration;
+            if (System.nanoTime() - this.deadline >= 0) {
+                break;
+            }
+        }
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (this.completedScores[i] > this.completedScores[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 计算第ply层开始时的局面的值，即后续各层最好的落地序列在叶子局面上的分数
+     *
+     * @param context 当前线程的搜索上下文
+     * @param board   已放下前ply个方块组的面板
+     * @param ply     层数
+     * @param depth   本次迭代的总层数
+     * @return 局面的值，所有落点都导致游戏结束时为负无穷
+     */
+    private double value(SearchContext context, Board board, int ply, int depth) {
+        long key = key(board.getHash(), this.sequences[ply]);
+        double cached = this.table.get(key);
+        if (!Double.isNaN(cached)) {
+            return cached;
+        }
+        if (this.aborted || System.nanoTime() - this.deadline >= 0) {
+            this.aborted = true;
+            return Double.NEGATIVE_INFINITY;
+        }
+        MoveGenerator moves = context.moves[ply];
+        Board child = context.boards[ply];
+        int count = moves.generate(board, this.pieces[ply], this.rotationSystem);
+        double best = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            child.copyFrom(board);
+            int cleared = moves.apply(child, i, context.probe);
+            if (isGameOver(child, context.probe, this.rotationSystem, this.pieces[ply + 1])) {
+                continue;
+            }
+            double score = ply + 1 == depth ? this.evaluator.evaluate(child, cleared) : value(context, child, ply + 1, depth);
+            best = Math.max(best, score);
+        }
+        if (!this.aborted) {
+            this.table.put(key, best, depth - ply);
+        }
+        return best;
+    }
+
+    /**
+     * 第ply层开始时决定局面的值的其余条件：旋转系统、暂存区、第ply层到第depth层的方块组（最后一个只用于判定游戏结束）
+     * 和剩余层数，每个方块组3位，超出预览的为0
+     */
+    private long sequence(int ply, int depth) {
+        long code = this.rotationSystem.ordinal();
+        code = code << 3 | (this.heldType == null ? 0 : this.heldType.ordinal() + 1);
+        for (int i = ply; i <= depth; i++) {
+            code = code << 3 | (this.pieces[i] == null ? 0 : this.pieces[i].ordinal() + 1);
+        }
+        return code << 4 | (depth - ply);
+    }
+
+    /**
+     * 置换表的键：面板哈希与方块组序列编码的混合，保证不为0
+     */
+    private long key(long hash, long sequence) {
+        long z = hash + sequence * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) | 1;
+    }
+
+    /**
+     * @return 上一个方块组完整搜索的层数
+     */
+    public int getLastDepth() {
+        return this.lastDepth;
+    }
+
+    /**
+     * 每个线程独占的临时面板、落点生成器和方块组
+     */
+    private static class SearchContext {
+
+        private final Board[] boards = new Board[MAX_DEPTH];
+
+        private final MoveGenerator[] moves = new MoveGenerator[MAX_DEPTH];
+
+        private final Tetromino probe = new Tetromino(TetrominoType.T);
+
+        SearchContext() {
+            for (int i = 0; i < MAX_DEPTH; i++) {
+                this.boards[i] = new Board();
+                this.moves[i] = new MoveGenerator();
+            }
+        }
+
+    }
+
+    /**
+     * 按第一层落点下标二分拆分的任务，每个落点的后续展开在单个线程中完成
+     */
+    private class RootTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+
+        private final MoveGenerator moves;
+
+        private final int depth;
+
+        private final int from;
+
+        private final int to;
+
+        RootTask(Board board, MoveGenerator moves, int depth, int from, int to) {
+            this.board = board;
+            this.moves = moves;
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new RootTask(this.board, this.moves, this.depth, this.from, mid),
+                        new RootTask(this.board, this.moves, this.depth, mid, this.to));
+                return;
+            }
+            SearchContext context = CONTEXTS.get();
+            Board child = context.boards[0];
+            child.copyFrom(this.board);
+            int cleared = this.moves.apply(child, this.from, context.probe);
+            double score;
+            if (isGameOver(child, context.probe, LookaheadPolicy.this.rotationSystem, LookaheadPolicy.this.pieces[1])) {
+                score = Double.NEGATIVE_INFINITY;
+            } else if (this.depth == 1) {
+                score = LookaheadPolicy.this.evaluator.evaluate(child, cleared);
+            } else {
+                score = value(context, child, 1, this.depth);
+            }
+            LookaheadPolicy.this.scores[this.from] = score;
+        }
+
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.game.tetris;
+
+/**
+ * 落点生成器，列出当前方块组所有可到达的最终落点（旋转状态 × 列，直接落底）<br>
+ * 可到达指按引擎的操作实际能够完成：先在生成列下落到能够依次右转到目标状态的行，
+ * 右转到目标状态后左右平移到目标列，再直接落底。结果保存在预先分配的数组中，生成过程不创建新对象，
+ * 每个实例只能在一个线程中使用
+ */
+public class MoveGenerator {
+
+    /**
+     * 落点数量上限：最多4个旋转状态，每个状态最多COLS列
+     */
+    public static final int MAX_PLACEMENTS = 4 * Board.COLS;
+
+    /**
+     * 各落点的旋转状态
+     */
+    private final int[] rotations = new int[MAX_PLACEMENTS];
+
+    /**
+     * 各落点基准方块所在列
+     */
+    private final int[] cols = new int[MAX_PLACEMENTS];
+
+    /**
+     * 各落点直接落底后基准方块所在行
+     */
+    private final int[] rows = new int[MAX_PLACEMENTS];
+
+    /**
+     * 各落点开始旋转前需要先下落到的行
+     */
+    private final int[] entryRows = new int[MAX_PLACEMENTS];
+
+    /**
+     * 搜索用的方块组
+     */
+    private final Tetromino probe = new Tetromino(TetrominoType.T);
+
+    /**
+     * 本次生成的方块组类型和旋转系统
+     */
+    private TetrominoType type;
+
+    private RotationSystem rotationSystem = RotationSystem.SRS;
+
+    /**
+     * 本次生成的落点数量
+     */
+    private int count;
+
+    /**
+     * 列出给定方块组在面板上的全部落点，只使用不踢墙的原地旋转，平移后相同的旋转状态只列出一次
+     *
+     * @param board          面板
+     * @param type           方块组类型
+     * @param rotationSystem 旋转系统，与执行落点的引擎一致
+     * @return 落点数量
+     */
+    public int generate(Board board, TetrominoType type, RotationSystem rotationSystem) {
+        this.type = type;
+        this.count = 0;
+        if (this.rotationSystem != rotationSystem) {
+            this.rotationSystem = rotationSystem;
+            this.probe.setRotationSystem(rotationSystem);
+        }
+        int spawnCol = Tetromino.getSpawnCol();
+        for (int rotation = 0; rotation < Tetromino.getRotationCount(rotationSystem, type); rotation++) {
+            int entryRow = findEntryRow(board, rotation);
+            if (entryRow < 0) {
+                continue;
+            }
+            for (int col = spawnCol; addIfFree(board, rotation, entryRow, col); col--) {
+                // 向左平移直到越界或碰撞
+            }
+            for (int col = spawnCol + 1; addIfFree(board, rotation, entryRow, col); col++) {
+                // 向右平移直到越界或碰撞
+            }
+        }
+        return this.count;
+    }
+
+    /**
+     * 找到从生成位置开始，能在生成列依次右转到目标状态的最高行
+     *
+     * @param board    面板
+     * @param rotation 目标旋转状态
+     * @return 开始旋转的行，无法到达时返回-1
+     */
+    private int findEntryRow(Board board, int rotation) {
+        int spawnCol = Tetromino.getSpawnCol();
+        for (int row = Tetromino.getSpawnRow(this.rotationSystem, this.type); row < Board.ROWS; row++) {
+            this.probe.place(this.type, 0, row, spawnCol);
+            if (board.collides(this.probe)) {
+                return -1;
+            }
+            boolean canRotate = true;
+            for (int state = 1; state <= rotation && canRotate; state++) {
+                this.probe.place(this.type, state, row, spawnCol);
+                canRotate = !board.collides(this.probe);
+            }
+            if (canRotate) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 在给定状态和列尝试加入一个落点
+     *
+     * @return 该位置是否可以到达
+     */
+    private boolean addIfFree(Board board, int rotation, int entryRow, int col) {
+        this.probe.place(this.type, rotation, entryRow, col);
+        if (board.collides(this.probe)) {
+            return false;
+        }
+        this.probe.dropBy(board.dropDistance(this.probe));
+        this.rotations[this.count] = rotation;
+        this.cols[this.count] = col;
+        this.rows[this.count] = this.probe.getRow();
+        this.entryRows[this.count] = entryRow;
+        this.count++;
+        return true;
+    }
+
+    /**
+     * 把第index个落点写入面板并消除已满的行
+     *
+     * @param board 被修改的面板，通常是用copyFrom()复制的临时面板
+     * @param index 落点下标
+     * @return 消除的行数
+     */
+    public int apply(Board board, int index) {
+        return apply(board, index, this.probe);
+    }
+
+    /**
+     * 使用调用方提供的方块组把第index个落点写入面板并消除已满的行<br>
+     * 生成完成后本对象只被读取，多个线程可以各自使用自己的方块组并发调用本方法
+     *
+     * @param board 被修改的面板
+     * @param index 落点下标
+     * @param probe 调用方独占的方块组，内容和旋转系统会被覆盖
+     * @return 消除的行数
+     */
+    public int apply(Board board, int index, Tetromino probe) {
+        if (probe.getRotationSystem() != this.rotationSystem) {
+            probe.setRotationSystem(this.rotationSystem);
+        }
+        probe.place(this.type, this.rotations[index], this.rows[index], this.cols[index]);
+        board.land(probe);
+        return board.clearLines();
+    }
+
+    /**
+     * @return 本次生成的方块组类型
+     */
+    public TetrominoType getType() {
+        return this.type;
+    }
+
+    /**
+     * @return 本次生成使用的旋转系统
+     */
+    public RotationSystem getRotationSystem() {
+        return this.rotationSystem;
+    }
+
+    /**
+     * @return 本次生成的落点数量
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * @param index 落点下标
+     * @return 落点的旋转状态
+     */
+    public int getRotation(int index) {
+        return this.rotations[index];
+    }
+
+    /**
+     * @param index 落点下标
+     * @return 落点基准方块所在列
+     */
+    public int getCol(int index) {
+        return this.cols[index];
+    }
+
+    /**
+     * @param index 落点下标
+     * @return 落点基准方块所在行
+     */
+    public int getRow(int index) {
+        return this.rows[index];
+    }
+
+    /**
+     * @param index 落点下标
+     * @return 开始旋转前需要先下落到的行
+     */
+    public int getEntryRow(int index) {
+        return this.entryRows[index];
+    }
+
+}
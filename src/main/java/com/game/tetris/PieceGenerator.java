@@ -0,0 +1,50 @@
+package com.game.tetris;
+
+/**
+ * 方块组序列生成器，每局游戏使用独立的实例，无需线程安全<br>
+ * 实现内部以可复用的环形队列保存即将出现的方块组类型编号，next()和peek()均不创建新对象
+ */
+public interface PieceGenerator {
+
+    /**
+     * 取出下一个方块组类型
+     *
+     * @return 方块组类型
+     */
+    TetrominoType next();
+
+    /**
+     * 预览即将出现的方块组类型，不改变序列
+     *
+     * @param index 预览下标，0为下一次next()将返回的类型，需小于getPreviewCapacity()
+     * @return 方块组类型
+     */
+    TetrominoType peek(int index);
+
+    /**
+     * @return 生成方式，用于回放时重建相同的生成器
+     */
+    PieceGeneratorType getType();
+
+    /**
+     * @return 最多可预览的方块组数量
+     */
+    int getPreviewCapacity();
+
+    /**
+     * 以给定种子重新开始序列，相同的种子总能得到相同的序列
+     *
+     * @param seed 随机数种子
+     */
+    void reset(long seed);
+
+    /**
+     * 复制另一个同类型、同预览数量的生成器的全部状态（随机数状态、预览队列和生成方式自身的状态），
+     * 之后两者产生相同的序列，用于保存和还原游戏快照，不创建新对象
+     *
+     * @param other 被复制的生成器
+     * @throws IllegalArgumentException 类型或预览数量不一致
+     */
+    void copyFrom(PieceGenerator other);
+
+}
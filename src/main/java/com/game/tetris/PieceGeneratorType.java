@@ -0,0 +1,46 @@
+package com.game.tetris;
+
+/**
+ * 可选的方块组序列生成方式
+ */
+public enum PieceGeneratorType {
+
+    /**
+     * 等概率随机
+     */
+    UNIFORM,
+
+    /**
+     * 7-bag随机
+     */
+    BAG,
+
+    /**
+     * 基于历史记录的随机
+     */
+    HISTORY;
+
+    /**
+     * 默认预览数量
+     */
+    public static final int DEFAULT_PREVIEW = 6;
+
+    /**
+     * 创建对应的生成器
+     *
+     * @param previewCapacity 最多可预览的数量
+     * @param seed            随机数种子
+     * @return 生成器
+     */
+    public PieceGenerator create(int previewCapacity, long seed) {
+        switch (this) {
+            case BAG:
+                return new BagPieceGenerator(previewCapacity, seed);
+            case HISTORY:
+                return new HistoryPieceGenerator(previewCapacity, seed);
+            default:
+                return new UniformPieceGenerator(previewCapacity, seed);
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.game.tetris;
+
+/**
+ * 落点搜索策略：每个新方块组出现时列出全部落点，用评估函数选出最好的一个，
+ * 再逐步输出右转、平移和直接落底操作把方块组送到该落点<br>
+ * 评估在预先分配的临时面板上进行（copyFrom后落地、消行、评估），搜索过程不创建新对象
+ */
+public class PlacementPolicy implements GamePolicy {
+
+    /**
+     * 单个方块组最多输出的操作数，操作被意外拒绝时直接落底，避免原地打转
+     */
+    private static final int MAX_ACTIONS_PER_PIECE = 32;
+
+    /**
+     * 全部方块组类型，避免values()每次复制数组
+     */
+    private static final TetrominoType[] TYPES = TetrominoType.values();
+
+    /**
+     * 局面评估函数
+     */
+    protected final BoardEvaluator evaluator;
+
+    /**
+     * 当前方块组的落点生成器
+     */
+    private final MoveGenerator moves = new MoveGenerator();
+
+    /**
+     * 评估用的临时面板
+     */
+    private final Board scratch = new Board();
+
+    /**
+     * 判定游戏结束用的方块组
+     */
+    private final Tetromino probe = new Tetromino(TetrominoType.T);
+
+    /**
+     * 当前方块组之后出现的方块组类型，为null时按任一类型判定游戏结束
+     */
+    private TetrominoType nextType;
+
+    /**
+     * 已规划的方块组序号和所在对局的种子，任一变化时重新规划
+     */
+    private int plannedPiece = -1;
+
+    private long plannedSeed;
+
+    /**
+     * 目标旋转状态、目标列和开始旋转前需要下落到的行，目标旋转状态为-1表示没有可用落点（SRS下贴左墙的落点目标列可以为负）
+     */
+    private int targetRotation, targetCol, entryRow;
+
+    /**
+     * 当前方块组已输出的操作数
+     */
+    private int actions;
+
+    public PlacementPolicy() {
+        this(WeightedEvaluator.DEFAULT);
+    }
+
+    /**
+     * @param evaluator 局面评估函数
+     */
+    public PlacementPolicy(BoardEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public Action decide(GameEngine engine) {
+        if (engine.getPieces() != this.plannedPiece || engine.getSeed() != this.plannedSeed) {
+            plan(engine);
+        }
+        Tetromino tetromino = engine.getTetromino();
+        if (this.targetRotation < 0 || ++this.actions > MAX_ACTIONS_PER_PIECE) {
+            return Action.HARD_DROP;
+        }
+        if (tetromino.getRotation() != this.targetRotation) {
+            return tetromino.getRow() < this.entryRow ? Action.SOFT_DROP : Action.ROTATE_RIGHT;
+        }
+        if (tetromino.getCol() < this.targetCol) {
+            return Action.MOVE_RIGHT;
+        }
+        if (tetromino.getCol() > this.targetCol) {
+            return Action.MOVE_LEFT;
+        }
+        return Action.HARD_DROP;
+    }
+
+    /**
+     * 为当前方块组选出落点
+     *
+     * @param engine 游戏核心引擎
+     */
+    private void plan(GameEngine engine) {
+        this.plannedPiece = engine.getPieces();
+        this.plannedSeed = engine.getSeed();
+        this.actions = 0;
+        this.moves.generate(engine.getWall(), engine.getTetromino().getType(), engine.getRotationSystem());
+        this.nextType = engine.getPreview(0);
+        int best = search(engine, this.moves);
+        if (best < 0) {
+            this.targetRotation = -1;
+            return;
+        }
+        this.targetRotation = this.moves.getRotation(best);
+        this.targetCol = this.moves.getCol(best);
+        this.entryRow = this.moves.getEntryRow(best);
+    }
+
+    /**
+     * 从已生成的落点中选出最好的一个，子类可覆盖以实现更深的搜索
+     *
+     * @param engine 游戏核心引擎
+     * @param moves  当前方块组的全部落点
+     * @return 最好的落点下标，没有落点时返回-1
+     */
+    protected int search(GameEngine engine, MoveGenerator moves) {
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < moves.getCount(); i++) {
+            double score = evaluate(engine.getWall(), moves, i, this.scratch);
+            if (best < 0 || score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 在临时面板上评估一个落点
+     *
+     * @param board   当前面板
+     * @param moves   落点生成器
+     * @param index   落点下标
+     * @param scratch 临时面板，内容会被覆盖
+     * @return 落点分数，导致游戏结束时为负无穷
+     */
+    protected double evaluate(Board board, MoveGenerator moves, int index, Board scratch) {
+        scratch.copyFrom(board);
+        int cleared = moves.apply(scratch, index);
+        if (isGameOver(scratch, this.probe, moves.getRotationSystem(), this.nextType)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return this.evaluator.evaluate(scratch, cleared);
+    }
+
+    /**
+     * 与引擎一致的游戏结束判定（block-out）：下一个方块组在出现位置与面板重叠<br>
+     * 下一个方块组未知时（超出预览的搜索层），任一类型重叠都视为游戏结束
+     *
+     * @param board          落地并消行之后的面板
+     * @param probe          调用方独占的方块组，内容和旋转系统会被覆盖
+     * @param rotationSystem 旋转系统
+     * @param next           下一个方块组类型，可为null
+     * @return 是否游戏结束
+     */
+    protected static boolean isGameOver(Board board, Tetromino probe, RotationSystem rotationSystem,
+                                        TetrominoType next) {
+        if (probe.getRotationSystem() != rotationSystem) {
+            probe.setRotationSystem(rotationSystem);
+        }
+        if (next != null) {
+            probe.spawn(next);
+            return board.collides(probe);
+        }
+        for (TetrominoType type : TYPES) {
+            probe.spawn(type);
+            if (board.collides(probe)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.game.tetris;
+
+import java.util.SplittableRandom;
+
+/**
+ * 随机选择操作的策略，用于压测引擎吞吐量
+ */
+public class RandomPolicy implements GamePolicy {
+
+    /**
+     * 全部操作，避免values()每次复制数组
+     */
+    private static final Action[] ACTIONS = Action.values();
+
+    /**
+     * 策略独立的随机数生成器
+     */
+    private final SplittableRandom random;
+
+    public RandomPolicy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public Action decide(GameEngine engine) {
+        return ACTIONS[this.random.nextInt(ACTIONS.length)];
+    }
+
+}
@@ -0,0 +1,338 @@
+package com.game.tetris;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 回放播放器，以内存映射的方式按窗口流式读取ReplayRecorder写入的文件，不会把整个文件载入堆内存<br>
+ * 既可以在无界面环境下以最快速度把事件喂给引擎，也可以交给GameLoop按原始帧率实时播放。
+ * 文件末尾不完整的事件（例如进程异常退出时写了一半）视为文件结束
+ */
+public class ReplayPlayer implements Closeable {
+
+    /**
+     * 每次映射的窗口大小
+     */
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    /**
+     * 一个varint最多占用的字节数
+     */
+    private static final int MAX_VARINT_BYTES = 10;
+
+    /**
+     * 文件头长度：魔数、版本、生成方式、预览数量、旋转系统、计分规则和种子
+     */
+    private static final int HEADER_BYTES = 4 + 1 + 1 + 1 + 1 + 1 + 8;
+
+    /**
+     * Action序号到Action的映射
+     */
+    private static final Action[] ACTIONS = Action.values();
+
+    /**
+     * 映射窗口的大小
+     */
+    private final long windowBytes;
+
+    /**
+     * 回放文件
+     */
+    private final RandomAccessFile file;
+
+    /**
+     * 文件通道
+     */
+    private final FileChannel channel;
+
+    /**
+     * 文件大小
+     */
+    private final long size;
+
+    /**
+     * 记录时使用的生成方式
+     */
+    private final PieceGeneratorType generatorType;
+
+    /**
+     * 记录时的预览数量
+     */
+    private final int previewCapacity;
+
+    /**
+     * 记录时使用的旋转系统
+     */
+    private final RotationSystem rotationSystem;
+
+    /**
+     * 记录时使用的计分规则
+     */
+    private final ScoringType scoringType;
+
+    /**
+     * 记录时的随机数种子
+     */
+    private final long seed;
+
+    /**
+     * 当前映射窗口
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * 当前映射窗口在文件中的起始位置
+     */
+    private long windowStart;
+
+    /**
+     * 已读出但尚未执行的事件是否存在
+     */
+    private boolean hasPending;
+
+    /**
+     * 已读出但尚未执行的事件所在的逻辑帧和事件编码
+     */
+    private long pendingFrame;
+
+    private int pendingCode;
+
+    /**
+     * 已执行的事件数量
+     */
+    private long events;
+
+    /**
+     * @param replayFile 回放文件
+     * @throws IOException 文件不存在、不是回放文件或版本不受支持
+     */
+    public ReplayPlayer(File replayFile) throws IOException {
+        this(replayFile, WINDOW_BYTES);
+    }
+
+    /**
+     * 指定映射窗口大小，测试用较小的窗口覆盖事件跨越窗口边界的情况
+     *
+     * @param replayFile  回放文件
+     * @param windowBytes 映射窗口的大小，不能小于文件头长度和MAX_VARINT_BYTES
+     * @throws IOException 文件不存在、不是回放文件或版本不受支持
+     */
+    ReplayPlayer(File replayFile, long windowBytes) throws IOException {
+        this.windowBytes = windowBytes;
+        this.file = new RandomAccessFile(replayFile, "r");
+        try {
+            this.channel = this.file.getChannel();
+            this.size = this.channel.size();
+            if (this.size < HEADER_BYTES) {
+                throw new IOException("不是回放文件: " + replayFile);
+            }
+            map(0);
+            if (this.window.getInt() != ReplayRecorder.MAGIC) {
+                throw new IOException("不是回放文件: " + replayFile);
+            }
+            int version = this.window.get();
+            if (version != ReplayRecorder.VERSION) {
+                throw new IOException("不支持的回放版本: " + version);
+            }
+            int type = this.window.get();
+            if (type < 0 || type >= PieceGeneratorType.values().length) {
+                throw new IOException("未知的生成方式: " + type);
+            }
+            this.generatorType = PieceGeneratorType.values()[type];
+            this.previewCapacity = this.window.get() & 0xFF;
+            int rotation = this.window.get();
+            if (rotation < 0 || rotation >= RotationSystem.values().length) {
+                throw new IOException("未知的旋转系统: " + rotation);
+            }
+            this.rotationSystem = RotationSystem.values()[rotation];
+            int scoring = this.window.get();
+            if (scoring < 0 || scoring >= ScoringType.values().length) {
+                throw new IOException("未知的计分规则: " + scoring);
+            }
+            this.scoringType = ScoringType.values()[scoring];
+            this.seed = this.window.getLong();
+        } catch (IOException | RuntimeException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 从给定位置开始映射一个窗口
+     *
+     * @param position 文件中的位置
+     */
+    private void map(long position) throws IOException {
+        this.windowStart = position;
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(this.windowBytes, this.size - position));
+    }
+
+    /**
+     * 按记录时的生成方式、预览数量、旋转系统、计分规则和种子创建新引擎
+     *
+     * @return 处于本局开始状态的引擎
+     */
+    public GameEngine createEngine() {
+        return new GameEngine(this.generatorType.create(this.previewCapacity, this.seed), this.seed,
+                this.rotationSystem, this.scoringType.create());
+    }
+
+    /**
+     * 判断引擎能否重放本文件，生成方式、预览数量、旋转系统和计分规则都必须与记录时一致
+     *
+     * @param engine 游戏核心引擎
+     * @return 能否重放
+     */
+    public boolean isCompatible(GameEngine engine) {
+        PieceGenerator generator = engine.getGenerator();
+        return generator.getType() == this.generatorType && generator.getPreviewCapacity() == this.previewCapacity
+                && engine.getRotationSystem() == this.rotationSystem
+                && engine.getScoring().getType() == this.scoringType;
+    }
+
+    /**
+     * @return 是否还有未执行的事件
+     * @throws IOException 读取失败
+     */
+    public boolean hasNext() throws IOException {
+        if (!this.hasPending) {
+            long value = readVarint();
+            if (value < 0) {
+                return false;
+            }
+            this.pendingFrame += value >>> ReplayRecorder.CODE_BITS;
+            this.pendingCode = (int) (value & ReplayRecorder.CODE_MASK);
+            this.hasPending = true;
+        }
+        return true;
+    }
+
+    /**
+     * 调用前需保证hasNext()返回true
+     *
+     * @return 下一个事件所在的逻辑帧
+     */
+    public long peekFrame() {
+        return this.pendingFrame;
+    }
+
+    /**
+     * 把下一个事件交给引擎执行，调用前需保证hasNext()返回true
+     *
+     * @param engine 游戏核心引擎
+     * @return 引擎返回的事件
+     */
+    public StepResult applyNext(GameEngine engine) {
+        this.hasPending = false;
+        this.events++;
+        if (this.pendingCode == ReplayRecorder.GRAVITY) {
+            return engine.tick();
+        }
+        return engine.step(ACTIONS[this.pendingCode]);
+    }
+
+    /**
+     * 快进：把所在帧小于给定帧的事件全部交给引擎执行
+     *
+     * @param engine 游戏核心引擎
+     * @param frame  目标逻辑帧，Long.MAX_VALUE表示播放到文件末尾
+     * @return 执行的事件数量
+     * @throws IOException 读取失败
+     */
+    public long fastForward(GameEngine engine, long frame) throws IOException {
+        long start = this.events;
+        while (hasNext() && this.pendingFrame < frame) {
+            applyNext(engine);
+        }
+        return this.events - start;
+    }
+
+    /**
+     * 读取一个varint
+     *
+     * @return 读取的值，文件已结束或末尾事件不完整时返回-1
+     */
+    private long readVarint() throws IOException {
+        if (this.window.remaining() < MAX_VARINT_BYTES && this.windowStart + this.window.limit() < this.size) {
+            // 剩余字节可能不足一个事件，从当前位置重新映射下一个窗口
+            map(this.windowStart + this.window.position());
+        }
+        long value = 0;
+        for (int shift = 0; shift < 64 && this.window.hasRemaining(); shift += 7) {
+            int b = this.window.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    public PieceGeneratorType getGeneratorType() {
+        return this.generatorType;
+    }
+
+    public int getPreviewCapacity() {
+        return this.previewCapacity;
+    }
+
+    public RotationSystem getRotationSystem() {
+        return this.rotationSystem;
+    }
+
+    public ScoringType getScoringType() {
+        return this.scoringType;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * @return 已执行的事件数量
+     */
+    public long getEvents() {
+        return this.events;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    /**
+     * 在无界面环境下以最快速度重放回放文件并输出结果，包括结束局面的Zobrist哈希；
+     * 给出期望的哈希时比对结果，不一致说明回放与记录时的局面不同步，以非0状态退出
+     *
+     * @param args 回放文件路径 [期望的面板哈希，十六进制]
+     * @throws IOException 读取失败
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: ReplayPlayer <回放文件> [期望的面板哈希]");
+            return;
+        }
+        try (ReplayPlayer player = new ReplayPlayer(new File(args[0]))) {
+            GameEngine engine = player.createEngine();
+            long start = System.nanoTime();
+            player.fastForward(engine, Long.MAX_VALUE);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("generator=%s rotation=%s scoring=%s seed=%d events=%d frames=%d%n",
+                    player.getGeneratorType(), player.getRotationSystem(), player.getScoringType(), player.getSeed(), player.getEvents(), player.peekFrame());
+            System.out.printf("pieces=%d lines=%d scores=%d gameOver=%b%n", engine.getPieces(),
+                    engine.getLines(), engine.getScores(), engine.isGameOver());
+            System.out.printf("hash=%016x%n", engine.getWall().getHash());
+            System.out.printf("%.3f s, %.0f events/s%n", seconds, player.getEvents() / seconds);
+            if (args.length > 1 && Long.parseUnsignedLong(args[1], 16) != engine.getWall().getHash()) {
+                System.err.println("回放不同步: 期望哈希 " + args[1]);
+                System.exit(1);
+            }
+        }
+    }
+
+}
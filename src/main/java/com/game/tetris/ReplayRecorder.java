@@ -0,0 +1,159 @@
+package com.game.tetris;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 回放记录器，把一局游戏的输入和重力下落以紧凑的二进制格式追加写入文件<br>
+ * 文件格式：<br>
+ * 文件头 -> 魔数"TTRP"(4字节) | 格式版本(1字节) | 生成方式(1字节) | 预览数量(1字节) | 旋转系统(1字节) | 计分规则(1字节)
+ * | 随机数种子(8字节)，均为大端序 <br>
+ * 事件 -> varint((与上一事件相差的逻辑帧数 << 3) | 事件编码)，事件编码0~6为Action的序号，7为重力下落 <br>
+ * 相同种子、生成方式、旋转系统和计分规则下，按帧重放这些事件即可完整复现一局游戏。记录器只追加写入，进程异常退出时最多丢失缓冲区中的末尾事件
+ */
+public class ReplayRecorder implements Closeable {
+
+    /**
+     * 文件魔数："TTRP"
+     */
+    public static final int MAGIC = 0x54545250;
+
+    /**
+     * 当前格式版本
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * 事件编码占用的位数
+     */
+    public static final int CODE_BITS = 3;
+
+    /**
+     * 事件编码掩码
+     */
+    public static final int CODE_MASK = (1 << CODE_BITS) - 1;
+
+    /**
+     * 重力下落的事件编码，Action的序号必须小于该值，新增Action只能追加在末尾
+     */
+    public static final int GRAVITY = CODE_MASK;
+
+    /**
+     * 回放文件扩展名
+     */
+    public static final String EXTENSION = ".ttr";
+
+    /**
+     * 输出流
+     */
+    private final OutputStream out;
+
+    /**
+     * 上一个事件所在的逻辑帧
+     */
+    private long lastFrame;
+
+    /**
+     * 已记录的事件数量
+     */
+    private long events;
+
+    /**
+     * @param out    输出流，由本记录器负责关闭
+     * @param engine 刚重置完成的引擎，用于写入文件头
+     * @throws IOException 写入文件头失败
+     */
+    public ReplayRecorder(OutputStream out, GameEngine engine) throws IOException {
+        this.out = out;
+        PieceGenerator generator = engine.getGenerator();
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(generator.getType().ordinal());
+        header.writeByte(generator.getPreviewCapacity());
+        header.writeByte(engine.getRotationSystem().ordinal());
+        header.writeByte(engine.getScoring().getType().ordinal());
+        header.writeLong(engine.getSeed());
+    }
+
+    /**
+     * 在目录中创建新的回放文件，文件名包含创建时间和种子
+     *
+     * @param directory 回放文件所在目录，不存在时自动创建
+     * @param engine    刚重置完成的引擎
+     * @return 记录器
+     * @throws IOException 创建文件或写入文件头失败
+     */
+    public static ReplayRecorder create(File directory, GameEngine engine) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建回放目录: " + directory);
+        }
+        String name = "replay-" + System.currentTimeMillis() + "-" + Long.toHexString(engine.getSeed()) + EXTENSION;
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(directory, name)));
+        try {
+            return new ReplayRecorder(out, engine);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 记录一次已执行的输入
+     *
+     * @param frame  所在的逻辑帧，不能小于上一个事件所在的帧
+     * @param action 操作
+     * @throws IOException 写入失败
+     */
+    public void record(long frame, Action action) throws IOException {
+        write(frame, action.ordinal());
+    }
+
+    /**
+     * 记录一次重力下落
+     *
+     * @param frame 所在的逻辑帧，不能小于上一个事件所在的帧
+     * @throws IOException 写入失败
+     */
+    public void recordGravity(long frame) throws IOException {
+        write(frame, GRAVITY);
+    }
+
+    private void write(long frame, int code) throws IOException {
+        long value = ((frame - this.lastFrame) << CODE_BITS) | code;
+        this.lastFrame = frame;
+        while ((value & ~0x7FL) != 0) {
+            this.out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.out.write((int) value);
+        this.events++;
+    }
+
+    /**
+     * @return 已记录的事件数量
+     */
+    public long getEvents() {
+        return this.events;
+    }
+
+    /**
+     * 把缓冲区中的事件写入文件
+     *
+     * @throws IOException 写入失败
+     */
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+}
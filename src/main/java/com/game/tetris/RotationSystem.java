@@ -0,0 +1,18 @@
+package com.game.tetris;
+
+/**
+ * 可选的旋转系统，决定各方块组的旋转状态、生成位置和踢墙方式，具体的表由Tetromino在类加载时构建
+ */
+public enum RotationSystem {
+
+    /**
+     * 最初的旋转方式：绕第0枚方块旋转，I、S、Z只有两个状态，O只有一个状态，碰撞时直接撤销，不踢墙
+     */
+    CLASSIC,
+
+    /**
+     * Super Rotation System：所有方块组都有四个状态，在包围框内旋转，碰撞时按标准踢墙表最多再尝试4个偏移
+     */
+    SRS
+
+}
@@ -0,0 +1,464 @@
+package com.game.tetris;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 成绩记录文件，每局结束后以内存映射的方式追加一条定长记录，不需要每局重写整个文件<br>
+ * 文件格式：<br>
+ * 文件头(64字节) -> 魔数"TTSC"(4字节) | 格式版本(1字节) | 保留(1字节) | 记录长度(2字节)
+ * | 压缩时丢弃的记录的局数、得分、行数、方块组数、时长毫秒数之和(各8字节) | 保留 <br>
+ * 记录(40字节) -> 种子(8字节) | 结束时间毫秒数(8字节) | 时长毫秒数(4字节) | 得分(4字节) | 行数(4字节) | 方块组数(4字节)
+ * | 每秒方块组数(float，4字节) | 生成方式、旋转系统、计分规则(各1字节) | 提交标记(1字节)，均为大端序 <br>
+ * 映射区域按容量倍增，已写入的记录之后全为0。追加时最后写提交标记，打开时从头顺序扫描到第一个未提交的记录为止，
+ * 进程在写入中途退出只会丢失这一条记录；扫描的同时重建最高分的内存索引和累计统计，之后每次追加只更新索引。
+ * 记录过多时由compact()只保留最高分和最近的记录，写入新文件后原子替换，被丢弃记录的统计累加到文件头中。
+ * 追加不调用force()，由操作系统回写映射的页面，close()和compact()时才强制落盘。所有公开方法都是线程安全的，
+ * 打开期间持有文件的独占锁，同一个文件不能被两个进程（或同一进程中的两个ScoreLog）同时追加。<br>
+ * Windows不允许替换仍被映射的文件，而MappedByteBuffer没有公开的解除映射方法，只在被回收后才解除，
+ * 因此compact()在替换前会丢弃对旧映射的引用，但在Windows上替换仍可能失败，此时原文件保持不变
+ */
+public class ScoreLog implements Closeable {
+
+    /**
+     * 文件魔数："TTSC"
+     */
+    public static final int MAGIC = 0x54545343;
+
+    /**
+     * 当前格式版本
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * 默认保留的最高分数量
+     */
+    public static final int DEFAULT_TOP_CAPACITY = 10;
+
+    /**
+     * 建议压缩的记录数量，以及压缩时保留的最近记录数量
+     */
+    public static final int COMPACT_THRESHOLD = 100_000, KEEP_RECENT = 10_000;
+
+    private static final int HEADER_BYTES = 64;
+
+    private static final int RECORD_BYTES = 40;
+
+    /**
+     * 文件头中各字段的偏移
+     */
+    private static final int COMPACTED_GAMES = 8, COMPACTED_SCORES = 16, COMPACTED_LINES = 24,
+            COMPACTED_PIECES = 32, COMPACTED_DURATION = 40;
+
+    /**
+     * 记录中各字段的偏移
+     */
+    private static final int SEED = 0, ENDED_AT = 8, DURATION = 16, SCORES = 20, LINES = 24, PIECES = 28, PPS = 32,
+            GENERATOR = 36, ROTATION = 37, SCORING = 38, COMMIT = 39;
+
+    private static final byte COMMITTED = 1;
+
+    /**
+     * 映射区域的最小容量和最大容量，单位为记录数，单个映射区域不超过2GB
+     */
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    private static final PieceGeneratorType[] GENERATOR_TYPES = PieceGeneratorType.values();
+
+    private static final RotationSystem[] ROTATION_SYSTEMS = RotationSystem.values();
+
+    private static final ScoringType[] SCORING_TYPES = ScoringType.values();
+
+    private final File file;
+
+    /**
+     * 最高分的记录序号，按得分降序排列，得分相同时先记录的在前
+     */
+    private final int[] top;
+
+    private int topCount;
+
+    private RandomAccessFile raf;
+
+    /**
+     * 映射区域，压缩时替换文件前置为null
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * 映射区域可容纳的记录数
+     */
+    private int capacity;
+
+    /**
+     * 已提交的记录数
+     */
+    private int count;
+
+    /**
+     * 累计统计，包括压缩时丢弃的记录
+     */
+    private long games, totalScores, totalLines, totalPieces, totalDurationMillis;
+
+    /**
+     * 打开或创建成绩记录文件，顺序扫描一遍已有记录
+     *
+     * @param file        成绩记录文件，所在目录不存在时自动创建
+     * @param topCapacity 保留的最高分数量
+     * @throws IOException 创建失败、文件正被使用、不是成绩记录文件或版本不受支持
+     */
+    public ScoreLog(File file, int topCapacity) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建成绩记录目录: " + directory);
+        }
+        this.file = file;
+        this.top = new int[Math.max(1, topCapacity)];
+        open();
+    }
+
+    /**
+     * 锁定并映射文件，校验或写入文件头，然后扫描记录
+     */
+    private void open() throws IOException {
+        this.raf = new RandomAccessFile(this.file, "rw");
+        try {
+            // 独占锁随raf关闭而释放
+            FileLock lock;
+            try {
+                lock = this.raf.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                // 同一进程中的另一个ScoreLog持有锁
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("成绩记录文件正被使用: " + this.file);
+            }
+            long size = this.raf.getChannel().size();
+            if (size > 0 && size < HEADER_BYTES) {
+                throw new IOException("不是成绩记录文件: " + this.file);
+            }
+            map((int) Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, (size - HEADER_BYTES) / RECORD_BYTES)));
+            if (size == 0) {
+                this.buffer.putInt(0, MAGIC);
+                this.buffer.put(4, (byte) VERSION);
+                this.buffer.putShort(6, (short) RECORD_BYTES);
+            } else if (this.buffer.getInt(0) != MAGIC) {
+                throw new IOException("不是成绩记录文件: " + this.file);
+            } else if (this.buffer.get(4) != VERSION || this.buffer.getShort(6) != RECORD_BYTES) {
+                throw new IOException("不支持的成绩记录版本: " + this.buffer.get(4));
+            }
+            scan();
+        } catch (IOException | RuntimeException e) {
+            this.buffer = null;
+            this.raf.close();
+            throw e;
+        }
+    }
+
+    private void map(int capacity) throws IOException {
+        this.capacity = capacity;
+        this.buffer = this.raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + (long) capacity * RECORD_BYTES);
+    }
+
+    /**
+     * 从头顺序扫描到第一个未提交的记录，重建最高分索引和累计统计
+     */
+    private void scan() {
+        this.games = this.buffer.getLong(COMPACTED_GAMES);
+        this.totalScores = this.buffer.getLong(COMPACTED_SCORES);
+        this.totalLines = this.buffer.getLong(COMPACTED_LINES);
+        this.totalPieces = this.buffer.getLong(COMPACTED_PIECES);
+        this.totalDurationMillis = this.buffer.getLong(COMPACTED_DURATION);
+        this.topCount = 0;
+        this.count = 0;
+        while (this.count < this.capacity && this.buffer.get(offset(this.count) + COMMIT) == COMMITTED) {
+            accumulate(this.count);
+            this.count++;
+        }
+    }
+
+    /**
+     * 把已提交的记录计入累计统计和最高分索引
+     *
+     * @return 在最高分中的名次，从0开始，未进入时为-1
+     */
+    private int accumulate(int index) {
+        int offset = offset(index);
+        int scores = this.buffer.getInt(offset + SCORES);
+        this.games++;
+        this.totalScores += scores;
+        this.totalLines += this.buffer.getInt(offset + LINES);
+        this.totalPieces += this.buffer.getInt(offset + PIECES);
+        this.totalDurationMillis += this.buffer.getInt(offset + DURATION);
+        int rank = this.topCount;
+        while (rank > 0 && scoresAt(this.top[rank - 1]) < scores) {
+            rank--;
+        }
+        if (rank == this.top.length) {
+            return -1;
+        }
+        System.arraycopy(this.top, rank, this.top, rank + 1, Math.min(this.topCount, this.top.length - 1) - rank);
+        this.top[rank] = index;
+        this.topCount = Math.min(this.topCount + 1, this.top.length);
+        return rank;
+    }
+
+    /**
+     * 追加一局已结束的游戏，只写入映射的内存，容量不足时才重新映射更大的区域
+     *
+     * @param engine        已结束的引擎
+     * @param durationNanos 本局的逻辑时长，不含暂停，单位纳秒
+     * @return 本局在最高分中的名次，从0开始，未进入时为-1
+     * @throws IOException 扩大映射区域失败或文件已满
+     */
+    public synchronized int append(GameEngine engine, long durationNanos) throws IOException {
+        if (this.count == this.capacity) {
+            if (this.capacity == MAX_CAPACITY) {
+                throw new IOException("成绩记录文件已满，需要压缩: " + this.file);
+            }
+            map((int) Math.min(MAX_CAPACITY, 2L * this.capacity));
+        }
+        int offset = offset(this.count);
+        MappedByteBuffer buffer = this.buffer;
+        buffer.putLong(offset + SEED, engine.getSeed());
+        buffer.putLong(offset + ENDED_AT, System.currentTimeMillis());
+        buffer.putInt(offset + DURATION, (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+        buffer.putInt(offset + SCORES, engine.getScores());
+        buffer.putInt(offset + LINES, engine.getLines());
+        buffer.putInt(offset + PIECES, engine.getPieces());
+        buffer.putFloat(offset + PPS, durationNanos > 0 ? (float) (engine.getPieces() * 1e9 / durationNanos) : 0f);
+        buffer.put(offset + GENERATOR, (byte) engine.getGenerator().getType().ordinal());
+        buffer.put(offset + ROTATION, (byte) engine.getRotationSystem().ordinal());
+        buffer.put(offset + SCORING, (byte) engine.getScoring().getType().ordinal());
+        buffer.put(offset + COMMIT, COMMITTED);
+        return accumulate(this.count++);
+    }
+
+    /**
+     * 压缩文件：只保留最高分和最近的记录，按原来的顺序写入临时文件并落盘，再原子替换原文件后重新打开<br>
+     * 被丢弃记录的统计累加到新文件头中，累计统计不变
+     *
+     * @param keepRecent 保留的最近记录数量
+     * @return 丢弃的记录数量
+     * @throws IOException 写入或替换失败，失败时删除临时文件并重新打开原文件，原文件保持不变；
+     *                     重新打开也失败时本对象保持关闭，isOpen()返回false
+     */
+    public synchronized int compact(int keepRecent) throws IOException {
+        boolean[] isKept = new boolean[this.count];
+        for (int index = Math.max(0, this.count - keepRecent); index < this.count; index++) {
+            isKept[index] = true;
+        }
+        for (int rank = 0; rank < this.topCount; rank++) {
+            isKept[this.top[rank]] = true;
+        }
+        long keptGames = 0, keptScores = 0, keptLines = 0, keptPieces = 0, keptDuration = 0;
+        for (int index = 0; index < this.count; index++) {
+            if (isKept[index]) {
+                int offset = offset(index);
+                keptGames++;
+                keptScores += this.buffer.getInt(offset + SCORES);
+                keptLines += this.buffer.getInt(offset + LINES);
+                keptPieces += this.buffer.getInt(offset + PIECES);
+                keptDuration += this.buffer.getInt(offset + DURATION);
+            }
+        }
+        File temporary = new File(this.file.getPath() + ".tmp");
+        int discarded = this.count - (int) keptGames;
+        boolean isMoved = false;
+        try {
+            try (FileChannel out = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(0, MAGIC);
+                header.put(4, (byte) VERSION);
+                header.putShort(6, (short) RECORD_BYTES);
+                header.putLong(COMPACTED_GAMES, this.games - keptGames);
+                header.putLong(COMPACTED_SCORES, this.totalScores - keptScores);
+                header.putLong(COMPACTED_LINES, this.totalLines - keptLines);
+                header.putLong(COMPACTED_PIECES, this.totalPieces - keptPieces);
+                header.putLong(COMPACTED_DURATION, this.totalDurationMillis - keptDuration);
+                writeFully(out, header);
+                ByteBuffer records = this.buffer.duplicate();
+                for (int index = 0; index < this.count; index++) {
+                    if (isKept[index]) {
+                        records.limit(offset(index) + RECORD_BYTES).position(offset(index));
+                        writeFully(out, records);
+                    }
+                }
+                out.force(true);
+            }
+            this.buffer.force();
+            // 关闭文件同时释放锁；不再引用旧映射，使其可以被回收，见类注释中Windows的限制
+            this.buffer = null;
+            this.raf.close();
+            try {
+                Files.move(temporary.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                isMoved = true;
+            } finally {
+                // 替换失败时重新打开原文件，成功时打开新文件，都不会留下已关闭的文件和过期的映射
+                open();
+            }
+        } finally {
+            if (!isMoved) {
+                Files.deleteIfExists(temporary.toPath());
+            }
+        }
+        return discarded;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            out.write(source);
+        }
+    }
+
+    private static int offset(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    private int scoresAt(int index) {
+        return this.buffer.getInt(offset(index) + SCORES);
+    }
+
+    /**
+     * @param index 记录序号，需小于getRecordCount()
+     * @return 记录
+     */
+    public synchronized ScoreRecord getRecord(int index) {
+        if (index < 0 || index >= this.count) {
+            throw new IndexOutOfBoundsException("record " + index + " out of " + this.count);
+        }
+        int offset = offset(index);
+        return new ScoreRecord(index, this.buffer.getLong(offset + SEED), this.buffer.getLong(offset + ENDED_AT),
+                this.buffer.getInt(offset + DURATION), this.buffer.getInt(offset + SCORES),
+                this.buffer.getInt(offset + LINES), this.buffer.getInt(offset + PIECES),
+                this.buffer.getFloat(offset + PPS), GENERATOR_TYPES[this.buffer.get(offset + GENERATOR)],
+                ROTATION_SYSTEMS[this.buffer.get(offset + ROTATION)], SCORING_TYPES[this.buffer.get(offset + SCORING)]);
+    }
+
+    /**
+     * @param rank 名次，从0开始，需小于getTopCount()
+     * @return 该名次的记录
+     */
+    public synchronized ScoreRecord getTop(int rank) {
+        if (rank < 0 || rank >= this.topCount) {
+            throw new IndexOutOfBoundsException("rank " + rank + " out of " + this.topCount);
+        }
+        return getRecord(this.top[rank]);
+    }
+
+    /**
+     * @return 最高分中已有的记录数量
+     */
+    public synchronized int getTopCount() {
+        return this.topCount;
+    }
+
+    /**
+     * @return 历史最高分，没有记录时为0
+     */
+    public synchronized int getBestScores() {
+        return this.topCount > 0 ? scoresAt(this.top[0]) : 0;
+    }
+
+    /**
+     * @return 文件中的记录数量，不含压缩时丢弃的记录
+     */
+    public synchronized int getRecordCount() {
+        return this.count;
+    }
+
+    /**
+     * @return 累计局数，包括压缩时丢弃的记录，以下累计统计同
+     */
+    public synchronized long getGames() {
+        return this.games;
+    }
+
+    public synchronized long getTotalScores() {
+        return this.totalScores;
+    }
+
+    public synchronized long getTotalLines() {
+        return this.totalLines;
+    }
+
+    public synchronized long getTotalPieces() {
+        return this.totalPieces;
+    }
+
+    public synchronized long getTotalDurationMillis() {
+        return this.totalDurationMillis;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * 把映射的内容强制写入磁盘并关闭文件
+     *
+     * @throws IOException 关闭失败
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.buffer != null) {
+            this.buffer.force();
+        }
+        this.raf.close();
+    }
+
+    /**
+     * @return 是否仍然可用，只有compact()替换文件后重新打开失败时为false
+     */
+    public synchronized boolean isOpen() {
+        return this.buffer != null;
+    }
+
+    /**
+     * 输出累计统计和最高分，可选先压缩文件
+     *
+     * @param args 成绩记录文件 [compact [保留的最近记录数量]]
+     * @throws IOException 读取或压缩失败
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: ScoreLog <成绩记录文件> [compact [保留的最近记录数量]]");
+            return;
+        }
+        long start = System.nanoTime();
+        try (ScoreLog log = new ScoreLog(new File(args[0]), DEFAULT_TOP_CAPACITY)) {
+            System.out.printf("opened %d records in %.3f ms%n", log.getRecordCount(),
+                    (System.nanoTime() - start) / 1e6);
+            if (args.length > 1 && "compact".equals(args[1])) {
+                int keepRecent = args.length > 2 ? Integer.parseInt(args[2]) : KEEP_RECENT;
+                int discarded = log.compact(keepRecent);
+                System.out.printf("compacted: discarded=%d kept=%d%n", discarded, log.getRecordCount());
+            }
+            double hours = log.getTotalDurationMillis() / 3.6e6;
+            System.out.printf("games=%d scores=%d lines=%d pieces=%d duration=%.1fh pps=%.2f%n", log.getGames(),
+                    log.getTotalScores(), log.getTotalLines(), log.getTotalPieces(), hours,
+                    hours > 0 ? log.getTotalPieces() / (hours * 3600) : 0);
+            for (int rank = 0; rank < log.getTopCount(); rank++) {
+                System.out.printf("#%d %s%n", rank + 1, log.getTop(rank));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.game.tetris;
+
+/**
+ * 成绩记录文件中的一局游戏，由ScoreLog读取记录时创建，不可修改
+ */
+public class ScoreRecord {
+
+    /**
+     * 在记录文件中的序号，压缩后会改变
+     */
+    private final int index;
+
+    private final long seed;
+
+    /**
+     * 结束时间，System.currentTimeMillis()
+     */
+    private final long endedAtMillis;
+
+    /**
+     * 逻辑时长，不含暂停，单位毫秒
+     */
+    private final int durationMillis;
+
+    private final int scores;
+
+    private final int lines;
+
+    private final int pieces;
+
+    /**
+     * 每秒落地的方块组数量
+     */
+    private final float piecesPerSecond;
+
+    /**
+     * 本局使用的生成方式、旋转系统和计分规则，不同规则下的得分不宜直接比较
+     */
+    private final PieceGeneratorType generatorType;
+
+    private final RotationSystem rotationSystem;
+
+    private final ScoringType scoringType;
+
+    ScoreRecord(int index, long seed, long endedAtMillis, int durationMillis, int scores, int lines, int pieces,
+                float piecesPerSecond, PieceGeneratorType generatorType, RotationSystem rotationSystem,
+                ScoringType scoringType) {
+        this.index = index;
+        this.seed = seed;
+        this.endedAtMillis = endedAtMillis;
+        this.durationMillis = durationMillis;
+        this.scores = scores;
+        this.lines = lines;
+        this.pieces = pieces;
+        this.piecesPerSecond = piecesPerSecond;
+        this.generatorType = generatorType;
+        this.rotationSystem = rotationSystem;
+        this.scoringType = scoringType;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public long getEndedAtMillis() {
+        return this.endedAtMillis;
+    }
+
+    public int getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    public int getScores() {
+        return this.scores;
+    }
+
+    public int getLines() {
+        return this.lines;
+    }
+
+    public int getPieces() {
+        return this.pieces;
+    }
+
+    public float getPiecesPerSecond() {
+        return this.piecesPerSecond;
+    }
+
+    public PieceGeneratorType getGeneratorType() {
+        return this.generatorType;
+    }
+
+    public RotationSystem getRotationSystem() {
+        return this.rotationSystem;
+    }
+
+    public ScoringType getScoringType() {
+        return this.scoringType;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("scores=%d lines=%d pieces=%d duration=%.1fs pps=%.2f seed=%d %s/%s/%s",
+                this.scores, this.lines, this.pieces, this.durationMillis / 1e3, this.piecesPerSecond, this.seed,
+                this.generatorType, this.rotationSystem, this.scoringType);
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.game.tetris;
+
+/**
+ * 计分与等级规则，决定等级、重力间隔和各种操作的得分<br>
+ * 连击数、是否背靠背、T旋等状态由GameEngine在落地时增量维护后传入，规则本身只做查表和算术，
+ * 实现应当无状态，以便在多个引擎间共享
+ */
+public interface ScoringRules {
+
+    /**
+     * @return 规则类型，写入回放文件以便按同样的规则重放
+     */
+    ScoringType getType();
+
+    /**
+     * @param lines 已消除行数
+     * @return 对应的等级
+     */
+    int getLevel(int lines);
+
+    /**
+     * @param level 等级
+     * @return 该等级的重力间隔，单位纳秒，可以小于一个逻辑帧
+     */
+    long getGravityIntervalNanos(int level);
+
+    /**
+     * @param rows 主动下降的行数，不含重力下落
+     * @return 软降得分
+     */
+    int getSoftDropPoints(int rows);
+
+    /**
+     * @param rows 直接落底下落的行数
+     * @return 硬降得分
+     */
+    int getHardDropPoints(int rows);
+
+    /**
+     * 方块组落地的得分
+     *
+     * @param clearedLines 消除的行数，取值0~4
+     * @param tSpin        T旋判定结果
+     * @param combo        连击数，本次是连续第n+1次消行时为n，未消行时为-1
+     * @param isBackToBack 本次是否为背靠背的困难消行，困难消行指消四行或T旋消行
+     * @param level        落地前的等级
+     * @return 得分
+     */
+    int getLockPoints(int clearedLines, TSpin tSpin, int combo, boolean isBackToBack, int level);
+
+}
@@ -0,0 +1,32 @@
+package com.game.tetris;
+
+/**
+ * 可选的计分与等级规则
+ */
+public enum ScoringType {
+
+    /**
+     * 最初的计分规则，见ClassicScoringRules
+     */
+    CLASSIC,
+
+    /**
+     * 现代指南式计分规则，见GuidelineScoringRules
+     */
+    GUIDELINE;
+
+    /**
+     * 创建对应的规则
+     *
+     * @return 规则
+     */
+    public ScoringRules create() {
+        switch (this) {
+            case GUIDELINE:
+                return new GuidelineScoringRules();
+            default:
+                return new ClassicScoringRules();
+        }
+    }
+
+}
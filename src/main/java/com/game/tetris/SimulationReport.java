@@ -0,0 +1,135 @@
+package com.game.tetris;
+
+import java.util.Arrays;
+
+/**
+ * 批量无界面对局的汇总结果
+ */
+public class SimulationReport {
+
+    /**
+     * 对局数
+     */
+    private final int games;
+
+    /**
+     * 并行度
+     */
+    private final int parallelism;
+
+    /**
+     * 总耗时，单位纳秒
+     */
+    private final long elapsedNanos;
+
+    /**
+     * 所有对局落地的方块组总数
+     */
+    private final long totalPieces;
+
+    /**
+     * 每局消除行数，已升序排列
+     */
+    private final int[] lines;
+
+    /**
+     * 每局得分，已升序排列
+     */
+    private final int[] scores;
+
+    public SimulationReport(int parallelism, long elapsedNanos, int[] lines, int[] scores, int[] pieces) {
+        this.games = lines.length;
+        this.parallelism = parallelism;
+        this.elapsedNanos = elapsedNanos;
+        long total = 0;
+        for (int count : pieces) {
+            total += count;
+        }
+        this.totalPieces = total;
+        this.lines = lines.clone();
+        this.scores = scores.clone();
+        Arrays.sort(this.lines);
+        Arrays.sort(this.scores);
+    }
+
+    public int getGames() {
+        return this.games;
+    }
+
+    public long getTotalPieces() {
+        return this.totalPieces;
+    }
+
+    public double getElapsedSeconds() {
+        return this.elapsedNanos / 1e9;
+    }
+
+    public double getGamesPerSecond() {
+        return this.games / getElapsedSeconds();
+    }
+
+    public double getPiecesPerSecond() {
+        return this.totalPieces / getElapsedSeconds();
+    }
+
+    public double getMeanLines() {
+        return mean(this.lines);
+    }
+
+    public double getMeanScores() {
+        return mean(this.scores);
+    }
+
+    /**
+     * @param percentile 百分位，取值0~100
+     * @return 消除行数的百分位数
+     */
+    public int getLinesPercentile(double percentile) {
+        return percentile(this.lines, percentile);
+    }
+
+    /**
+     * @param percentile 百分位，取值0~100
+     * @return 得分的百分位数
+     */
+    public int getScoresPercentile(double percentile) {
+        return percentile(this.scores, percentile);
+    }
+
+    private static double mean(int[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return (double) sum / values.length;
+    }
+
+    /**
+     * 最近秩法求百分位数
+     */
+    private static int percentile(int[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("对局: %d, 线程: %d, 耗时: %.3f s%n"
+                        + "对局/秒: %.1f, 方块/秒: %.1f%n"
+                        + "行数 均值: %.2f, p50: %d, p90: %d, p99: %d, 最大: %d%n"
+                        + "得分 均值: %.2f, p50: %d, p90: %d, p99: %d, 最大: %d",
+                this.games, this.parallelism, getElapsedSeconds(),
+                getGamesPerSecond(), getPiecesPerSecond(),
+                getMeanLines(), getLinesPercentile(50), getLinesPercentile(90), getLinesPercentile(99),
+                getLinesPercentile(100),
+                getMeanScores(), getScoresPercentile(50), getScoresPercentile(90), getScoresPercentile(99),
+                getScoresPercentile(100));
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.game.tetris;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongFunction;
+
+/**
+ * 批量无界面对局执行器<br>
+ * 在ForkJoinPool上并行运行多局互相独立的游戏，每局使用由基础种子派生的独立种子，结果可复现
+ */
+public class SimulationRunner {
+
+    /**
+     * 派生每局种子时使用的黄金分割增量
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 对局数
+     */
+    private final int games;
+
+    /**
+     * 并行度
+     */
+    private final int parallelism;
+
+    /**
+     * 基础种子
+     */
+    private final long seed;
+
+    /**
+     * 单局最多落地的方块组数量，防止策略过强时对局无法结束
+     */
+    private final int maxPieces;
+
+    /**
+     * 方块组序列生成方式
+     */
+    private final PieceGeneratorType generatorType;
+
+    /**
+     * 旋转系统
+     */
+    private final RotationSystem rotationSystem;
+
+    /**
+     * 计分规则
+     */
+    private final ScoringType scoringType;
+
+    /**
+     * 根据每局种子创建策略
+     */
+    private final LongFunction<GamePolicy> policyFactory;
+
+    /**
+     * 每局消除行数
+     */
+    private int[] lines;
+
+    /**
+     * 每局得分
+     */
+    private int[] scores;
+
+    /**
+     * 每局落地的方块组数量
+     */
+    private int[] pieces;
+
+    public SimulationRunner(int games, int parallelism, long seed, int maxPieces,
+                            PieceGeneratorType generatorType, RotationSystem rotationSystem,
+                            ScoringType scoringType, LongFunction<GamePolicy> policyFactory) {
+        this.games = games;
+        this.parallelism = parallelism;
+        this.seed = seed;
+        this.maxPieces = maxPieces;
+        this.generatorType = generatorType;
+        this.rotationSystem = rotationSystem;
+        this.scoringType = scoringType;
+        this.policyFactory = policyFactory;
+    }
+
+    /**
+     * 运行全部对局并汇总结果
+     *
+     * @return 汇总结果
+     */
+    public SimulationReport run() {
+        this.lines = new int[this.games];
+        this.scores = new int[this.games];
+        this.pieces = new int[this.games];
+        // 每个线程约分到8批，便于工作窃取平衡负载
+        int batchSize = Math.max(1, this.games / (this.parallelism * 8));
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new Batch(0, this.games, batchSize));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new SimulationReport(this.parallelism, elapsed, this.lines, this.scores, this.pieces);
+    }
+
+    /**
+     * 派生第index局的种子
+     *
+     * @param index 对局下标
+     * @return 该局种子
+     */
+    public long gameSeed(int index) {
+        long z = this.seed + (index + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 依次运行[from, to)范围内的对局，同一批次复用一个引擎
+     */
+    private void play(int from, int to) {
+        long firstSeed = gameSeed(from);
+        GameEngine engine = new GameEngine(this.generatorType.create(PieceGeneratorType.DEFAULT_PREVIEW, firstSeed),
+                firstSeed, this.rotationSystem, this.scoringType.create());
+        for (int index = from; index < to; index++) {
+            long gameSeed = gameSeed(index);
+            engine.reset(gameSeed);
+            GamePolicy policy = this.policyFactory.apply(gameSeed);
+            while (!engine.isGameOver() && engine.getPieces() < this.maxPieces) {
+                engine.step(policy.decide(engine));
+            }
+            this.lines[index] = engine.getLines();
+            this.scores[index] = engine.getScores();
+            this.pieces[index] = engine.getPieces();
+        }
+    }
+
+    /**
+     * 按对局下标二分拆分的任务
+     */
+    private class Batch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+
+        private final int to;
+
+        private final int batchSize;
+
+        Batch(int from, int to, int batchSize) {
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.batchSize) {
+                play(this.from, this.to);
+                return;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new Batch(this.from, mid, this.batchSize), new Batch(mid, this.to, this.batchSize));
+        }
+
+    }
+
+    /**
+     * 命令行入口：[对局数] [线程数] [种子] [单局方块上限] [UNIFORM|BAG|HISTORY] [RANDOM|PLACEMENT|LOOKAHEAD] [SRS|CLASSIC]
+     * [CLASSIC|GUIDELINE]
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+        int maxPieces = args.length > 3 ? Integer.parseInt(args[3]) : 100000;
+        PieceGeneratorType generatorType = args.length > 4 ? PieceGeneratorType.valueOf(args[4]) : PieceGeneratorType.UNIFORM;
+        String policy = args.length > 5 ? args[5] : "RANDOM";
+        RotationSystem rotationSystem = args.length > 6 ? RotationSystem.valueOf(args[6]) : RotationSystem.SRS;
+        ScoringType scoringType = args.length > 7 ? ScoringType.valueOf(args[7]) : ScoringType.CLASSIC;
+        LongFunction<GamePolicy> policyFactory;
+        switch (policy) {
+            case "PLACEMENT":
+                policyFactory = gameSeed -> new PlacementPolicy();
+                break;
+            case "LOOKAHEAD":
+                policyFactory = gameSeed -> new LookaheadPolicy();
+                break;
+            default:
+                policyFactory = RandomPolicy::new;
+                break;
+        }
+        SimulationRunner runner = new SimulationRunner(games, parallelism, seed, maxPieces, generatorType,
+                rotationSystem, scoringType, policyFactory);
+        System.out.println(runner.run());
+    }
+
+}
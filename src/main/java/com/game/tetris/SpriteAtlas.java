@@ -0,0 +1,180 @@
+package com.game.tetris;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * 方块贴图集<br>
+ * 七种方块贴图打包在一张图片icon/tiles.png中，按TetrominoType的顺序横向排列。
+ * 加载时一次性转换为与屏幕兼容的格式并按方块大小预先缩放，绘制时只做1:1的区域拷贝，保持在Java2D的加速路径上。
+ * 预览和暂存区使用的整块方块组贴图由createPieceSprites()预先拼好，每个方块组只需一次拷贝
+ */
+public final class SpriteAtlas {
+
+    /**
+     * 打包的方块贴图资源
+     */
+    private static final String TILES = "/icon/tiles.png";
+
+    /**
+     * 背景图片资源
+     */
+    private static final String BACKGROUND = "/icon/tetris.png";
+
+    /**
+     * 原始贴图边长
+     */
+    private static final int SOURCE_TILE_SIZE = 29;
+
+    /**
+     * 贴图比方块间距多出的边框宽度，绘制时向左上偏移1像素
+     */
+    private static final int TILE_BORDER = SOURCE_TILE_SIZE - 26;
+
+    /**
+     * 预缩放后的贴图集，与屏幕兼容的格式
+     */
+    private final Image tiles;
+
+    /**
+     * 与屏幕兼容的背景图片
+     */
+    private final Image background;
+
+    /**
+     * 预缩放后的贴图边长
+     */
+    private final int tileSize;
+
+    private SpriteAtlas(Image tiles, Image background, int tileSize) {
+        this.tiles = tiles;
+        this.background = background;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * 加载贴图集
+     *
+     * @param cellSize      方块间距
+     * @param configuration 目标设备的图形配置，为null时（例如headless）使用TYPE_INT_RGB
+     * @return 贴图集
+     */
+    public static SpriteAtlas load(int cellSize, GraphicsConfiguration configuration) {
+        BufferedImage source = read(TILES);
+        int count = TetrominoType.values().length;
+        int tileSize = cellSize + TILE_BORDER;
+        BufferedImage tiles = createImage(configuration, tileSize * count, tileSize, Transparency.OPAQUE);
+        Graphics2D g = tiles.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int i = 0; i < count; i++) {
+                int sx = i * SOURCE_TILE_SIZE;
+                int dx = i * tileSize;
+                g.drawImage(source, dx, 0, dx + tileSize, tileSize,
+                        sx, 0, sx + SOURCE_TILE_SIZE, SOURCE_TILE_SIZE, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        BufferedImage backgroundSource = read(BACKGROUND);
+        BufferedImage background = createImage(configuration,
+                backgroundSource.getWidth(), backgroundSource.getHeight(), Transparency.OPAQUE);
+        Graphics2D bg = background.createGraphics();
+        try {
+            bg.drawImage(backgroundSource, 0, 0, null);
+        } finally {
+            bg.dispose();
+        }
+        return new SpriteAtlas(tiles, background, tileSize);
+    }
+
+    /**
+     * @return 与屏幕兼容的背景图片
+     */
+    public Image getBackground() {
+        return this.background;
+    }
+
+    /**
+     * 绘制一个方块
+     *
+     * @param g      Graphics对象
+     * @param typeId 方块类型编号，取值1~7
+     * @param x      方块左上角横坐标（方块间距的整数倍）
+     * @param y      方块左上角纵坐标（方块间距的整数倍）
+     */
+    public void drawTile(Graphics g, int typeId, int x, int y) {
+        int sx = (typeId - 1) * this.tileSize;
+        int dx = x - 1;
+        int dy = y - 1;
+        g.drawImage(this.tiles, dx, dy, dx + this.tileSize, dy + this.tileSize,
+                sx, 0, sx + this.tileSize, this.tileSize, null);
+    }
+
+    /**
+     * 把七种方块组在给定旋转系统下的出现状态各拼成一张透明背景的贴图，贴图大小为方块组的包围框加上贴图边框
+     *
+     * @param rotationSystem 旋转系统，决定方块组的出现状态
+     * @param cellSize       方块间距，与加载时不同时按比例缩放贴图
+     * @param configuration  目标设备的图形配置，为null时使用TYPE_INT_ARGB
+     * @return 按TetrominoType的顺序排列的贴图
+     */
+    public Image[] createPieceSprites(RotationSystem rotationSystem, int cellSize, GraphicsConfiguration configuration) {
+        TetrominoType[] types = TetrominoType.values();
+        Image[] sprites = new Image[types.length];
+        int tileSize = Math.round((float) this.tileSize * cellSize / (this.tileSize - TILE_BORDER));
+        Tetromino tetromino = new Tetromino(TetrominoType.T, rotationSystem);
+        for (TetrominoType type : types) {
+            tetromino.spawn(type);
+            int left = tetromino.getLeft(), top = tetromino.getTop();
+            int width = (tetromino.getRight() - left) * cellSize + tileSize;
+            int height = (tetromino.getBottom() - top) * cellSize + tileSize;
+            BufferedImage sprite = createImage(configuration, width, height, Transparency.BITMASK);
+            Graphics2D g = sprite.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                int sx = (type.getId() - 1) * this.tileSize;
+                for (int i = 0; i < 4; i++) {
+                    int dx = (tetromino.getCellCol(i) - left) * cellSize;
+                    int dy = (tetromino.getCellRow(i) - top) * cellSize;
+                    g.drawImage(this.tiles, dx, dy, dx + tileSize, dy + tileSize,
+                            sx, 0, sx + this.tileSize, this.tileSize, null);
+                }
+            } finally {
+                g.dispose();
+            }
+            sprites[type.ordinal()] = sprite;
+        }
+        return sprites;
+    }
+
+    private static BufferedImage createImage(GraphicsConfiguration configuration, int width, int height,
+                                             int transparency) {
+        if (configuration == null) {
+            return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+        return configuration.createCompatibleImage(width, height, transparency);
+    }
+
+    private static BufferedImage read(String path) {
+        try (InputStream in = SpriteAtlas.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到图片资源: " + path);
+            }
+            return ImageIO.read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("无法加载图片资源: " + path, e);
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.game.tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 游戏状态增量解码器，按StateEncoder的帧格式重建面板、当前方块组和记分，供只负责绘制的瘦客户端使用<br>
+ * 收到第一个关键帧之前的增量帧无法应用，会被跳过。<br>
+ * 帧来自网络，解码时校验行号、方块类型、旋转状态和位置，格式错误的帧抛出IllegalArgumentException，
+ * 此时状态可能只应用了一部分，解码器回到未同步状态，直到下一个关键帧
+ */
+public class StateDecoder {
+
+    /**
+     * 序号到方块组类型的映射
+     */
+    private static final TetrominoType[] TYPES = TetrominoType.values();
+
+    /**
+     * 序号到旋转系统的映射
+     */
+    private static final RotationSystem[] ROTATION_SYSTEMS = RotationSystem.values();
+
+    private final Board wall = new Board();
+
+    private final Tetromino tetromino = new Tetromino(TetrominoType.T);
+
+    /**
+     * 校验方块组位置用的临时方块组，校验通过后才修改当前方块组
+     */
+    private final Tetromino probe = new Tetromino(TetrominoType.T);
+
+    private TetrominoType nextType = TetrominoType.T;
+
+    /**
+     * 暂存的方块组类型，为null表示暂存区为空
+     */
+    private TetrominoType heldType;
+
+    private int scores, lines, level;
+
+    private boolean isGameOver;
+
+    /**
+     * 是否已收到关键帧
+     */
+    private boolean isSynced;
+
+    /**
+     * 解码并应用一帧
+     *
+     * @param in 输入缓冲区，读取位置位于帧的开头，返回时位于帧的末尾
+     * @return 帧的标志，见StateEncoder中的常量
+     * @throws IllegalArgumentException 帧格式错误
+     */
+    public int decode(ByteBuffer in) {
+        try {
+            return decodeFrame(in);
+        } catch (IllegalArgumentException e) {
+            this.isSynced = false;
+            throw e;
+        }
+    }
+
+    private int decodeFrame(ByteBuffer in) {
+        int flags = in.get() & 0xFF;
+        boolean isApplied = this.isSynced || (flags & StateEncoder.KEYFRAME) != 0;
+        if ((flags & StateEncoder.KEYFRAME) != 0) {
+            this.wall.clear();
+            int top = in.get();
+            check(top >= 0 && top <= Board.ROWS, "top row", top);
+            for (int row = top; row < Board.ROWS; row++) {
+                int types = checkRowTypes(in.getInt());
+                if (types != 0) {
+                    this.wall.setRowTypes(row, types);
+                }
+            }
+            this.isSynced = true;
+        }
+        if ((flags & StateEncoder.CLEAR) != 0) {
+            int clearedMask = checkRows(getMedium(in));
+            if (isApplied) {
+                this.wall.removeRows(clearedMask);
+            }
+        }
+        if ((flags & StateEncoder.ROWS) != 0) {
+            int changedRows = checkRows(getMedium(in));
+            for (int rows = changedRows; rows != 0; rows &= rows - 1) {
+                int types = checkRowTypes(in.getInt());
+                if (isApplied) {
+                    this.wall.setRowTypes(Integer.numberOfTrailingZeros(rows), types);
+                }
+            }
+        }
+        if ((flags & StateEncoder.PIECE) != 0) {
+            int typeIndex = in.get(), rotation = in.get() & 0xFF, row = in.get(), col = in.get();
+            check(typeIndex >= 0 && typeIndex < TYPES.length, "piece type", typeIndex);
+            check(rotation >>> 2 < ROTATION_SYSTEMS.length, "rotation", rotation);
+            RotationSystem rotationSystem = ROTATION_SYSTEMS[rotation >>> 2];
+            if (this.probe.getRotationSystem() != rotationSystem) {
+                this.probe.setRotationSystem(rotationSystem);
+            }
+            this.probe.place(TYPES[typeIndex], rotation & 0x3, row, col);
+            checkPiece();
+            if (isApplied) {
+                if (this.tetromino.getRotationSystem() != rotationSystem) {
+                    this.tetromino.setRotationSystem(rotationSystem);
+                }
+                this.tetromino.place(TYPES[typeIndex], rotation & 0x3, row, col);
+            }
+        }
+        if ((flags & StateEncoder.MOVE) != 0) {
+            int move = in.getShort() & 0xFFFF;
+            if (isApplied) {
+                int row = this.tetromino.getRow() + (move >>> 7) - StateEncoder.MOVE_ROW_BIAS;
+                int col = this.tetromino.getCol() + ((move >>> 2) & 0x1F) - StateEncoder.MOVE_COL_BIAS;
+                if (this.probe.getRotationSystem() != this.tetromino.getRotationSystem()) {
+                    this.probe.setRotationSystem(this.tetromino.getRotationSystem());
+                }
+                this.probe.place(this.tetromino.getType(), move & 0x3, row, col);
+                checkPiece();
+                this.tetromino.place(this.tetromino.getType(), move & 0x3, row, col);
+            }
+        }
+        if ((flags & StateEncoder.NEXT) != 0) {
+            int next = in.get() & 0xFF;
+            check((next & 0x7) < TYPES.length && next >>> 3 <= TYPES.length, "next byte", next);
+            if (isApplied) {
+                this.nextType = TYPES[next & 0x7];
+                this.heldType = next >>> 3 == 0 ? null : TYPES[(next >>> 3) - 1];
+            }
+        }
+        if ((flags & StateEncoder.HUD) != 0) {
+            int scores = getVarint(in), lines = getVarint(in), level = getVarint(in);
+            if (isApplied) {
+                this.scores = scores;
+                this.lines = lines;
+                this.level = level;
+            }
+        }
+        if (isApplied) {
+            this.isGameOver = (flags & StateEncoder.GAME_OVER) != 0;
+        }
+        return flags;
+    }
+
+    /**
+     * @return 重建的面板，调用方不应修改
+     */
+    public Board getWall() {
+        return this.wall;
+    }
+
+    /**
+     * @return 当前方块组，调用方不应修改
+     */
+    public Tetromino getTetromino() {
+        return this.tetromino;
+    }
+
+    public TetrominoType getNextType() {
+        return this.nextType;
+    }
+
+    /**
+     * @return 暂存的方块组类型，暂存区为空时为null
+     */
+    public TetrominoType getHeldType() {
+        return this.heldType;
+    }
+
+    public int getScores() {
+        return this.scores;
+    }
+
+    public int getLines() {
+        return this.lines;
+    }
+
+    public int getLevel() {
+        return this.level;
+    }
+
+    public boolean isGameOver() {
+        return this.isGameOver;
+    }
+
+    /**
+     * @return 是否已收到关键帧，之后的状态才是完整的
+     */
+    public boolean isSynced() {
+        return this.isSynced;
+    }
+
+    private static void check(boolean isValid, String field, int value) {
+        if (!isValid) {
+            throw new IllegalArgumentException("malformed state frame: " + field + " " + value);
+        }
+    }
+
+    /**
+     * @return 行号位图，只能包含面板内的行
+     */
+    private static int checkRows(int rows) {
+        check(rows >>> Board.ROWS == 0, "row mask", rows);
+        return rows;
+    }
+
+    /**
+     * @return 打包的一行方块类型，只能包含面板内的列；3位编号的0~7都是合法值
+     */
+    private static int checkRowTypes(int types) {
+        check(types >>> (Board.COLS * 3) == 0, "row types", types);
+        return types;
+    }
+
+    /**
+     * 方块组必须完整地位于面板内，与引擎中的方块组一致
+     */
+    private void checkPiece() {
+        Tetromino piece = this.probe;
+        if (piece.getTop() < 0 || piece.getBottom() >= Board.ROWS || piece.getLeft() < 0
+                || piece.getRight() >= Board.COLS) {
+            throw new IllegalArgumentException("malformed state frame: piece " + piece.getType() + " at ("
+                    + piece.getRow() + ", " + piece.getCol() + ") rotation " + piece.getRotation());
+        }
+    }
+
+    private static int getMedium(ByteBuffer in) {
+        return (in.get() & 0xFF) << 16 | (in.getShort() & 0xFFFF);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            check(shift < 32, "varint length", shift / 7);
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+}
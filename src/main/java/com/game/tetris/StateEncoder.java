@@ -0,0 +1,316 @@
+package com.game.tetris;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 游戏状态增量编码器，把引擎每帧的状态与上一次发送的状态比较，只输出变化的部分，供观战和远程绘制使用<br>
+ * 每帧由一个标志字节开头，后面按标志位的顺序依次跟随各段，帧本身是自定界的，不需要额外的长度前缀：
+ * <pre>
+ * KEYFRAME  最上方非空行号1字节，其下每行的打包方块类型4字节；同时带PIECE、NEXT、HUD
+ * CLEAR     落地消除的行在消除前的行号位图3字节，接收端据此删除这些行，下移的行不必重发
+ * ROWS      变化行位图3字节，每个变化行的打包方块类型4字节，占据位图由非0的格子得出
+ * PIECE     方块组类型序号、旋转状态、行、列各1字节，旋转状态字节的低2位为状态，其余位为旋转系统序号
+ * MOVE      与上一帧相比的方块组移动，2字节：旋转状态2位、列差+16占5位、行差+32占6位
+ * NEXT      1字节，低3位为下一个方块组类型序号，其余位为暂存的方块组类型序号加1，0表示暂存区为空
+ * HUD       得分、行数、等级，各为一个varint
+ * GAME_OVER 状态位，每帧都反映当前是否已结束，本身没有负载
+ * </pre>
+ * 状态没有任何变化的帧不输出。编码器只保存上一次发送的状态，每帧不创建新对象
+ */
+public class StateEncoder {
+
+    public static final int KEYFRAME = 0x01;
+
+    public static final int CLEAR = 0x02;
+
+    public static final int ROWS = 0x04;
+
+    public static final int PIECE = 0x08;
+
+    public static final int MOVE = 0x10;
+
+    public static final int NEXT = 0x20;
+
+    public static final int HUD = 0x40;
+
+    public static final int GAME_OVER = 0x80;
+
+    /**
+     * 关键帧的最大长度：标志、最上方非空行号、全部行、方块组、下一个方块组和三个varint
+     */
+    private static final int MAX_KEYFRAME_BYTES = 1 + 1 + Board.ROWS * 4 + 4 + 1 + 3 * 5;
+
+    /**
+     * 增量帧的最大长度：标志、消除行位图、变化行位图和全部行、方块组（PIECE与MOVE只出现一个，取较长的PIECE）、
+     * 下一个方块组和三个varint
+     */
+    private static final int MAX_DELTA_BYTES = 1 + 3 + 3 + Board.ROWS * 4 + 4 + 1 + 3 * 5;
+
+    /**
+     * 一帧的最大长度，取关键帧和增量帧中较长的一种
+     */
+    public static final int MAX_FRAME_BYTES = Math.max(MAX_KEYFRAME_BYTES, MAX_DELTA_BYTES);
+
+    /**
+     * MOVE中列差和行差的偏移量，超出范围时改用PIECE
+     */
+    static final int MOVE_COL_BIAS = 16;
+
+    static final int MOVE_ROW_BIAS = 32;
+
+    /**
+     * 关键帧间隔的帧数，0表示只在requestKeyframe()后输出关键帧
+     */
+    private final int keyframeInterval;
+
+    /**
+     * 上一次发送的各行打包方块类型
+     */
+    private final int[] sentTypes = new int[Board.ROWS];
+
+    private int sentVersion;
+
+    private int sentPieces;
+
+    private int sentType = -1;
+
+    private int sentRotation, sentRow, sentCol;
+
+    private int sentRotationSystem;
+
+    /**
+     * 上一次发送的NEXT字节
+     */
+    private int sentNext = -1;
+
+    private int sentScores, sentLines, sentLevel;
+
+    private boolean sentGameOver;
+
+    /**
+     * 下一帧是否输出关键帧
+     */
+    private boolean isKeyframePending = true;
+
+    /**
+     * 距上一个关键帧的帧数
+     */
+    private int framesSinceKeyframe;
+
+    /**
+     * 只在开始时和requestKeyframe()后输出关键帧
+     */
+    public StateEncoder() {
+        this(0);
+    }
+
+    /**
+     * @param keyframeInterval 关键帧间隔的帧数，0表示只在开始时和requestKeyframe()后输出关键帧
+     */
+    public StateEncoder(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * 让下一帧输出关键帧，接收端丢失了状态或开始新一局时调用
+     */
+    public void requestKeyframe() {
+        this.isKeyframePending = true;
+    }
+
+    /**
+     * 比较引擎的当前状态并输出一帧，调用方需持有引擎的锁
+     *
+     * @param engine 游戏核心引擎
+     * @param out    输出缓冲区，剩余空间需不少于MAX_FRAME_BYTES
+     * @return 输出的字节数，状态没有变化时为0
+     */
+    public int encode(GameEngine engine, ByteBuffer out) {
+        if (this.isKeyframePending
+                || (this.keyframeInterval > 0 && this.framesSinceKeyframe >= this.keyframeInterval)) {
+            capture(engine);
+            this.isKeyframePending = false;
+            this.framesSinceKeyframe = 0;
+            return writeKeyframe(out);
+        }
+        int start = out.position();
+        out.put((byte) 0);
+        int flags = 0;
+        Board wall = engine.getWall();
+        if (wall.getVersion() != this.sentVersion) {
+            // 上一帧以来只落地了一个方块组并消了行时，先让接收端删除同样的行，剩下的差异不超过落地的几行
+            int clearedMask = wall.getLastClearedMask();
+            if (engine.getPieces() == this.sentPieces + 1 && engine.getLastClearedLines() > 0 && clearedMask != 0) {
+                flags |= CLEAR;
+                putMedium(out, clearedMask);
+                removeRows(this.sentTypes, clearedMask);
+            }
+            int changedRows = 0;
+            for (int row = 0; row < Board.ROWS; row++) {
+                if (wall.getRowTypes(row) != this.sentTypes[row]) {
+                    changedRows |= 1 << row;
+                }
+            }
+            if (changedRows != 0) {
+                flags |= ROWS;
+                putMedium(out, changedRows);
+                for (int rows = changedRows; rows != 0; rows &= rows - 1) {
+                    int row = Integer.numberOfTrailingZeros(rows);
+                    this.sentTypes[row] = wall.getRowTypes(row);
+                    out.putInt(this.sentTypes[row]);
+                }
+            }
+            this.sentVersion = wall.getVersion();
+        }
+        this.sentPieces = engine.getPieces();
+        Tetromino tetromino = engine.getTetromino();
+        int type = tetromino.getType().ordinal();
+        int rotation = tetromino.getRotation(), row = tetromino.getRow(), col = tetromino.getCol();
+        if (type != this.sentType || rotation != this.sentRotation || row != this.sentRow || col != this.sentCol) {
+            int dRow = row - this.sentRow, dCol = col - this.sentCol;
+            if (type == this.sentType && dRow >= -MOVE_ROW_BIAS && dRow < MOVE_ROW_BIAS
+                    && dCol >= -MOVE_COL_BIAS && dCol < MOVE_COL_BIAS) {
+                flags |= MOVE;
+                out.putShort((short) (rotation | (dCol + MOVE_COL_BIAS) << 2 | (dRow + MOVE_ROW_BIAS) << 7));
+            } else {
+                flags |= PIECE;
+                this.sentRotationSystem = tetromino.getRotationSystem().ordinal();
+                putPiece(out, type, this.sentRotationSystem, rotation, row, col);
+            }
+            this.sentType = type;
+            this.sentRotation = rotation;
+            this.sentRow = row;
+            this.sentCol = col;
+        }
+        int next = packNext(engine);
+        if (next != this.sentNext) {
+            flags |= NEXT;
+            out.put((byte) next);
+            this.sentNext = next;
+        }
+        if (engine.getScores() != this.sentScores || engine.getLines() != this.sentLines
+                || engine.getLevel() != this.sentLevel) {
+            flags |= HUD;
+            this.sentScores = engine.getScores();
+            this.sentLines = engine.getLines();
+            this.sentLevel = engine.getLevel();
+            putHud(out);
+        }
+        boolean isGameOver = engine.isGameOver();
+        if (flags == 0 && isGameOver == this.sentGameOver) {
+            out.position(start);
+            return 0;
+        }
+        this.sentGameOver = isGameOver;
+        if (isGameOver) {
+            flags |= GAME_OVER;
+        }
+        out.put(start, (byte) flags);
+        this.framesSinceKeyframe++;
+        return out.position() - start;
+    }
+
+    /**
+     * 输出上一次发送的状态的关键帧，不影响增量的计算，供中途加入的接收端在接收后续增量前使用
+     *
+     * @param out 输出缓冲区，剩余空间需不少于MAX_FRAME_BYTES
+     * @return 输出的字节数，尚未编码过任何帧时为0
+     */
+    public int writeKeyframe(ByteBuffer out) {
+        if (this.sentType < 0) {
+            return 0;
+        }
+        int start = out.position();
+        out.put((byte) (KEYFRAME | PIECE | NEXT | HUD | (this.sentGameOver ? GAME_OVER : 0)));
+        int top = 0;
+        while (top < Board.ROWS && this.sentTypes[top] == 0) {
+            top++;
+        }
+        out.put((byte) top);
+        for (int row = top; row < Board.ROWS; row++) {
+            out.putInt(this.sentTypes[row]);
+        }
+        putPiece(out, this.sentType, this.sentRotationSystem, this.sentRotation, this.sentRow, this.sentCol);
+        out.put((byte) this.sentNext);
+        putHud(out);
+        return out.position() - start;
+    }
+
+    /**
+     * 把引擎的当前状态整体记为已发送
+     */
+    private void capture(GameEngine engine) {
+        Board wall = engine.getWall();
+        for (int row = 0; row < Board.ROWS; row++) {
+            this.sentTypes[row] = wall.getRowTypes(row);
+        }
+        this.sentVersion = wall.getVersion();
+        this.sentPieces = engine.getPieces();
+        Tetromino tetromino = engine.getTetromino();
+        this.sentType = tetromino.getType().ordinal();
+        this.sentRotationSystem = tetromino.getRotationSystem().ordinal();
+        this.sentRotation = tetromino.getRotation();
+        this.sentRow = tetromino.getRow();
+        this.sentCol = tetromino.getCol();
+        this.sentNext = packNext(engine);
+        this.sentScores = engine.getScores();
+        this.sentLines = engine.getLines();
+        this.sentLevel = engine.getLevel();
+        this.sentGameOver = engine.isGameOver();
+    }
+
+    /**
+     * @return 下一个方块组和暂存区合成的NEXT字节
+     */
+    private static int packNext(GameEngine engine) {
+        TetrominoType held = engine.getHeldType();
+        return engine.getNextTetromino().getType().ordinal() | (held == null ? 0 : held.ordinal() + 1) << 3;
+    }
+
+    private void putHud(ByteBuffer out) {
+        putVarint(out, this.sentScores);
+        putVarint(out, this.sentLines);
+        putVarint(out, this.sentLevel);
+    }
+
+    private static void putPiece(ByteBuffer out, int type, int rotationSystem, int rotation, int row, int col) {
+        out.put((byte) type);
+        out.put((byte) (rotationSystem << 2 | rotation));
+        out.put((byte) row);
+        out.put((byte) col);
+    }
+
+    /**
+     * 删除给定的行，上方的行下移，与Board.removeRows()一致
+     */
+    static void removeRows(int[] types, int removedMask) {
+        int write = Board.ROWS - 1;
+        for (int read = Board.ROWS - 1; read >= 0; read--) {
+            if ((removedMask & (1 << read)) == 0) {
+                types[write--] = types[read];
+            }
+        }
+        Arrays.fill(types, 0, write + 1, 0);
+    }
+
+    /**
+     * 写入3字节的大端序整数
+     */
+    private static void putMedium(ByteBuffer out, int value) {
+        out.put((byte) (value >>> 16));
+        out.putShort((short) value);
+    }
+
+    /**
+     * 写入非负整数的varint，每字节低7位为数据，最高位表示后面还有字节
+     */
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+}
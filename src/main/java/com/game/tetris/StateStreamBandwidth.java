@@ -0,0 +1,66 @@
+package com.game.tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 状态增量流的带宽统计工具<br>
+ * 在本地以GameLoop的逻辑帧率模拟若干局由PlacementPolicy操作的游戏，每个逻辑帧编码一次，
+ * 统计每局和每秒的字节数，并与每帧都发送关键帧（即完整状态）的方式对比。编码是否无损由StateStreamTest验证
+ */
+public class StateStreamBandwidth {
+
+    /**
+     * 命令行入口：[对局数] [种子] [每次操作间隔的逻辑帧数] [关键帧间隔] [单局方块上限]
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0L;
+        int ticksPerAction = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        int keyframeInterval = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        int maxPieces = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+
+        ByteBuffer buffer = ByteBuffer.allocate(StateEncoder.MAX_FRAME_BYTES);
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, seed), seed);
+        long deltaBytes = 0, fullBytes = 0, frames = 0, ticks = 0, pieces = 0;
+        for (int game = 0; game < games; game++) {
+            engine.reset(seed + game);
+            PlacementPolicy policy = new PlacementPolicy();
+            StateEncoder encoder = new StateEncoder(keyframeInterval);
+            StateEncoder full = new StateEncoder();
+            long gravityNanos = 0;
+            for (int tick = 0; !engine.isGameOver() && engine.getPieces() < maxPieces; tick++) {
+                if (tick % ticksPerAction == 0) {
+                    engine.step(policy.decide(engine));
+                }
+                gravityNanos += GameLoop.TICK_NANOS;
+                long interval = engine.getGravityIntervalNanos();
+                if (!engine.isGameOver() && gravityNanos >= interval) {
+                    gravityNanos = Math.min(gravityNanos - interval, interval);
+                    engine.tick();
+                }
+                buffer.clear();
+                int bytes = encoder.encode(engine, buffer);
+                if (bytes > 0) {
+                    frames++;
+                }
+                deltaBytes += bytes;
+                buffer.clear();
+                full.requestKeyframe();
+                fullBytes += full.encode(engine, buffer);
+                ticks++;
+            }
+            pieces += engine.getPieces();
+        }
+        double seconds = (double) ticks / GameLoop.TICKS_PER_SECOND;
+        System.out.println(String.format("games=%d ticks=%d pieces=%d frames=%d (%.1f%% of ticks)",
+                games, ticks, pieces, frames, 100.0 * frames / ticks));
+        System.out.println(String.format("delta: %.0f B/game, %.1f B/s, %.2f B/piece",
+                (double) deltaBytes / games, deltaBytes / seconds, (double) deltaBytes / pieces));
+        System.out.println(String.format("full : %.0f B/game, %.1f B/s, %.2f B/piece (%.1fx)",
+                (double) fullBytes / games, fullBytes / seconds, (double) fullBytes / pieces,
+                (double) fullBytes / deltaBytes));
+    }
+
+}
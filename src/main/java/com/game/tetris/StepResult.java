@@ -0,0 +1,33 @@
+package com.game.tetris;
+
+/**
+ * GameEngine执行一步操作后产生的事件
+ */
+public enum StepResult {
+
+    /**
+     * 操作被拒绝，方块组保持原状（越界、重叠、本方块组已暂存过或游戏已结束）
+     */
+    REJECTED,
+
+    /**
+     * 方块组移动、旋转或暂存成功
+     */
+    MOVED,
+
+    /**
+     * 方块组落地，未消除任何行
+     */
+    LOCKED,
+
+    /**
+     * 方块组落地并消除了若干行，行数见GameEngine.getLastClearedLines()
+     */
+    LINES_CLEARED,
+
+    /**
+     * 方块组落地后游戏结束
+     */
+    GAME_OVER
+
+}
@@ -0,0 +1,23 @@
+package com.game.tetris;
+
+/**
+ * 方块组落地时的T旋判定结果，按三角规则：T的最后一次成功操作是旋转，且中心四个斜角至少有三个被占据（墙和地面算作占据）
+ */
+public enum TSpin {
+
+    /**
+     * 不是T旋
+     */
+    NONE,
+
+    /**
+     * 迷你T旋：朝向一侧的两个斜角只有一个被占据
+     */
+    MINI,
+
+    /**
+     * T旋：朝向一侧的两个斜角都被占据，或最后一次旋转用到了最远的踢墙偏移
+     */
+    FULL
+
+}
@@ -15,12 +15,34 @@ public class TetrisFrame extends JFrame {
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * 绘制模式：passive为Swing被动重绘，active为BufferStrategy主动绘制，可通过-Dtetris.render指定
+     */
+    private static final String RENDER_MODE = System.getProperty("tetris.render", "passive");
+
+    /**
+     * 主动绘制模式的目标帧率，可通过-Dtetris.fps指定
+     */
+    private static final int TARGET_FPS = Integer.getInteger("tetris.fps", 60);
+
+    /**
+     * 主动绘制模式是否尝试垂直同步，可通过-Dtetris.vsync指定
+     */
+    private static final boolean VSYNC = Boolean.parseBoolean(System.getProperty("tetris.vsync", "true"));
+
     public TetrisFrame() {
         TetrisPanel tetrisPanel = new TetrisPanel();
-        this.add(tetrisPanel);
-        ImageIcon imageIcon = new ImageIcon(Objects.requireNonNull(this.getClass().getResource("../../../icon/tetris-icon.png")));
+        ActiveRenderCanvas canvas = null;
+        if ("active".equalsIgnoreCase(RENDER_MODE)) {
+            canvas = new ActiveRenderCanvas(tetrisPanel.getRenderer(), tetrisPanel.getLoop(), TARGET_FPS, VSYNC);
+            tetrisPanel.setPassive(false);
+            this.add(canvas);
+        } else {
+            this.add(tetrisPanel);
+        }
+        ImageIcon imageIcon = new ImageIcon(Objects.requireNonNull(this.getClass().getResource("/icon/tetris-icon.png")));
         this.setIconImage(imageIcon.getImage());
-        this.setSize(540, 595);
+        this.setSize(540 + TetrisRenderer.SIDE_PANEL_WIDTH, 595);
         this.setUndecorated(false);
         this.setTitle("俄罗斯方块");
         this.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
@@ -38,7 +60,12 @@ public class TetrisFrame extends JFrame {
             }
         });
         this.setVisible(true);
-        tetrisPanel.init();
+        if (canvas != null) {
+            canvas.start();
+            tetrisPanel.init(canvas);
+        } else {
+            tetrisPanel.init();
+        }
     }
 
 }
@@ -1,19 +1,16 @@
 package com.game.tetris;
 
-import java.awt.Color;
-import java.awt.Font;
+import java.awt.Component;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.awt.Graphics;
-import java.awt.Image;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.util.Arrays;
-import java.util.Objects;
-import java.util.Timer;
-import java.util.TimerTask;
 
-import javax.imageio.ImageIO;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  * 游戏核心面板类
@@ -28,12 +25,12 @@ public class TetrisPanel extends JPanel {
     /**
      * 行数，即一列中的方块数
      */
-    public static final int ROWS = 20;
+    public static final int ROWS = Board.ROWS;
 
     /**
      * 列数，即一行中的方块数
      */
-    public static final int COLS = 10;
+    public static final int COLS = Board.COLS;
 
     /**
      * 字体颜色
@@ -51,90 +48,106 @@ public class TetrisPanel extends JPanel {
     public static final int CELL_SIZE = 26;
 
     /**
-     * 得分梯度
+     * 启动时要播放的回放，可通过-Dtetris.replay=回放文件指定，-Dtetris.replay.from=逻辑帧指定快进位置，开始播放后置为null
      */
-    private static final int[] SCORE_CASCADES = {0, 1, 10, 30, 200};
+    private ReplayPlayer pendingReplay = openReplay(System.getProperty("tetris.replay"));
 
     /**
-     * 背景图片Image
+     * 游戏核心引擎，所有游戏规则都由其执行，方块组序列生成方式可通过-Dtetris.generator=UNIFORM|BAG|HISTORY指定，
+     * 预览数量可通过-Dtetris.preview指定，旋转系统可通过-Dtetris.rotation=SRS|CLASSIC指定，
+     * 计分规则可通过-Dtetris.scoring=CLASSIC|GUIDELINE指定，播放回放时使用回放记录的生成方式、预览数量、旋转系统和计分规则
      */
-    private static Image BACKGROUND;
+    private final GameEngine engine = this.pendingReplay != null ? this.pendingReplay.createEngine()
+            : new GameEngine(PieceGeneratorType.valueOf(System.getProperty("tetris.generator", "UNIFORM"))
+                    .create(Integer.getInteger("tetris.preview", PieceGeneratorType.DEFAULT_PREVIEW), 0L), System.nanoTime(),
+                    RotationSystem.valueOf(System.getProperty("tetris.rotation", "SRS")),
+                    ScoringType.valueOf(System.getProperty("tetris.scoring", "CLASSIC")).create());
 
     /**
-     * 七种方块Image
+     * 游戏主循环，唯一修改引擎状态的线程
      */
-    public static Image I, J, L, S, Z, O, T;
+    private final GameLoop loop = new GameLoop(this.engine, new GameLoop.Listener() {
+        @Override
+        public void onStateChanged() {
+            repaintChanged();
+        }
 
-    /*
-     * 静态初始化块，对Image进行初始化
-     */
-    static {
-        try {
-            BACKGROUND = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/tetris.png")));
-            T = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/T.png")));
-            I = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/I.png")));
-            S = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/S.png")));
-            Z = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/Z.png")));
-            L = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/L.png")));
-            J = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/J.png")));
-            O = ImageIO.read(Objects.requireNonNull(
-                    TetrisPanel.class.getResource("../../../icon/O.png")));
-        } catch (Exception e) {
-            e.printStackTrace();
+        @Override
+        public void onGameOver() {
+            SwingUtilities.invokeLater(TetrisPanel.this::checkGameOver);
         }
-    }
+    });
 
     /**
-     * 游戏结果计数器，记录当前已消除行数
+     * 运行指标，注册为JMX MBean，可通过-Dtetris.metrics.dump=秒数定期输出到控制台
      */
-    private int lines;
+    private final GameMetrics metrics = new GameMetrics();
 
     /**
-     * 游戏结果计数器，记录当前已获得分数，得分增幅有梯度
+     * 游戏画面绘制器
      */
-    private int scores;
+    private final TetrisRenderer renderer = new TetrisRenderer(this.engine, getFont().getName());
 
     /**
-     * 游戏暂停标记
+     * 是否由Swing被动重绘，主动绘制模式下由ActiveRenderCanvas负责绘制
      */
-    private boolean isPause;
+    private volatile boolean isPassive = true;
 
     /**
-     * 游戏结束标记
+     * 上一次重绘时的面板修改计数、得分、行数和暂存区，用于判断是否需要整屏重绘
      */
-    private boolean isGameOver;
+    private int repaintedVersion = -1, repaintedScores = -1, repaintedLines = -1;
 
-    /**
-     * 当前下落方块组
-     */
-    private Tetromino tetromino;
+    private TetrominoType repaintedHeldType;
 
-    /**
-     * 下一个下落方块组
-     */
-    private Tetromino nextTetromino;
+    private boolean repaintedHoldUsed;
 
     /**
-     * 系统定时器，此类游戏必备
+     * 上一次重绘时当前方块组所在的矩形区域
      */
-    private Timer timer;
+    private int dirtyX, dirtyY, dirtyWidth, dirtyHeight;
 
     /**
-     * 面板方块填充情况记录
+     * 游戏核心流程入口，键盘输入由面板自身接收
      */
-    private final Cell[][] wall = new Cell[ROWS][COLS];
+    public void init() {
+        init(this);
+    }
 
     /**
      * 游戏核心流程入口
+     *
+     * @param inputTarget 接收键盘输入的组件
      */
-    public void init() {
+    public void init(Component inputTarget) {
+        // 每局的回放文件保存目录，可通过-Dtetris.record=目录指定
+        String recordDirectory = System.getProperty("tetris.record");
+        if (recordDirectory != null) {
+            this.loop.setRecordDirectory(new File(recordDirectory));
+        }
+        // 成绩记录文件，默认为用户目录下的.tetris/scores.ttsc，可通过-Dtetris.scores=文件指定，指定为空时不记录
+        String scoreFile = System.getProperty("tetris.scores",
+                new File(System.getProperty("user.home"), ".tetris/scores.ttsc").getPath());
+        if (!scoreFile.isEmpty()) {
+            this.loop.setScoreLog(openScoreLog(new File(scoreFile)));
+        }
+        // 运行指标
+        this.loop.setMetrics(this.metrics);
+        this.renderer.setMetrics(this.metrics);
+        this.metrics.register();
+        long dumpSeconds = Long.getLong("tetris.metrics.dump", 0L);
+        if (dumpSeconds > 0) {
+            this.metrics.startDump(dumpSeconds, TimeUnit.SECONDS, System.out);
+        }
+        // JFR自定义事件，可通过-Dtetris.jfr=true或-Dtetris.jfr=文件路径开启
+        JfrEvents.start();
+        // 练习模式，可通过-Dtetris.practice=true开启
+        this.loop.setPractice(Boolean.getBoolean("tetris.practice"));
+        // 自动平移和软降，可通过-Dtetris.das=毫秒、-Dtetris.arr=毫秒、-Dtetris.sdf=倍数调整
+        InputController input = this.loop.getInput();
+        input.setDasMillis(Long.getLong("tetris.das", InputController.DEFAULT_DAS_MILLIS));
+        input.setArrMillis(Long.getLong("tetris.arr", InputController.DEFAULT_ARR_MILLIS));
+        input.setSoftDropFactor(Integer.getInteger("tetris.sdf", InputController.DEFAULT_SOFT_DROP_FACTOR));
         // 开始游戏
         startGame();
         // 重新绘制内容
@@ -146,6 +159,8 @@ public class TetrisPanel extends JPanel {
              * VK_Q -> Q键 -> 退出游戏 <br>
              * VK_S -> S键 -> 如果游戏已结束则重新开始 <br>
              * VK_C -> C键 -> 如果游戏已暂停则恢复游戏 <br>
+             * VK_U -> U键 -> 练习模式下撤销到上一个方块组出现时 <br>
+             * VK_R -> R键 -> 练习模式下重做被撤销的方块组 <br>
              * 不满足以上条件，则执行chooseKeyPressAction()的进一步判断
              *
              * @param e 键盘事件
@@ -156,32 +171,64 @@ public class TetrisPanel extends JPanel {
                 if (key == KeyEvent.VK_Q) {
                     quitGame();
                 }
-                if (TetrisPanel.this.isGameOver) {
+                if (TetrisPanel.this.loop.isPractice()) {
+                    if (key == KeyEvent.VK_U) {
+                        TetrisPanel.this.loop.undo();
+                        return;
+                    }
+                    if (key == KeyEvent.VK_R) {
+                        TetrisPanel.this.loop.redo();
+                        return;
+                    }
+                }
+                if (TetrisPanel.this.loop.isGameOver()) {
                     if (key == KeyEvent.VK_S) {
                         startGame();
                     }
                     return;
                 }
-                if (TetrisPanel.this.isPause) {
+                if (TetrisPanel.this.loop.isPause()) {
                     if (key == KeyEvent.VK_C) {
                         continueGame();
                     }
                     return;
                 }
+                // 状态变化后由游戏主循环负责重绘
                 chooseKeyPressAction(key);
-                repaint();
+            }
+
+            /**
+             * 松开游戏操作键，结束自动平移或软降；暂停和结束时输入子系统已清空，不需要判断
+             *
+             * @param e 键盘事件
+             */
+            @Override
+            public void keyReleased(KeyEvent e) {
+                Action action = toAction(e.getKeyCode());
+                if (action != null) {
+                    TetrisPanel.this.loop.release(action);
+                }
             }
         };
         // 获取焦点
-        this.requestFocus();
-        // JPanel添加该事件监听器
-        this.addKeyListener(adaptor);
+        inputTarget.requestFocus();
+        // 接收输入的组件添加该事件监听器
+        inputTarget.addKeyListener(adaptor);
     }
 
     /**
      * 退出游戏并终止进程
      */
     private void quitGame() {
+        this.loop.shutdown();
+        ScoreLog scoreLog = this.loop.getScoreLog();
+        if (scoreLog != null) {
+            try {
+                scoreLog.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
         System.exit(0);
     }
 
@@ -189,385 +236,212 @@ public class TetrisPanel extends JPanel {
      * 游戏开始的初始化过程
      */
     public void startGame() {
-        clearWall();
-        this.tetromino = Tetromino.randomTetromino();
-        this.nextTetromino = Tetromino.randomTetromino();
-        this.lines = 0;
-        this.scores = 0;
-        this.isPause = false;
-        this.isGameOver = false;
-        this.timer = new Timer();
-        this.timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                dropSoft();
-                repaint();
+        if (this.pendingReplay != null) {
+            this.loop.replay(this.pendingReplay, Long.getLong("tetris.replay.from", 0L));
+            this.pendingReplay = null;
+        } else {
+            this.loop.restart();
+        }
+    }
+
+    /**
+     * 打开回放文件，打开失败时开始普通的一局
+     *
+     * @param path 回放文件路径，可为null
+     * @return 回放播放器，未指定或打开失败时返回null
+     */
+    private static ReplayPlayer openReplay(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            return new ReplayPlayer(new File(path));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 打开成绩记录文件，记录过多时先压缩，只保留最高分和最近的记录
+     *
+     * @param file 成绩记录文件
+     * @return 成绩记录文件，打开失败时返回null，不影响游戏；压缩失败时仍然返回未压缩的记录文件，除非已无法重新打开
+     */
+    private static ScoreLog openScoreLog(File file) {
+        ScoreLog scoreLog;
+        try {
+            scoreLog = new ScoreLog(file, ScoreLog.DEFAULT_TOP_CAPACITY);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (scoreLog.getRecordCount() >= ScoreLog.COMPACT_THRESHOLD) {
+            try {
+                scoreLog.compact(ScoreLog.KEEP_RECENT);
+            } catch (IOException e) {
+                // 压缩失败时ScoreLog已重新打开原文件，继续记录，下次启动再压缩
+                e.printStackTrace();
+                if (!scoreLog.isOpen()) {
+                    return null;
+                }
             }
-        }, 700, 700);
+        }
+        return scoreLog;
     }
 
     /**
      * 暂停后继续游戏进程
      */
     public void continueGame() {
-        this.timer = new Timer();
-        this.timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                dropSoft();
-                repaint();
-            }
-        }, 700, 700);
-        this.isPause = false;
+        this.loop.resume();
         repaint();
     }
 
     /**
      * 获取键盘输入后，对合法的键盘输入执行不同的操作：<br>
-     * VK_RIGHT -> 右键 -> 快速右移一格 <br>
-     * VK_LEFT -> 左键 -> 快速左移一格 <br>
-     * VK_DOWN -> 下键 -> 快速下降一格 <br>
+     * VK_RIGHT -> 右键 -> 右移一格，按住超过DAS后自动右移 <br>
+     * VK_LEFT -> 左键 -> 左移一格，按住超过DAS后自动左移 <br>
+     * VK_DOWN -> 下键 -> 下降一格，按住时按软降倍率加快下落 <br>
      * VK_UP -> 上键 -> 右旋 <br>
      * VK_Z -> Z键 -> 左旋 <br>
      * VK_SPACE -> 空格键 -> 直接落底 <br>
+     * VK_SHIFT/VK_C -> Shift键/C键 -> 暂存 <br>
      * VK_P -> P键 -> 暂停 <br>
      * 以上操作均在判断退出、重开、恢复之后进行判定
      *
      * @param key 键盘输入编码
      */
     private void chooseKeyPressAction(int key) {
+        if (key == KeyEvent.VK_P) {
+            pauseGame();
+            return;
+        }
+        Action action = toAction(key);
+        if (action != null) {
+            this.loop.press(action);
+        }
+    }
+
+    /**
+     * @param key 键盘输入编码
+     * @return 按键对应的游戏操作，不是游戏操作键时返回null
+     */
+    private static Action toAction(int key) {
         switch (key) {
             case KeyEvent.VK_RIGHT:
-                moveRight();
-                break;
+                return Action.MOVE_RIGHT;
             case KeyEvent.VK_LEFT:
-                moveLeft();
-                break;
+                return Action.MOVE_LEFT;
             case KeyEvent.VK_DOWN:
-                dropSoft();
-                break;
+                return Action.SOFT_DROP;
             case KeyEvent.VK_UP:
-                rotateRight();
-                break;
+                return Action.ROTATE_RIGHT;
             case KeyEvent.VK_Z:
-                rotateLeft();
-                break;
+                return Action.ROTATE_LEFT;
             case KeyEvent.VK_SPACE:
-                dropHard();
-                break;
-            case KeyEvent.VK_P:
-                pauseGame();
-                break;
+                return Action.HARD_DROP;
+            case KeyEvent.VK_SHIFT:
+            case KeyEvent.VK_C:
+                return Action.HOLD;
+            default:
+                return null;
         }
     }
 
-    /**
-     * 当前方块组快速右移一格
-     */
-    private void moveRight() {
-        this.tetromino.moveRight();
-        if (checkOutOfBound() || checkCoincide()) {
-            this.tetromino.moveLeft();
-        }
-    }
-
-    /**
-     * 当前方块组快速左移一格
-     */
-    private void moveLeft() {
-        this.tetromino.moveLeft();
-        if (checkOutOfBound() || checkCoincide()) {
-            this.tetromino.moveRight();
-        }
-    }
-
-    /**
-     * 当前方块组快速右旋一次
-     */
-    private void rotateRight() {
-        this.tetromino.rotateRight();
-        if (checkOutOfBound() || checkCoincide()) {
-            this.tetromino.rotateLeft();
-        }
-    }
-
-    /**
-     * 当前方块组快速左旋一次
-     */
-    private void rotateLeft() {
-        this.tetromino.rotateLeft();
-        if (checkOutOfBound() || checkCoincide()) {
-            this.tetromino.rotateRight();
-        }
-    }
-
-    /**
-     * 当前方块组快速下移一格
-     */
-    private void dropSoft() {
-        if (checkCanDrop()) {
-            this.tetromino.dropSoft();
-        } else {
-            tetrominoLandToWall();
-            destroyLines();
-            checkGameOver();
-            this.tetromino = this.nextTetromino;
-            this.nextTetromino = Tetromino.randomTetromino();
-        }
-    }
-
-    /**
-     * 当前方块组快速下落至底
-     */
-    private void dropHard() {
-        while (checkCanDrop()) {
-            this.tetromino.dropSoft();
-        }
-        tetrominoLandToWall();
-        destroyLines();
-        checkGameOver();
-        this.tetromino = this.nextTetromino;
-        this.nextTetromino = Tetromino.randomTetromino();
-    }
-
     /**
      * 暂停游戏进程
      */
     public void pauseGame() {
-        this.timer.cancel();
-        this.isPause = true;
+        this.loop.pause();
         repaint();
     }
 
     /**
-     * 当前方块组横向平移越界检查<br>
-     * 左移、右移、左旋、右旋四个操作都需要调用该检查<br>
-     * 和checkCoincide()均需要符合要求
-     *
-     * @return 当前方块组所执行的操作是否出现横向越界
-     */
-    private boolean checkOutOfBound() {
-        Cell[] cells = this.tetromino.getCells();
-        for (Cell cell : cells) {
-            int col = cell.getCol();
-            if (col < 0 || col >= COLS) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * 当前方块组横向平移重叠检查<br>
-     * 左移、右移、左旋、右旋四个操作都需要调用该检查，确保不会叠到已有方块上<br>
-     * 和checkOutOfBound()均需要符合要求
-     *
-     * @return 当前方块组所执行的操作是否出现横向重叠
+     * 游戏结束处理，由游戏主循环的结束事件在事件分发线程中触发，记录了成绩时显示名次和最高分，询问是否重新开始
      */
-    private boolean checkCoincide() {
-        Cell[] cells = this.tetromino.getCells();
-        for (Cell cell : cells) {
-            int row = cell.getRow();
-            int col = cell.getCol();
-            if (row < 0 || row >= ROWS || col < 0 || col >= COLS || this.wall[row][col] != null) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * 当前方块组下落的可行性检查<br>
-     * 下落前必须进行此操作，确保能合规下落
-     *
-     * @return 当前方块组是否可以继续下落
-     */
-    private boolean checkCanDrop() {
-        Cell[] cells = this.tetromino.getCells();
-        for (Cell cell : cells) {
-            int row = cell.getRow();
-            if (row == ROWS - 1) {
-                return false;
-            }
+    private void checkGameOver() {
+        repaint();
+        String message = "是否重新开始？";
+        ScoreLog scoreLog = this.loop.getScoreLog();
+        if (scoreLog != null) {
+            int rank = this.loop.getLastRank();
+            message = (rank >= 0 ? "本局排名第" + (rank + 1) + "，" : "") + "最高分: " + scoreLog.getBestScores()
+                    + "\n" + message;
         }
-        for (Cell cell : cells) {
-            int row = cell.getRow();
-            int col = cell.getCol();
-            if (this.wall[row + 1][col] != null) {
-                return false;
-            }
+        int option = JOptionPane.showConfirmDialog(this, message, "游戏结束", JOptionPane.YES_NO_OPTION);
+        if (option == JOptionPane.YES_OPTION) {
+            startGame();
         }
-        return true;
     }
 
     /**
-     * 下落后的方块数据更新<br>
-     * 在destroyLines()前执行
+     * 引擎状态变化后只重绘变化的区域：面板内容、记分或暂存区变化时整屏重绘，
+     * 否则只重绘当前方块组移动前后从方块组顶部到落点预览底部的矩形，由游戏主循环线程调用
      */
-    private void tetrominoLandToWall() {
-        Cell[] cells = this.tetromino.getCells();
-        for (Cell cell : cells) {
-            int row = cell.getRow();
-            int col = cell.getCol();
-            this.wall[row][col] = cell;
+    private void repaintChanged() {
+        if (!this.isPassive) {
+            return;
         }
-    }
-
-    /**
-     * 消除所有已填满的行<br>
-     * 下落后必须进行此操作，并且可能不止消除一行
-     */
-    private void destroyLines() {
-        int lines = 0;
-        for (int row = 0; row < wall.length; row++) {
-            if (checkLineFull(row)) {
-                destroyLine(row);
-                lines++;
+        synchronized (this.engine) {
+            Board wall = this.engine.getWall();
+            Tetromino tetromino = this.engine.getTetromino();
+            int x = TetrisRenderer.BOARD_OFFSET + tetromino.getLeft() * CELL_SIZE - 1;
+            int y = TetrisRenderer.BOARD_OFFSET + tetromino.getTop() * CELL_SIZE - 1;
+            int width = (tetromino.getRight() - tetromino.getLeft() + 1) * CELL_SIZE + 1;
+            // 落点预览与方块组同列，矩形向下延伸到落点预览的底部
+            int distance = wall.dropDistance(tetromino);
+            int height = (tetromino.getBottom() + distance - tetromino.getTop() + 1) * CELL_SIZE + 1;
+            if (wall.getVersion() != this.repaintedVersion || this.engine.getScores() != this.repaintedScores
+                    || this.engine.getLines() != this.repaintedLines
+                    || this.engine.getHeldType() != this.repaintedHeldType
+                    || this.engine.isHoldUsed() != this.repaintedHoldUsed) {
+                this.repaintedVersion = wall.getVersion();
+                this.repaintedScores = this.engine.getScores();
+                this.repaintedLines = this.engine.getLines();
+                this.repaintedHeldType = this.engine.getHeldType();
+                this.repaintedHoldUsed = this.engine.isHoldUsed();
+                repaint();
+            } else {
+                repaint(this.dirtyX, this.dirtyY, this.dirtyWidth, this.dirtyHeight);
+                repaint(x, y, width, height);
             }
+            this.dirtyX = x;
+            this.dirtyY = y;
+            this.dirtyWidth = width;
+            this.dirtyHeight = height;
         }
-        this.lines += lines;
-        this.scores += SCORE_CASCADES[lines];
     }
 
     /**
-     * 检查当前行是否已满
+     * 切换到主动绘制模式后，游戏主循环不再请求Swing重绘本面板
      *
-     * @param row 当前行号
-     * @return 当前行是否已满
+     * @param isPassive 是否由Swing被动重绘
      */
-    private boolean checkLineFull(int row) {
-        Cell[] line = this.wall[row];
-        for (Cell cell : line) {
-            if (cell == null) {
-                return false;
-            }
-        }
-        return true;
+    public void setPassive(boolean isPassive) {
+        this.isPassive = isPassive;
     }
 
-    /**
-     * 消除已满的当前行
-     *
-     * @param row 需要消除的行号
-     */
-    private void destroyLine(int row) {
-        for (int i = row; i >= 1; i--) {
-            System.arraycopy(this.wall[i - 1], 0, this.wall[i], 0, COLS);
-        }
-        Arrays.fill(this.wall[0], null);
+    public TetrisRenderer getRenderer() {
+        return this.renderer;
     }
 
-    /**
-     * 游戏结束判定
-     */
-    private void checkGameOver() {
-        if (this.wall[0][4] == null) {
-            return;
-        }
-        this.isGameOver = true;
-        this.timer.cancel();
-        repaint();
-        int option = JOptionPane.showConfirmDialog(this, "是否重新开始？", "游戏结束", JOptionPane.YES_NO_OPTION);
-        if (option == JOptionPane.YES_OPTION) {
-            startGame();
-        }
+    public GameLoop getLoop() {
+        return this.loop;
     }
 
-    /**
-     * 清空面板，重新开始
-     */
-    private void clearWall() {
-        for (int row = 0; row < ROWS; row++) {
-            Arrays.fill(this.wall[row], null);
-        }
+    public GameMetrics getMetrics() {
+        return this.metrics;
     }
 
     /**
-     * 分步绘制完整画面
+     * 绘制完整画面
      *
      * @param g Graphics对象
      */
     @Override
     public void paint(Graphics g) {
-        g.drawImage(BACKGROUND, 0, 0, null);
-        g.translate(15, 15);
-        paintTetromino(g);
-        paintWall(g);
-        paintNextTetromino(g);
-        paintScoreCount(g);
-    }
-
-    /**
-     * 绘制当前方块组的每个方块
-     *
-     * @param g Graphics对象
-     */
-    private void paintTetromino(Graphics g) {
-        Cell[] cells = this.tetromino.getCells();
-        for (Cell c : cells) {
-            int x = c.getCol() * CELL_SIZE - 1;
-            int y = c.getRow() * CELL_SIZE - 1;
-            g.drawImage(c.getImage(), x, y, null);
-        }
-    }
-
-    /**
-     * 绘制面板
-     *
-     * @param g Graphics对象
-     */
-    private void paintWall(Graphics g) {
-        for (int row = 0; row < this.wall.length; row++) {
-            Cell[] line = this.wall[row];
-            for (int col = 0; col < line.length; col++) {
-                Cell cell = line[col];
-                int x = col * CELL_SIZE;
-                int y = row * CELL_SIZE;
-                if (cell != null) {
-                    g.drawImage(cell.getImage(), x - 1, y - 1, null);
-                }
-            }
-        }
-    }
-
-    /**
-     * 绘制下一个方块组的每个方块
-     *
-     * @param g Graphics对象
-     */
-    private void paintNextTetromino(Graphics g) {
-        Cell[] cells = this.nextTetromino.getCells();
-        for (Cell c : cells) {
-            int x = (c.getCol() + 10) * CELL_SIZE - 1;
-            int y = (c.getRow() + 1) * CELL_SIZE - 1;
-            g.drawImage(c.getImage(), x, y, null);
-        }
-    }
-
-    /**
-     * 绘制记分版和提示版
-     *
-     * @param g Graphics对象
-     */
-    private void paintScoreCount(Graphics g) {
-        Font font = new Font(getFont().getName(), Font.BOLD, FONT_SIZE);
-        int x = 290, y = 162, height = 56;
-        g.setColor(new Color(FONT_COLOR));
-        g.setFont(font);
-        String notice = "得分: " + this.scores;
-        g.drawString(notice, x, y);
-        y += height;
-        notice = "行数: " + this.lines;
-        g.drawString(notice, x, y);
-        y += height;
-        notice = "[P]暂停";
-        if (this.isPause) {
-            notice = "[C]继续";
-        }
-        if (this.isGameOver) {
-            notice = "[S]重新开始";
-        }
-        g.drawString(notice, x, y);
+        this.renderer.render(g, getGraphicsConfiguration(), this.loop.isPause());
     }
 
 }
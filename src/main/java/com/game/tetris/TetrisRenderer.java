@@ -0,0 +1,361 @@
+package com.game.tetris;
+
+import static com.game.tetris.TetrisPanel.CELL_SIZE;
+import static com.game.tetris.TetrisPanel.COLS;
+import static com.game.tetris.TetrisPanel.FONT_COLOR;
+import static com.game.tetris.TetrisPanel.FONT_SIZE;
+import static com.game.tetris.TetrisPanel.ROWS;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+
+/**
+ * 游戏画面绘制器，被动绘制的TetrisPanel和主动绘制的ActiveRenderCanvas共用<br>
+ * 缓存背景加已落地方块的静态图层，每帧只绘制落点预览、当前方块组、预览队列、暂存区和记分版。
+ * 背景右侧附加一栏放置暂存区和下一个之后的预览，预览队列逐个拷贝预先拼好的方块组贴图
+ */
+public class TetrisRenderer {
+
+    /**
+     * 游戏区域相对画面左上角的偏移
+     */
+    public static final int BOARD_OFFSET = 15;
+
+    /**
+     * 背景右侧附加一栏的宽度，画面总宽度为背景图片宽度加上该值
+     */
+    public static final int SIDE_PANEL_WIDTH = 130;
+
+    /**
+     * 附加栏中暂存区和预览队列的方框，绝对坐标：左边、宽度，暂存区的上边、高度，预览队列的上边、高度
+     */
+    private static final int SIDE_BOX_X = 530, SIDE_BOX_WIDTH = 120;
+
+    private static final int HOLD_BOX_Y = 10, HOLD_BOX_HEIGHT = 118;
+
+    private static final int QUEUE_BOX_Y = 135, QUEUE_BOX_HEIGHT = 406;
+
+    /**
+     * 方框边框的宽度和颜色，与背景图片中的方框一致
+     */
+    private static final int BOX_BORDER = 5;
+
+    private static final Color BOX_COLOR = new Color(FONT_COLOR);
+
+    private static final Color PANEL_COLOR = new Color(0xDDEEFF);
+
+    /**
+     * 下一个方块组和暂存区的中心，相对游戏区域左上角
+     */
+    private static final int NEXT_CENTER_X = 385, HOLD_CENTER_X = SIDE_BOX_X + SIDE_BOX_WIDTH / 2 - BOARD_OFFSET;
+
+    private static final int NEXT_CENTER_Y = HOLD_BOX_Y + HOLD_BOX_HEIGHT / 2 - BOARD_OFFSET;
+
+    /**
+     * 预览队列中方块组的方块间距和行距，以及第一个的中心纵坐标，相对游戏区域左上角
+     */
+    private static final int QUEUE_CELL_SIZE = CELL_SIZE / 2, QUEUE_SPACING = 3 * QUEUE_CELL_SIZE;
+
+    private static final int QUEUE_FIRST_Y = QUEUE_BOX_Y + BOX_BORDER + QUEUE_SPACING / 2 - BOARD_OFFSET;
+
+    /**
+     * 预览队列最多显示的数量，更多的预览不绘制
+     */
+    private static final int QUEUE_CAPACITY = (QUEUE_BOX_HEIGHT - 2 * BOX_BORDER) / QUEUE_SPACING;
+
+    /**
+     * 记分版文字颜色
+     */
+    private static final Color SCORE_COLOR = new Color(FONT_COLOR);
+
+    /**
+     * 落点预览的半透明合成方式
+     */
+    private static final Composite GHOST_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.3f);
+
+    /**
+     * 游戏核心引擎
+     */
+    private final GameEngine engine;
+
+    /**
+     * 记分版字体
+     */
+    private final Font scoreFont;
+
+    /**
+     * 方块贴图集，首次绘制时按目标设备创建
+     */
+    private SpriteAtlas atlas;
+
+    /**
+     * 按引擎的旋转系统预先拼好的方块组贴图，下标为TetrominoType序号：正常大小用于下一个和暂存区，缩小的用于预览队列
+     */
+    private Image[] pieceSprites, queueSprites;
+
+    /**
+     * 缓存的静态图层：背景加已落地的方块，只在面板内容变化时重绘
+     */
+    private BufferedImage staticLayer;
+
+    /**
+     * 静态图层对应的面板修改计数
+     */
+    private int staticLayerVersion;
+
+    /**
+     * 记分版文字缓存，对应的数值变化时才重新拼接
+     */
+    private String scoresText, linesText;
+
+    private int cachedScores = -1, cachedLines = -1;
+
+    /**
+     * 运行指标，为null时不记录绘制耗时
+     */
+    private volatile GameMetrics metrics;
+
+    /**
+     * @param engine   游戏核心引擎
+     * @param fontName 记分版字体名称
+     */
+    public TetrisRenderer(GameEngine engine, String fontName) {
+        this.engine = engine;
+        this.scoreFont = new Font(fontName, Font.BOLD, FONT_SIZE);
+    }
+
+    /**
+     * 分步绘制完整画面：先贴静态图层，再绘制落点预览、当前方块组、预览队列、暂存区和记分版
+     *
+     * @param g             Graphics对象
+     * @param configuration 目标设备的图形配置，用于创建兼容格式的静态图层，可为null
+     * @param isPause       游戏是否已暂停
+     */
+    public void render(Graphics g, GraphicsConfiguration configuration, boolean isPause) {
+        long start = System.nanoTime();
+        if (this.atlas == null) {
+            this.atlas = SpriteAtlas.load(CELL_SIZE, configuration);
+            RotationSystem rotationSystem = this.engine.getRotationSystem();
+            this.pieceSprites = this.atlas.createPieceSprites(rotationSystem, CELL_SIZE, configuration);
+            this.queueSprites = this.atlas.createPieceSprites(rotationSystem, QUEUE_CELL_SIZE, configuration);
+        }
+        JfrEvents.Paint paint = JfrEvents.ENABLED ? JfrEvents.paintBegin() : null;
+        synchronized (this.engine) {
+            int version = this.staticLayerVersion;
+            g.drawImage(getStaticLayer(configuration), 0, 0, null);
+            g.translate(BOARD_OFFSET, BOARD_OFFSET);
+            paintGhost(g);
+            paintTetromino(g);
+            paintPreview(g);
+            paintHold(g);
+            paintScoreCount(g, isPause);
+            g.translate(-BOARD_OFFSET, -BOARD_OFFSET);
+            if (paint != null) {
+                JfrEvents.paintEnd(paint, version != this.staticLayerVersion, this.engine.getWall().getHeight());
+            }
+        }
+        GameMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.painted(start, System.nanoTime());
+        }
+    }
+
+    /**
+     * @param metrics 运行指标，记录绘制耗时和按键到画面的延迟
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取静态图层，面板内容变化后才重新绘制，调用方需持有引擎的锁
+     *
+     * @return 静态图层
+     */
+    private BufferedImage getStaticLayer(GraphicsConfiguration configuration) {
+        Board wall = this.engine.getWall();
+        if (this.staticLayer == null) {
+            int width = this.atlas.getBackground().getWidth(null) + SIDE_PANEL_WIDTH;
+            int height = this.atlas.getBackground().getHeight(null);
+            this.staticLayer = configuration != null
+                    ? configuration.createCompatibleImage(width, height)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            this.staticLayerVersion = wall.getVersion() - 1;
+        }
+        if (this.staticLayerVersion != wall.getVersion()) {
+            int width = this.staticLayer.getWidth();
+            Graphics g = this.staticLayer.createGraphics();
+            try {
+                g.drawImage(this.atlas.getBackground(), 0, 0, null);
+                paintSidePanel(g, width - SIDE_PANEL_WIDTH, this.staticLayer.getHeight());
+                g.translate(BOARD_OFFSET, BOARD_OFFSET);
+                paintWall(g);
+            } finally {
+                g.dispose();
+            }
+            this.staticLayerVersion = wall.getVersion();
+        }
+        return this.staticLayer;
+    }
+
+    /**
+     * 以半透明方式在直接落底的位置绘制当前方块组，下落行数由面板的列高度缓存得到
+     *
+     * @param g Graphics对象
+     */
+    private void paintGhost(Graphics g) {
+        if (this.engine.isGameOver() || !(g instanceof Graphics2D)) {
+            return;
+        }
+        Tetromino tetromino = this.engine.getTetromino();
+        int distance = this.engine.getWall().dropDistance(tetromino);
+        if (distance == 0) {
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g;
+        Composite composite = g2.getComposite();
+        g2.setComposite(GHOST_COMPOSITE);
+        int type = tetromino.getType().getId();
+        for (int i = 0; i < 4; i++) {
+            int x = tetromino.getCellCol(i) * CELL_SIZE;
+            int y = (tetromino.getCellRow(i) + distance) * CELL_SIZE;
+            this.atlas.drawTile(g2, type, x, y);
+        }
+        g2.setComposite(composite);
+    }
+
+    /**
+     * 绘制当前方块组的每个方块
+     *
+     * @param g Graphics对象
+     */
+    private void paintTetromino(Graphics g) {
+        Tetromino tetromino = this.engine.getTetromino();
+        int type = tetromino.getType().getId();
+        for (int i = 0; i < 4; i++) {
+            int x = tetromino.getCellCol(i) * CELL_SIZE;
+            int y = tetromino.getCellRow(i) * CELL_SIZE;
+            this.atlas.drawTile(g, type, x, y);
+        }
+    }
+
+    /**
+     * 绘制已落地的方块，只在重建静态图层时调用
+     *
+     * @param g Graphics对象
+     */
+    private void paintWall(Graphics g) {
+        Board wall = this.engine.getWall();
+        for (int row = 0; row < ROWS; row++) {
+            if (wall.getRow(row) == 0) {
+                continue;
+            }
+            for (int col = 0; col < COLS; col++) {
+                int type = wall.getType(row, col);
+                int x = col * CELL_SIZE;
+                int y = row * CELL_SIZE;
+                if (type != 0) {
+                    this.atlas.drawTile(g, type, x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * 绘制背景右侧的附加栏：底色、暂存区和预览队列的方框，只在重建静态图层时调用
+     *
+     * @param g      Graphics对象，未平移
+     * @param x      附加栏的左边
+     * @param height 附加栏的高度
+     */
+    private static void paintSidePanel(Graphics g, int x, int height) {
+        g.setColor(PANEL_COLOR);
+        g.fillRect(x, 0, SIDE_PANEL_WIDTH, height);
+        g.setColor(BOX_COLOR);
+        for (int i = 0; i < BOX_BORDER; i++) {
+            g.drawRect(SIDE_BOX_X + i, HOLD_BOX_Y + i, SIDE_BOX_WIDTH - 1 - 2 * i, HOLD_BOX_HEIGHT - 1 - 2 * i);
+            g.drawRect(SIDE_BOX_X + i, QUEUE_BOX_Y + i, SIDE_BOX_WIDTH - 1 - 2 * i, QUEUE_BOX_HEIGHT - 1 - 2 * i);
+        }
+    }
+
+    /**
+     * 在原来的方框中绘制下一个方块组，在附加栏中依次绘制之后的预览，直接读取引擎的预览，不创建新对象
+     *
+     * @param g Graphics对象
+     */
+    private void paintPreview(Graphics g) {
+        drawCentered(g, this.pieceSprites[this.engine.getNextTetromino().getType().ordinal()],
+                NEXT_CENTER_X, NEXT_CENTER_Y);
+        int count = Math.min(this.engine.getPreviewCount(), 1 + QUEUE_CAPACITY);
+        for (int i = 1; i < count; i++) {
+            drawCentered(g, this.queueSprites[this.engine.getPreview(i).ordinal()],
+                    HOLD_CENTER_X, QUEUE_FIRST_Y + (i - 1) * QUEUE_SPACING);
+        }
+    }
+
+    /**
+     * 绘制暂存区中的方块组，当前方块组已暂存过时以半透明方式绘制
+     *
+     * @param g Graphics对象
+     */
+    private void paintHold(Graphics g) {
+        TetrominoType heldType = this.engine.getHeldType();
+        if (heldType == null) {
+            return;
+        }
+        Image sprite = this.pieceSprites[heldType.ordinal()];
+        if (!this.engine.isHoldUsed() || !(g instanceof Graphics2D)) {
+            drawCentered(g, sprite, HOLD_CENTER_X, NEXT_CENTER_Y);
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g;
+        Composite composite = g2.getComposite();
+        g2.setComposite(GHOST_COMPOSITE);
+        drawCentered(g2, sprite, HOLD_CENTER_X, NEXT_CENTER_Y);
+        g2.setComposite(composite);
+    }
+
+    private static void drawCentered(Graphics g, Image sprite, int centerX, int centerY) {
+        g.drawImage(sprite, centerX - sprite.getWidth(null) / 2, centerY - sprite.getHeight(null) / 2, null);
+    }
+
+    /**
+     * 绘制记分版和提示版
+     *
+     * @param g       Graphics对象
+     * @param isPause 游戏是否已暂停
+     */
+    private void paintScoreCount(Graphics g, boolean isPause) {
+        if (this.cachedScores != this.engine.getScores()) {
+            this.cachedScores = this.engine.getScores();
+            this.scoresText = "得分: " + this.cachedScores;
+        }
+        if (this.cachedLines != this.engine.getLines()) {
+            this.cachedLines = this.engine.getLines();
+            this.linesText = "行数: " + this.cachedLines;
+        }
+        int x = 290, y = 162, height = 56;
+        g.setColor(SCORE_COLOR);
+        g.setFont(this.scoreFont);
+        g.drawString(this.scoresText, x, y);
+        y += height;
+        g.drawString(this.linesText, x, y);
+        y += height;
+        String notice = "[P]暂停";
+        if (isPause) {
+            notice = "[C]继续";
+        }
+        if (this.engine.isGameOver()) {
+            notice = "[S]重新开始";
+        }
+        g.drawString(notice, x, y);
+    }
+
+}
@@ -1,240 +1,646 @@
 package com.game.tetris;
 
 import java.util.Arrays;
-import java.util.Random;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
 
 /**
- * 四格拼板类，对应俄罗斯方块的一个方块组
+ * 四格拼板类，对应俄罗斯方块的一个方块组<br>
+ * 方块组只记录(旋转系统, 类型, 旋转状态, 行, 列)，四枚方块的位置和踢墙偏移由类加载时构建的静态表计算得到，
+ * 生成、移动、旋转均不创建新对象。各静态表以"形状"为第一维下标：形状 = 旋转系统序号 * 类型数量 + 类型序号
  */
 public class Tetromino {
 
     /**
-     * 随机数生成器
+     * 方块组类型数量
+     */
+    private static final int TYPE_COUNT = TetrominoType.values().length;
+
+    /**
+     * 经典旋转的状态偏移表：[类型][状态][dr0, dc0, dr1, dc1, dr2, dc2, dr3, dc3]<br>
+     * 偏移相对于基准方块(第0枚)，旋转时基准方块不动<br>
+     * 类型顺序与TetrominoType一致：T, I, J, L, O, S, Z
+     */
+    private static final int[][][] CLASSIC_OFFSETS = {
+            {
+                    {0, 0, 0, -1, 0, 1, 1, 0},
+                    {0, 0, -1, 0, 1, 0, 0, -1},
+                    {0, 0, 0, 1, 0, -1, -1, 0},
+                    {0, 0, 1, 0, -1, 0, 0, 1}
+            },
+            {
+                    {0, 0, 0, -1, 0, 1, 0, 2},
+                    {0, 0, -1, 0, 1, 0, 2, 0}
+            },
+            {
+                    {0, 0, 0, -1, 0, 1, 1, 1},
+                    {0, 0, -1, 0, 1, 0, 1, -1},
+                    {0, 0, 0, 1, 0, -1, -1, -1},
+                    {0, 0, 1, 0, -1, 0, -1, 1}
+            },
+            {
+                    {0, 0, 0, -1, 0, 1, 1, -1},
+                    {0, 0, -1, 0, 1, 0, -1, -1},
+                    {0, 0, 0, 1, 0, -1, -1, 1},
+                    {0, 0, 1, 0, -1, 0, 1, 1}
+            },
+            {
+                    {0, 0, 0, 1, 1, 0, 1, 1}
+            },
+            {
+                    {0, 0, 0, 1, 1, -1, 1, 0},
+                    {0, 0, -1, 0, 1, 1, 0, 1}
+            },
+            {
+                    {0, 0, -1, -1, -1, 0, 0, 1},
+                    {0, 0, -1, 1, 0, 1, 1, 0}
+            }
+    };
+
+    /**
+     * SRS的状态偏移表，格式同CLASSIC_OFFSETS<br>
+     * 偏移相对于包围框(J、L、S、T、Z为3x3，I为4x4)第1行第1列的基准点，各状态由初始状态在包围框内顺时针旋转得到，
+     * 不踢墙时旋转前后基准点不动；O的四个状态相同
+     */
+    private static final int[][][] SRS_OFFSETS = {
+            {
+                    {-1, 0, 0, -1, 0, 0, 0, 1},
+                    {0, 1, -1, 0, 0, 0, 1, 0},
+                    {1, 0, 0, 1, 0, 0, 0, -1},
+                    {0, -1, 1, 0, 0, 0, -1, 0}
+            },
+            {
+                    {0, -1, 0, 0, 0, 1, 0, 2},
+                    {-1, 1, 0, 1, 1, 1, 2, 1},
+                    {1, 2, 1, 1, 1, 0, 1, -1},
+                    {2, 0, 1, 0, 0, 0, -1, 0}
+            },
+            {
+                    {-1, -1, 0, -1, 0, 0, 0, 1},
+                    {-1, 1, -1, 0, 0, 0, 1, 0},
+                    {1, 1, 0, 1, 0, 0, 0, -1},
+                    {1, -1, 1, 0, 0, 0, -1, 0}
+            },
+            {
+                    {-1, 1, 0, -1, 0, 0, 0, 1},
+                    {1, 1, -1, 0, 0, 0, 1, 0},
+                    {1, -1, 0, 1, 0, 0, 0, -1},
+                    {-1, -1, 1, 0, 0, 0, -1, 0}
+            },
+            {
+                    {-1, 0, -1, 1, 0, 0, 0, 1},
+                    {-1, 0, -1, 1, 0, 0, 0, 1},
+                    {-1, 0, -1, 1, 0, 0, 0, 1},
+                    {-1, 0, -1, 1, 0, 0, 0, 1}
+            },
+            {
+                    {-1, 0, -1, 1, 0, -1, 0, 0},
+                    {0, 1, 1, 1, -1, 0, 0, 0},
+                    {1, 0, 1, -1, 0, 1, 0, 0},
+                    {0, -1, -1, -1, 1, 0, 0, 0}
+            },
+            {
+                    {-1, -1, -1, 0, 0, 0, 0, 1},
+                    {-1, 1, 0, 1, 0, 0, 1, 0},
+                    {1, 1, 1, 0, 0, 0, 0, -1},
+                    {1, -1, 0, -1, 0, 0, -1, 0}
+            }
+    };
+
+    /**
+     * SRS踢墙表中各行对应的(起始状态, 目标状态)，状态0/1/2/3即通常记作0/R/2/L的状态
+     */
+    private static final int[][] SRS_TRANSITIONS = {
+            {0, 1}, {1, 0}, {1, 2}, {2, 1}, {2, 3}, {3, 2}, {3, 0}, {0, 3}
+    };
+
+    /**
+     * J、L、S、T、Z的SRS标准踢墙表，每行与SRS_TRANSITIONS对应，依次为5个测试偏移(x, y)，x向右为正，y向上为正
+     */
+    private static final int[][] SRS_JLSTZ_KICKS = {
+            {0, 0, -1, 0, -1, 1, 0, -2, -1, -2},
+            {0, 0, 1, 0, 1, -1, 0, 2, 1, 2},
+            {0, 0, 1, 0, 1, -1, 0, 2, 1, 2},
+            {0, 0, -1, 0, -1, 1, 0, -2, -1, -2},
+            {0, 0, 1, 0, 1, 1, 0, -2, 1, -2},
+            {0, 0, -1, 0, -1, -1, 0, 2, -1, 2},
+            {0, 0, -1, 0, -1, -1, 0, 2, -1, 2},
+            {0, 0, 1, 0, 1, 1, 0, -2, 1, -2}
+    };
+
+    /**
+     * I的SRS标准踢墙表，格式同SRS_JLSTZ_KICKS
+     */
+    private static final int[][] SRS_I_KICKS = {
+            {0, 0, -2, 0, 1, 0, -2, -1, 1, 2},
+            {0, 0, 2, 0, -1, 0, 2, 1, -1, -2},
+            {0, 0, -1, 0, 2, 0, -1, 2, 2, -1},
+            {0, 0, 1, 0, -2, 0, 1, -2, -2, 1},
+            {0, 0, 2, 0, -1, 0, 2, 1, -1, -2},
+            {0, 0, -2, 0, 1, 0, -2, -1, 1, 2},
+            {0, 0, 1, 0, -2, 0, 1, -2, -2, 1},
+            {0, 0, -1, 0, 2, 0, -1, 2, 2, -1}
+    };
+
+    /**
+     * 各形状生成时基准方块所在行
+     */
+    private static final int[] SPAWN_ROWS = {
+            0, 0, 0, 0, 0, 0, 1,
+            1, 0, 1, 1, 1, 1, 1
+    };
+
+    /**
+     * 生成时基准方块所在列
      */
-    private static final Random RANDOM = new Random();
+    private static final int SPAWN_COL = 4;
 
     /**
-     * 四枚方块的集合
+     * 状态偏移表：[形状][状态][dr0, dc0, dr1, dc1, dr2, dc2, dr3, dc3]
      */
-    private final Cell[] cells;
+    private static final int[][][] OFFSETS;
 
     /**
-     * 方块组可能的状态集合
+     * 踢墙表：[形状][起始状态 * 4 + 目标状态][dr0, dc0, ...]，旋转时依次尝试各偏移，最多5个；经典旋转只有(0, 0)
      */
-    private final State[] states;
+    private static final int[][][] KICKS;
 
     /**
-     * 设置一个大的数为了避免出现
+     * 各形状平移后互不相同的旋转状态数量，这些状态总是排在最前面
      */
-    private int index;
+    private static final int[] DISTINCT_ROTATIONS;
 
-    public Tetromino(Cell[] cells, State[] states) {
-        this.cells = cells;
-        this.states = states;
-        this.index = 100000;
+    /**
+     * 朝向表：[形状][状态][dr, dc]，只对T有意义，为凸出的那枚方块相对中心(基准方块)的偏移，用于T旋判定
+     */
+    private static final int[][][] FACINGS;
+
+    /**
+     * 包围盒表：[形状][状态][minDr, maxDr, minDc, maxDc]
+     */
+    private static final int[][][] BOUNDS;
+
+    /**
+     * 行位图表：[形状][状态][包围盒内第i行]，第j位对应列偏移minDc + j
+     */
+    private static final int[][][] ROW_MASKS;
+
+    /**
+     * 底部轮廓表：[形状][状态][包围盒内第j列]，值为该列最下方方块相对基准方块的行偏移
+     */
+    private static final int[][][] BOTTOMS;
+
+    /*
+     * 静态初始化块，合并各旋转系统的偏移表，转换踢墙表，再一次性构建包围盒表、行位图表和底部轮廓表
+     */
+    static {
+        int shapes = RotationSystem.values().length * TYPE_COUNT;
+        OFFSETS = new int[shapes][][];
+        KICKS = new int[shapes][][];
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            int classic = RotationSystem.CLASSIC.ordinal() * TYPE_COUNT + type;
+            OFFSETS[classic] = CLASSIC_OFFSETS[type];
+            KICKS[classic] = new int[16][];
+            int states = CLASSIC_OFFSETS[type].length;
+            for (int from = 0; from < states; from++) {
+                KICKS[classic][(from << 2) | ((from + 1) % states)] = new int[]{0, 0};
+                KICKS[classic][(from << 2) | ((from + states - 1) % states)] = new int[]{0, 0};
+            }
+            int srs = RotationSystem.SRS.ordinal() * TYPE_COUNT + type;
+            OFFSETS[srs] = SRS_OFFSETS[type];
+            KICKS[srs] = new int[16][];
+            int[][] table = type == TetrominoType.I.ordinal() ? SRS_I_KICKS : SRS_JLSTZ_KICKS;
+            for (int i = 0; i < SRS_TRANSITIONS.length; i++) {
+                // O不需要踢墙，只保留原地旋转
+                int[] xy = type == TetrominoType.O.ordinal() ? new int[]{0, 0} : table[i];
+                int[] kicks = new int[xy.length];
+                for (int j = 0; j < xy.length; j += 2) {
+                    kicks[j] = -xy[j + 1];
+                    kicks[j + 1] = xy[j];
+                }
+                KICKS[srs][(SRS_TRANSITIONS[i][0] << 2) | SRS_TRANSITIONS[i][1]] = kicks;
+            }
+        }
+        BOUNDS = new int[shapes][][];
+        ROW_MASKS = new int[shapes][][];
+        BOTTOMS = new int[shapes][][];
+        DISTINCT_ROTATIONS = new int[shapes];
+        FACINGS = new int[shapes][][];
+        for (int shape = 0; shape < shapes; shape++) {
+            int[][] states = OFFSETS[shape];
+            BOUNDS[shape] = new int[states.length][];
+            ROW_MASKS[shape] = new int[states.length][];
+            BOTTOMS[shape] = new int[states.length][];
+            FACINGS[shape] = new int[states.length][];
+            for (int state = 0; state < states.length; state++) {
+                int[] offsets = states[state];
+                int minDr = Integer.MAX_VALUE, maxDr = Integer.MIN_VALUE;
+                int minDc = Integer.MAX_VALUE, maxDc = Integer.MIN_VALUE;
+                for (int i = 0; i < offsets.length; i += 2) {
+                    minDr = Math.min(minDr, offsets[i]);
+                    maxDr = Math.max(maxDr, offsets[i]);
+                    minDc = Math.min(minDc, offsets[i + 1]);
+                    maxDc = Math.max(maxDc, offsets[i + 1]);
+                }
+                int[] masks = new int[maxDr - minDr + 1];
+                for (int i = 0; i < offsets.length; i += 2) {
+                    masks[offsets[i] - minDr] |= 1 << (offsets[i + 1] - minDc);
+                }
+                int[] bottoms = new int[maxDc - minDc + 1];
+                Arrays.fill(bottoms, Integer.MIN_VALUE);
+                for (int i = 0; i < offsets.length; i += 2) {
+                    int j = offsets[i + 1] - minDc;
+                    bottoms[j] = Math.max(bottoms[j], offsets[i]);
+                }
+                BOUNDS[shape][state] = new int[]{minDr, maxDr, minDc, maxDc};
+                ROW_MASKS[shape][state] = masks;
+                BOTTOMS[shape][state] = bottoms;
+                FACINGS[shape][state] = facingOf(offsets);
+            }
+            // 行位图相同即平移后相同，第一个与之前某个状态重复的状态之后不再有新的形状
+            int distinct = 1;
+            while (distinct < states.length && !isRepeated(ROW_MASKS[shape], distinct)) {
+                distinct++;
+            }
+            DISTINCT_ROTATIONS[shape] = distinct;
+        }
     }
 
     /**
-     * 方块组当前状态内部类
+     * 找出反方向没有方块的那枚相邻方块，对T即为凸出的方向；其他类型没有这样的方块时返回(0, 0)
      */
-    @AllArgsConstructor
-    @NoArgsConstructor
-    @Data
-    private static class State {
-        private int row0, col0, row1, col1, row2, col2, row3, col3;
+    private static int[] facingOf(int[] offsets) {
+        for (int i = 0; i < offsets.length; i += 2) {
+            int dr = offsets[i], dc = offsets[i + 1];
+            if (Math.abs(dr) + Math.abs(dc) != 1) {
+                continue;
+            }
+            boolean isOpposed = false;
+            for (int j = 0; j < offsets.length; j += 2) {
+                isOpposed |= offsets[j] == -dr && offsets[j + 1] == -dc;
+            }
+            if (!isOpposed) {
+                return new int[]{dr, dc};
+            }
+        }
+        return new int[]{0, 0};
     }
 
     /**
-     * 根据生成的随机数生成Tetromino对象：<br>
-     * case 0 -> T <br>
-     * case 1 -> I <br>
-     * case 2 -> J <br>
-     * case 3 -> L <br>
-     * case 4 -> O <br>
-     * case 5 -> S <br>
-     * case 6 -> Z <br>
-     * default -> 不存在
-     *
-     * @return 对应的Tetromino对象
-     */
-    public static Tetromino randomTetromino() {
-        switch (RANDOM.nextInt(7)) {
-            case 0:
-                return new Tetromino(
-                        new Cell[]{
-                                new Cell(0, 4, TetrisPanel.T),
-                                new Cell(0, 3, TetrisPanel.T),
-                                new Cell(0, 5, TetrisPanel.T),
-                                new Cell(1, 4, TetrisPanel.T)
-                        },
-                        new Tetromino.State[]{
-                                new State(0, 0, 0, -1, 0, 1, 1, 0),
-                                new State(0, 0, -1, 0, 1, 0, 0, -1),
-                                new State(0, 0, 0, 1, 0, -1, -1, 0),
-                                new State(0, 0, 1, 0, -1, 0, 0, 1)
-                        }
-                );
-            case 1:
-                return new Tetromino(
-                        new Cell[]{
-                                new Cell(0, 4, TetrisPanel.I),
-                                new Cell(0, 3, TetrisPanel.I),
-                                new Cell(0, 5, TetrisPanel.I),
-                                new Cell(0, 6, TetrisPanel.I)
-                        },
-                        new Tetromino.State[]{
-                                new State(0, 0, 0, 1, 0, -1, 0, -2),
-                                new State(0, 0, -1, 0, 1, 0, 2, 0)
-                        }
-                );
-            case 2:
-                return new Tetromino(
-                        new Cell[]{
-                                new Cell(0, 4, TetrisPanel.J),
-                                new Cell(0, 3, TetrisPanel.J),
-                                new Cell(0, 5, TetrisPanel.J),
-                                new Cell(1, 5, TetrisPanel.J)
-                        },
-                        new Tetromino.State[]{
-                                new State(0, 0, 0, -1, 0, 1, 1, 1),
-                                new State(0, 0, -1, 0, 1, 0, 1, -1),
-                                new State(0, 0, 0, 1, 0, -1, -1, -1),
-                                new State(0, 0, 1, 0, -1, 0, -1, 1)
-                        }
-                );
-            case 3:
-                return new Tetromino(
-                        new Cell[]{
-                                new Cell(0, 4, TetrisPanel.L),
-                                new Cell(0, 3, TetrisPanel.L),
-                                new Cell(0, 5, TetrisPanel.L),
-                                new Cell(1, 3, TetrisPanel.L)
-                        },
-                        new Tetromino.State[]{
-                                new State(0, 0, 0, -1, 0, 1, 1, -1),
-                                new State(0, 0, -1, 0, 1, 0, -1, -1),
-                                new State(0, 0, 0, 1, 0, -1, -1, 1),
-                                new State(0, 0, 1, 0, -1, 0, 1, 1)
-                        }
-                );
-            case 4:
-                return new Tetromino(
-                        new Cell[]{
-                                new Cell(0, 4, TetrisPanel.O),
-                                new Cell(0, 5, TetrisPanel.O),
-                                new Cell(1, 4, TetrisPanel.O),
-                                new Cell(1, 5, TetrisPanel.O)
-                        },
-                        new Tetromino.State[]{
-                                new State(0, 0, 0, 1, 1, 0, 1, 1),
-                                new State(0, 0, 0, 1, 1, 0, 1, 1)
-                        }
-                );
-            case 5:
-                return new Tetromino(
-                        new Cell[]{
-                                new Cell(0, 4, TetrisPanel.S),
-                                new Cell(0, 5, TetrisPanel.S),
-                                new Cell(1, 3, TetrisPanel.S),
-                                new Cell(1, 4, TetrisPanel.S)
-                        },
-                        new Tetromino.State[]{
-                                new State(0, 0, 0, 1, 1, -1, 1, 0),
-                                new State(0, 0, -1, 0, 1, 1, 0, 1)
-                        }
-                );
-            case 6:
-                return new Tetromino(
-                        new Cell[]{
-                                new Cell(1, 4, TetrisPanel.Z),
-                                new Cell(0, 3, TetrisPanel.Z),
-                                new Cell(0, 4, TetrisPanel.Z),
-                                new Cell(1, 5, TetrisPanel.Z)
-                        },
-                        new Tetromino.State[]{
-                                new State(0, 0, -1, -1, -1, 0, 0, 1),
-                                new State(0, 0, -1, 1, 0, 1, 1, 0)
-                        }
-                );
-            default:
-                return null;
+     * @return 第state个状态的行位图是否与之前某个状态相同
+     */
+    private static boolean isRepeated(int[][] masks, int state) {
+        for (int i = 0; i < state; i++) {
+            if (Arrays.equals(masks[i], masks[state])) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * 旋转系统
+     */
+    private RotationSystem rotationSystem;
+
+    /**
+     * 方块组类型
+     */
+    private TetrominoType type;
+
+    /**
+     * 形状，即各静态表的第一维下标
+     */
+    private int shape;
+
+    /**
+     * 当前旋转状态
+     */
+    private int rotation;
+
+    /**
+     * 基准方块所在行
+     */
+    private int row;
+
+    /**
+     * 基准方块所在列
+     */
+    private int col;
+
+    /**
+     * 使用SRS旋转
+     *
+     * @param type 方块组类型
+     */
+    public Tetromino(TetrominoType type) {
+        this(type, RotationSystem.SRS);
+    }
+
+    /**
+     * @param type           方块组类型
+     * @param rotationSystem 旋转系统
+     */
+    public Tetromino(TetrominoType type, RotationSystem rotationSystem) {
+        this.rotationSystem = rotationSystem;
+        spawn(type);
+    }
+
+    /**
+     * 复用当前对象，以给定类型回到初始位置和初始状态
+     *
+     * @param type 方块组类型
+     */
+    public void spawn(TetrominoType type) {
+        this.type = type;
+        this.shape = shapeOf(this.rotationSystem, type);
+        this.rotation = 0;
+        this.row = SPAWN_ROWS[this.shape];
+        this.col = SPAWN_COL;
+    }
+
+    /**
+     * 切换旋转系统并回到初始位置和初始状态，供复用的搜索用方块组跟随引擎的设置
+     *
+     * @param rotationSystem 旋转系统
+     */
+    public void setRotationSystem(RotationSystem rotationSystem) {
+        this.rotationSystem = rotationSystem;
+        spawn(this.type);
+    }
+
+    /**
+     * 复用当前对象，直接放到给定的状态和位置，不做碰撞检查，供落点搜索使用
+     *
+     * @param type     方块组类型
+     * @param rotation 旋转状态，取值0~getStateCount()-1
+     * @param row      基准方块所在行
+     * @param col      基准方块所在列
+     */
+    public void place(TetrominoType type, int rotation, int row, int col) {
+        this.type = type;
+        this.shape = shapeOf(this.rotationSystem, type);
+        this.rotation = rotation;
+        this.row = row;
+        this.col = col;
+    }
+
+    private static int shapeOf(RotationSystem rotationSystem, TetrominoType type) {
+        return rotationSystem.ordinal() * TYPE_COUNT + type.ordinal();
+    }
+
+    /**
+     * 平移后互不相同的旋转状态总是排在最前面，从状态0依次右转即可到达全部形状
+     *
+     * @param rotationSystem 旋转系统
+     * @param type           方块组类型
+     * @return 该类型平移后互不相同的旋转状态数量
+     */
+    public static int getRotationCount(RotationSystem rotationSystem, TetrominoType type) {
+        return DISTINCT_ROTATIONS[shapeOf(rotationSystem, type)];
+    }
+
+    /**
+     * @param rotationSystem 旋转系统
+     * @param type           方块组类型
+     * @return 生成时基准方块所在行
+     */
+    public static int getSpawnRow(RotationSystem rotationSystem, TetrominoType type) {
+        return SPAWN_ROWS[shapeOf(rotationSystem, type)];
     }
 
     /**
-     * 只能有get不能有set
+     * @return 生成时基准方块所在列
+     */
+    public static int getSpawnCol() {
+        return SPAWN_COL;
+    }
+
+    /**
+     * @return 旋转系统
+     */
+    public RotationSystem getRotationSystem() {
+        return this.rotationSystem;
+    }
+
+    /**
+     * @return 方块组类型
+     */
+    public TetrominoType getType() {
+        return this.type;
+    }
+
+    /**
+     * @return 当前旋转状态
+     */
+    public int getRotation() {
+        return this.rotation;
+    }
+
+    /**
+     * @return 旋转时循环经过的状态数量，SRS下总是4
+     */
+    public int getStateCount() {
+        return OFFSETS[this.shape].length;
+    }
+
+    /**
+     * @return 基准方块所在行
+     */
+    public int getRow() {
+        return this.row;
+    }
+
+    /**
+     * @return 基准方块所在列
+     */
+    public int getCol() {
+        return this.col;
+    }
+
+    /**
+     * @param i 方块下标，取值0~3
+     * @return 第i枚方块所在行
+     */
+    public int getCellRow(int i) {
+        return this.row + OFFSETS[this.shape][this.rotation][i << 1];
+    }
+
+    /**
+     * @param i 方块下标，取值0~3
+     * @return 第i枚方块所在列
+     */
+    public int getCellCol(int i) {
+        return this.col + OFFSETS[this.shape][this.rotation][(i << 1) + 1];
+    }
+
+    /**
+     * @return T凸出方向的行偏移，取值-1~1，其他类型没有意义
+     */
+    public int getFacingRow() {
+        return FACINGS[this.shape][this.rotation][0];
+    }
+
+    /**
+     * @return T凸出方向的列偏移，取值-1~1，其他类型没有意义
+     */
+    public int getFacingCol() {
+        return FACINGS[this.shape][this.rotation][1];
+    }
+
+    /**
+     * @return 包围盒最上方的行
+     */
+    public int getTop() {
+        return this.row + BOUNDS[this.shape][this.rotation][0];
+    }
+
+    /**
+     * @return 包围盒最下方的行
+     */
+    public int getBottom() {
+        return this.row + BOUNDS[this.shape][this.rotation][1];
+    }
+
+    /**
+     * @return 包围盒最左侧的列
+     */
+    public int getLeft() {
+        return this.col + BOUNDS[this.shape][this.rotation][2];
+    }
+
+    /**
+     * @return 包围盒最右侧的列
+     */
+    public int getRight() {
+        return this.col + BOUNDS[this.shape][this.rotation][3];
+    }
+
+    /**
+     * @return 包围盒的行数
+     */
+    public int getHeight() {
+        return ROW_MASKS[this.shape][this.rotation].length;
+    }
+
+    /**
+     * @return 包围盒的列数
+     */
+    public int getWidth() {
+        return BOTTOMS[this.shape][this.rotation].length;
+    }
+
+    /**
+     * @param j 包围盒内的列下标，取值0~getWidth()-1
+     * @return 该列最下方方块所在行
+     */
+    public int getColumnBottom(int j) {
+        return this.row + BOTTOMS[this.shape][this.rotation][j];
+    }
+
+    /**
+     * 获取包围盒内第i行的位图，已按包围盒最左侧的列平移，调用前需保证getLeft()不小于0
+     *
+     * @param i 包围盒内的行下标
+     * @return 与Board行位图对齐的位图
+     */
+    public int getRowMask(int i) {
+        return ROW_MASKS[this.shape][this.rotation][i] << getLeft();
+    }
+
+    /**
+     * 每次调用都会新建Cell对象，仅用于调试输出，热点路径请使用getCellRow()/getCellCol()
      *
-     * @return 获取Cell集合
+     * @return 当前四枚方块的快照
      */
     public Cell[] getCells() {
-        return this.cells;
+        Cell[] cells = new Cell[4];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new Cell(getCellRow(i), getCellCol(i), this.type.getId());
+        }
+        return cells;
     }
 
     /**
      * 所有方块下落一格
      */
     public void dropSoft() {
-        for (Cell cell : this.cells) {
-            cell.moveDown();
-        }
+        this.row++;
+    }
+
+    /**
+     * 所有方块下落若干格
+     *
+     * @param rows 下落的行数
+     */
+    public void dropBy(int rows) {
+        this.row += rows;
     }
 
     /**
      * 所有方块右移一格
      */
     public void moveRight() {
-        for (Cell cell : this.cells) {
-            cell.moveRight();
-        }
+        this.col++;
     }
 
     /**
      * 所有方块左移一格
      */
     public void moveLeft() {
-        for (Cell cell : this.cells) {
-            cell.moveLeft();
-        }
+        this.col--;
     }
 
     /**
-     * 方块组左转一次
+     * 按旋转系统转到相邻状态，依次尝试踢墙表中的偏移，第一个不与面板碰撞的位置生效，不创建新对象
+     *
+     * @param board       面板
+     * @param isClockwise 是否右转
+     * @return 生效的偏移下标，0表示原地旋转；所有偏移都碰撞时返回-1，方块组保持不变
      */
-    public void rotateRight() {
-        this.index++;
-        rotate();
+    public int rotate(Board board, boolean isClockwise) {
+        int states = OFFSETS[this.shape].length;
+        int from = this.rotation, row = this.row, col = this.col;
+        int to = isClockwise ? (from + 1) % states : (from + states - 1) % states;
+        int[] kicks = KICKS[this.shape][(from << 2) | to];
+        this.rotation = to;
+        for (int i = 0; i < kicks.length; i += 2) {
+            this.row = row + kicks[i];
+            this.col = col + kicks[i + 1];
+            if (!board.collides(this)) {
+                return i >> 1;
+            }
+        }
+        this.rotation = from;
+        this.row = row;
+        this.col = col;
+        return -1;
     }
 
     /**
-     * 方块组右转一次
+     * 方块组右转一次，不做碰撞检查也不踢墙
      */
-    public void rotateLeft() {
-        this.index--;
-        rotate();
+    public void rotateRight() {
+        int states = OFFSETS[this.shape].length;
+        this.rotation = (this.rotation + 1) % states;
     }
 
     /**
-     * 方块组旋转，通过获取上一个或下一个状态来实现，需要取模运算，基于大的index初始值防止出现负数<br>
-     * 围绕着cells[0]旋转所以其作为基准不变
+     * 方块组左转一次，不做碰撞检查也不踢墙
      */
-    private void rotate() {
-        State state = this.states[this.index % this.states.length];
-        Cell cell = this.cells[0];
-        this.cells[1].setRow(cell.getRow() + state.getRow1());
-        this.cells[1].setCol(cell.getCol() + state.getCol1());
-        this.cells[2].setRow(cell.getRow() + state.getRow2());
-        this.cells[2].setCol(cell.getCol() + state.getCol2());
-        this.cells[3].setRow(cell.getRow() + state.getRow3());
-        this.cells[3].setCol(cell.getCol() + state.getCol3());
+    public void rotateLeft() {
+        int states = OFFSETS[this.shape].length;
+        this.rotation = (this.rotation + states - 1) % states;
     }
 
     @Override
     public String toString() {
-        return Arrays.toString(this.cells);
+        StringBuilder builder = new StringBuilder().append(this.type).append('[');
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append('(').append(getCellRow(i)).append(", ").append(getCellCol(i)).append(')');
+        }
+        return builder.append(']').toString();
     }
 
 }
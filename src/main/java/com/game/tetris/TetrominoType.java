@@ -0,0 +1,32 @@
+package com.game.tetris;
+
+/**
+ * 七种方块组的类型，序号与Board中记录的类型编号对应（编号 = ordinal() + 1，0表示空）
+ */
+public enum TetrominoType {
+
+    T, I, J, L, O, S, Z;
+
+    /**
+     * 全部类型，避免values()每次复制数组
+     */
+    private static final TetrominoType[] VALUES = values();
+
+    /**
+     * 根据Board中记录的类型编号获取类型
+     *
+     * @param id 类型编号，取值1~7
+     * @return 对应的方块组类型
+     */
+    public static TetrominoType fromId(int id) {
+        return VALUES[id - 1];
+    }
+
+    /**
+     * @return 写入Board的类型编号
+     */
+    public byte getId() {
+        return (byte) (ordinal() + 1);
+    }
+
+}
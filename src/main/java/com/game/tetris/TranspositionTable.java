@@ -0,0 +1,93 @@
+package com.game.tetris;
+
+/**
+ * 搜索用的无锁置换表，以64位键缓存局面的搜索结果<br>
+ * 采用异或校验的无锁写法：同一槽位保存(键 ^ 值)和值，读取时两者不匹配即视为未命中，
+ * 多个线程并发读写时最坏情况只是丢失缓存，不会读到错误的结果。<br>
+ * 槽位冲突时按深度替换：本轮搜索写入的更深结果不会被更浅的结果覆盖，上一轮搜索留下的结果总是可以覆盖
+ */
+public class TranspositionTable {
+
+    /**
+     * 各槽位的键与值异或后的结果
+     */
+    private final long[] checks;
+
+    /**
+     * 各槽位的值，double的原始位
+     */
+    private final long[] values;
+
+    /**
+     * 各槽位写入时的搜索轮次和深度，(轮次 << 8) | 深度，只用于替换决策，并发写入错乱时不影响结果的正确性
+     */
+    private final int[] infos;
+
+    /**
+     * 槽位下标掩码
+     */
+    private final int mask;
+
+    /**
+     * 当前搜索轮次，只由发起搜索的线程修改
+     */
+    private int age = 1;
+
+    /**
+     * @param capacity 槽位数量，向上取整为2的幂
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.checks = new long[size];
+        this.values = new long[size];
+        this.infos = new int[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param key 键，不能为0
+     * @return 缓存的值，未命中时返回NaN
+     */
+    public double get(long key) {
+        int index = (int) key & this.mask;
+        long value = this.values[index];
+        if ((this.checks[index] ^ value) != key) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(value);
+    }
+
+    /**
+     * 写入结果，槽位中已有本轮搜索的其他局面且深度更深时放弃写入
+     *
+     * @param key   键，不能为0
+     * @param value 值
+     * @param depth 得到该值时向下搜索的层数，0~255
+     */
+    public void put(long key, double value, int depth) {
+        int index = (int) key & this.mask;
+        int info = this.infos[index];
+        long bits = Double.doubleToRawLongBits(value);
+        if (info >>> 8 == this.age && (info & 0xFF) > depth && (this.checks[index] ^ this.values[index]) != key) {
+            return;
+        }
+        this.values[index] = bits;
+        this.checks[index] = key ^ bits;
+        this.infos[index] = this.age << 8 | depth;
+    }
+
+    /**
+     * 开始新一轮搜索，之前各轮写入的结果仍可命中，但不再阻止更浅的结果覆盖
+     */
+    public void nextAge() {
+        this.age = (this.age + 1) & 0xFFFFFF;
+    }
+
+    /**
+     * @return 槽位数量
+     */
+    public int getCapacity() {
+        return this.values.length;
+    }
+
+}
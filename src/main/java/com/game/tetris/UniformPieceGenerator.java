@@ -0,0 +1,30 @@
+package com.game.tetris;
+
+/**
+ * 每次等概率随机选择七种方块组之一，与最初的随机方式一致
+ */
+public class UniformPieceGenerator extends AbstractPieceGenerator {
+
+    public UniformPieceGenerator(int previewCapacity, long seed) {
+        super(previewCapacity, seed);
+    }
+
+    @Override
+    public PieceGeneratorType getType() {
+        return PieceGeneratorType.UNIFORM;
+    }
+
+    @Override
+    protected int generate() {
+        return nextInt(7) + 1;
+    }
+
+    @Override
+    protected void onReset() {
+    }
+
+    @Override
+    protected void copyStateFrom(AbstractPieceGenerator other) {
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.game.tetris;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对战服务器的无界面压力测试客户端<br>
+ * 在一个线程的Selector上打开大量连接，每个连接按给定频率发送随机输入、每秒发送一次心跳，
+ * 用StateDecoder解码收到的状态增量，统计收到的消息、带宽和心跳往返延迟，用于测量服务器每核可承载的连接数和逻辑帧延迟
+ */
+public class VersusLoadClient {
+
+    /**
+     * 随机输入的取值，直接落底的比例较低，使对局能持续一段时间
+     */
+    private static final Action[] INPUTS = {
+            Action.MOVE_LEFT, Action.MOVE_RIGHT, Action.ROTATE_RIGHT, Action.ROTATE_LEFT,
+            Action.MOVE_LEFT, Action.MOVE_RIGHT, Action.SOFT_DROP, Action.HARD_DROP
+    };
+
+    /**
+     * 每条连接的状态
+     */
+    private static class Connection {
+
+        final SocketChannel channel;
+
+        final ByteBuffer in = ByteBuffer.allocate(64 << 10);
+
+        final ByteBuffer out = ByteBuffer.allocate(256);
+
+        final StateDecoder decoder = new StateDecoder();
+
+        boolean isConnected;
+
+        boolean isInMatch;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+    }
+
+    private final Histogram rttNanos = new Histogram();
+
+    private long bytesReceived;
+
+    private long states;
+
+    private long matchesStarted;
+
+    private long gamesOver;
+
+    private long wins;
+
+    /**
+     * 运行压力测试并输出结果
+     *
+     * @param host            服务器地址
+     * @param port            服务器端口
+     * @param connections     连接数
+     * @param seconds         持续秒数
+     * @param inputsPerSecond 每条连接每秒发送的输入数
+     * @throws IOException 连接失败
+     */
+    public void run(String host, int port, int connections, int seconds, int inputsPerSecond) throws IOException {
+        Selector selector = Selector.open();
+        List<Connection> all = new ArrayList<>(connections);
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        for (int i = 0; i < connections; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.isConnected = channel.connect(address);
+            channel.register(selector, connection.isConnected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT,
+                    connection);
+            all.add(connection);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double inputChance = (double) inputsPerSecond / GameLoop.TICKS_PER_SECOND;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long nextTick = start;
+        long nextPing = start;
+        while (System.nanoTime() - end < 0) {
+            selector.select(1);
+            Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+            while (iterator.hasNext()) {
+                SelectionKey key = iterator.next();
+                iterator.remove();
+                Connection connection = (Connection) key.attachment();
+                try {
+                    if (key.isConnectable() && connection.channel.finishConnect()) {
+                        connection.isConnected = true;
+                        key.interestOps(SelectionKey.OP_READ);
+                    } else if (key.isReadable()) {
+                        read(connection, key);
+                    }
+                } catch (IOException e) {
+                    key.cancel();
+                    connection.channel.close();
+                    connection.isConnected = false;
+                }
+            }
+            long now = System.nanoTime();
+            if (now - nextTick < 0) {
+                continue;
+            }
+            nextTick += GameLoop.TICK_NANOS;
+            boolean isPing = now - nextPing >= 0;
+            if (isPing) {
+                nextPing += TimeUnit.SECONDS.toNanos(1);
+            }
+            for (Connection connection : all) {
+                if (!connection.isConnected) {
+                    continue;
+                }
+                if (connection.isInMatch && random.nextDouble() < inputChance) {
+                    connection.out.put((byte) INPUTS[random.nextInt(INPUTS.length)].ordinal());
+                }
+                if (isPing) {
+                    connection.out.put(VersusProtocol.PING).putLong(now);
+                }
+                if (connection.out.position() > 0) {
+                    connection.out.flip();
+                    try {
+                        connection.channel.write(connection.out);
+                    } catch (IOException e) {
+                        connection.isConnected = false;
+                    }
+                    connection.out.clear();
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        int connected = 0;
+        for (Connection connection : all) {
+            if (connection.isConnected) {
+                connected++;
+            }
+            connection.channel.close();
+        }
+        selector.close();
+        double elapsedSeconds = elapsed / 1e9;
+        System.out.println(String.format("connections=%d/%d matches=%d gamesOver=%d wins=%d states=%.0f/s "
+                        + "received=%.0fB/s (%.1fB/s per connection)", connected, connections, this.matchesStarted,
+                this.gamesOver, this.wins, this.states / elapsedSeconds, this.bytesReceived / elapsedSeconds,
+                this.bytesReceived / elapsedSeconds / Math.max(1, connected)));
+        System.out.println("rtt " + this.rttNanos.snapshot());
+    }
+
+    /**
+     * 读取并解析服务器消息
+     */
+    private void read(Connection connection, SelectionKey key) throws IOException {
+        int read = connection.channel.read(connection.in);
+        if (read < 0) {
+            throw new IOException("closed by server");
+        }
+        this.bytesReceived += read;
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (in.remaining() >= VersusProtocol.HEADER_BYTES) {
+            int length = in.getShort(in.position() + 1) & 0xFFFF;
+            if (in.remaining() < VersusProtocol.HEADER_BYTES + length) {
+                break;
+            }
+            byte type = in.get();
+            in.getShort();
+            int payloadEnd = in.position() + length;
+            switch (type) {
+                case VersusProtocol.MATCH_START:
+                    connection.isInMatch = true;
+                    this.matchesStarted++;
+                    break;
+                case VersusProtocol.STATE:
+                    this.states++;
+                    // 跳过待接收的垃圾行数和对手堆叠高度
+                    in.position(in.position() + 2);
+                    // 只允许解码器读取本条消息，格式错误的帧按连接错误处理
+                    int limit = in.limit();
+                    in.limit(payloadEnd);
+                    try {
+                        connection.decoder.decode(in);
+                    } catch (IllegalArgumentException | BufferUnderflowException e) {
+                        throw new IOException("malformed state frame", e);
+                    } finally {
+                        in.limit(limit);
+                    }
+                    if (in.position() != payloadEnd) {
+                        throw new IOException("malformed state frame");
+                    }
+                    break;
+                case VersusProtocol.GAME_OVER:
+                    connection.isInMatch = false;
+                    this.gamesOver++;
+                    if (in.get(in.position()) != 0) {
+                        this.wins++;
+                    }
+                    break;
+                case VersusProtocol.PONG:
+                    this.rttNanos.record(System.nanoTime() - in.getLong(in.position()));
+                    break;
+                default:
+                    throw new IOException("unknown message type " + type);
+            }
+            in.position(payloadEnd);
+        }
+        in.compact();
+    }
+
+    /**
+     * 命令行入口：[服务器地址] [端口] [连接数] [持续秒数] [每条连接每秒输入数]
+     *
+     * @param args 命令行参数
+     * @throws IOException 连接失败
+     */
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : VersusProtocol.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int inputsPerSecond = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        new VersusLoadClient().run(host, port, connections, seconds, inputsPerSecond);
+    }
+
+}
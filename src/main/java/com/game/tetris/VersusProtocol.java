@@ -0,0 +1,59 @@
+package com.game.tetris;
+
+/**
+ * 对战服务器与客户端之间的二进制协议<br>
+ * 客户端到服务器：输入帧每个字节是一个Action序号，PING后跟8字节的客户端时间戳，服务器原样回送PONG；<br>
+ * 服务器到客户端：每条消息为[类型1字节][负载长度2字节][负载]，整数均为大端序。
+ * STATE消息携带待接收的垃圾行数、对手堆叠高度和一帧StateEncoder增量，每局的第一帧为关键帧
+ */
+public final class VersusProtocol {
+
+    /**
+     * 默认端口
+     */
+    public static final int DEFAULT_PORT = 7878;
+
+    /**
+     * 客户端心跳，后跟8字节时间戳
+     */
+    public static final byte PING = 0x40;
+
+    /**
+     * PING帧的总长度
+     */
+    public static final int PING_BYTES = 1 + 8;
+
+    /**
+     * 服务器消息头长度：类型1字节，负载长度2字节
+     */
+    public static final int HEADER_BYTES = 1 + 2;
+
+    /**
+     * 对局开始，负载：种子8字节，生成方式序号1字节
+     */
+    public static final byte MATCH_START = 1;
+
+    /**
+     * 状态增量，负载：待接收的垃圾行数1字节，对手堆叠高度1字节，之后是一帧StateEncoder增量，可用StateDecoder解码
+     */
+    public static final byte STATE = 2;
+
+    /**
+     * 对局结束，负载：是否获胜1字节
+     */
+    public static final byte GAME_OVER = 3;
+
+    /**
+     * 心跳回应，负载：PING中的8字节时间戳
+     */
+    public static final byte PONG = 4;
+
+    /**
+     * 按一次消除的行数发送给对手的垃圾行数，下标与GameEngine.SCORE_CASCADES对应
+     */
+    public static final int[] GARBAGE_LINES = {0, 0, 1, 2, 4};
+
+    private VersusProtocol() {
+    }
+
+}
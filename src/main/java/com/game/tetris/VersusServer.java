@@ -0,0 +1,374 @@
+package com.game.tetris;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无界面的双人对战服务器<br>
+ * 一个线程负责接受连接，按轮询分配给若干Reactor线程；每个Reactor在自己的非阻塞Selector上处理所属连接的读写，
+ * 并以GameLoop的固定逻辑帧率推进其中所有对局。连接在同一个Reactor内两两配对，对局结束后双方重新排队，
+ * 因此对局中的状态只被一个线程访问，不需要加锁
+ */
+public class VersusServer implements Closeable {
+
+    /**
+     * 单次追赶的最大逻辑帧数，Reactor过载时丢弃更早的帧，避免越追越慢
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * 派生每局种子时使用的黄金分割增量
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final ServerSocketChannel server;
+
+    private final Reactor[] reactors;
+
+    private final Thread acceptor;
+
+    /**
+     * 一个逻辑帧推进所属全部对局并发送增量的耗时
+     */
+    private final Histogram tickNanos = new Histogram();
+
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    private final LongAdder matches = new LongAdder();
+
+    private final LongAdder bytesSent = new LongAdder();
+
+    /**
+     * 已开始对局的数量，用于派生种子
+     */
+    private final AtomicInteger matchSeq = new AtomicInteger();
+
+    private final long seed;
+
+    private volatile boolean isRunning = true;
+
+    /**
+     * @param port     监听端口，0表示由系统分配
+     * @param reactors Reactor线程数
+     * @param seed     基础种子，每局的种子由它派生
+     * @throws IOException 监听失败
+     */
+    public VersusServer(int port, int reactors, long seed) throws IOException {
+        this.seed = seed;
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(port), 1024);
+        this.reactors = new Reactor[reactors];
+        for (int i = 0; i < reactors; i++) {
+            this.reactors[i] = new Reactor(i);
+            this.reactors[i].start();
+        }
+        this.acceptor = new Thread(this::accept, "versus-acceptor");
+        this.acceptor.start();
+    }
+
+    /**
+     * @return 实际监听的端口
+     */
+    public int getPort() {
+        return this.server.socket().getLocalPort();
+    }
+
+    /**
+     * @return 当前连接数
+     */
+    public int getSessions() {
+        return this.sessions.get();
+    }
+
+    /**
+     * @return 已开始的对局数
+     */
+    public long getMatches() {
+        return this.matches.sum();
+    }
+
+    /**
+     * @return 已发送的字节数
+     */
+    public long getBytesSent() {
+        return this.bytesSent.sum();
+    }
+
+    /**
+     * @return 逻辑帧耗时
+     */
+    public HistogramSnapshot getTickNanos() {
+        return this.tickNanos.snapshot();
+    }
+
+    /**
+     * 接受连接并轮询分配给Reactor
+     */
+    private void accept() {
+        int next = 0;
+        while (this.isRunning) {
+            try {
+                SocketChannel channel = this.server.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                this.reactors[next].register(channel);
+                next = (next + 1) % this.reactors.length;
+            } catch (IOException e) {
+                if (this.isRunning) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * 派生下一局的种子
+     *
+     * @return 种子
+     */
+    private long nextMatchSeed() {
+        long z = this.seed + this.matchSeq.incrementAndGet() * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 停止接受连接，关闭所有连接并等待线程退出
+     */
+    @Override
+    public void close() throws IOException {
+        this.isRunning = false;
+        this.server.close();
+        for (Reactor reactor : this.reactors) {
+            reactor.selector.wakeup();
+        }
+        try {
+            this.acceptor.join(TimeUnit.SECONDS.toMillis(1));
+            for (Reactor reactor : this.reactors) {
+                reactor.join(TimeUnit.SECONDS.toMillis(1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 单线程的事件循环，独占一个Selector和分配给它的全部连接
+     */
+    private class Reactor extends Thread {
+
+        private final Selector selector;
+
+        /**
+         * 接受线程交过来、尚未注册到Selector的连接
+         */
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 所属的全部连接
+         */
+        private final List<VersusSession> sessions = new ArrayList<>();
+
+        /**
+         * 等待配对的连接，为null时没有
+         */
+        private VersusSession waiting;
+
+        Reactor(int index) throws IOException {
+            super("versus-reactor-" + index);
+            this.selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            this.pending.add(channel);
+            this.selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            long nextTick = System.nanoTime() + GameLoop.TICK_NANOS;
+            try {
+                while (isRunning) {
+                    long waitNanos = nextTick - System.nanoTime();
+                    if (waitNanos > 0) {
+                        this.selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+                    } else {
+                        this.selector.selectNow();
+                    }
+                    registerPending();
+                    handleSelected();
+                    int ticks = 0;
+                    while (System.nanoTime() - nextTick >= 0) {
+                        if (ticks++ < MAX_CATCH_UP_TICKS) {
+                            tick();
+                        }
+                        nextTick += GameLoop.TICK_NANOS;
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                for (VersusSession session : this.sessions) {
+                    session.close();
+                }
+                try {
+                    this.selector.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private void registerPending() throws IOException {
+            SocketChannel channel;
+            while ((channel = this.pending.poll()) != null) {
+                SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+                VersusSession session = new VersusSession(channel, key);
+                key.attach(session);
+                this.sessions.add(session);
+                VersusServer.this.sessions.incrementAndGet();
+                enqueue(session);
+            }
+        }
+
+        private void handleSelected() {
+            Iterator<SelectionKey> iterator = this.selector.selectedKeys().iterator();
+            while (iterator.hasNext()) {
+                SelectionKey key = iterator.next();
+                iterator.remove();
+                VersusSession session = (VersusSession) key.attachment();
+                try {
+                    if (key.isValid() && key.isReadable() && !session.read()) {
+                        disconnect(session);
+                        continue;
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        bytesSent.add(session.flush());
+                    }
+                } catch (IOException e) {
+                    disconnect(session);
+                }
+            }
+        }
+
+        /**
+         * 推进所属的全部对局一个逻辑帧，结算胜负后发送状态增量
+         */
+        private void tick() {
+            long start = System.nanoTime();
+            for (int i = 0; i < this.sessions.size(); i++) {
+                VersusSession session = this.sessions.get(i);
+                if (session.getOpponent() != null) {
+                    session.tick();
+                }
+            }
+            for (int i = 0; i < this.sessions.size(); i++) {
+                VersusSession session = this.sessions.get(i);
+                VersusSession opponent = session.getOpponent();
+                if (opponent != null && (session.getEngine().isGameOver() || opponent.getEngine().isGameOver())) {
+                    // 双方同一帧结束时判为平局，都按失败处理
+                    session.writeState();
+                    opponent.writeState();
+                    boolean isLoser = session.getEngine().isGameOver();
+                    session.endMatch(!isLoser);
+                    opponent.endMatch(isLoser && !opponent.getEngine().isGameOver());
+                    enqueue(session);
+                    enqueue(opponent);
+                }
+            }
+            for (int i = this.sessions.size() - 1; i >= 0; i--) {
+                VersusSession session = this.sessions.get(i);
+                if (session.getOpponent() != null) {
+                    session.writeState();
+                }
+                try {
+                    bytesSent.add(session.flush());
+                } catch (IOException e) {
+                    disconnect(session);
+                    continue;
+                }
+                if (session.isClosed()) {
+                    disconnect(session);
+                }
+            }
+            tickNanos.record(System.nanoTime() - start);
+        }
+
+        /**
+         * 让连接排队等待配对，已有等待者时立即开始对局
+         */
+        private void enqueue(VersusSession session) {
+            if (session.isClosed()) {
+                return;
+            }
+            if (this.waiting == null || this.waiting.isClosed()) {
+                this.waiting = session;
+                return;
+            }
+            long matchSeed = nextMatchSeed();
+            this.waiting.startMatch(session, matchSeed);
+            session.startMatch(this.waiting, matchSeed);
+            this.waiting = null;
+            matches.increment();
+        }
+
+        /**
+         * 关闭连接，对局中的对手直接获胜并重新排队
+         */
+        private void disconnect(VersusSession session) {
+            if (!this.sessions.remove(session)) {
+                return;
+            }
+            VersusServer.this.sessions.decrementAndGet();
+            VersusSession opponent = session.getOpponent();
+            session.close();
+            if (this.waiting == session) {
+                this.waiting = null;
+            }
+            if (opponent != null) {
+                opponent.endMatch(true);
+                enqueue(opponent);
+            }
+        }
+
+    }
+
+    /**
+     * 命令行入口：[端口] [Reactor线程数] [种子] [统计输出间隔秒数]
+     *
+     * @param args 命令行参数
+     * @throws Exception 启动失败
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : VersusProtocol.DEFAULT_PORT;
+        int reactors = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        long period = args.length > 3 ? Long.parseLong(args[3]) : 5;
+        VersusServer server = new VersusServer(port, reactors, seed);
+        System.out.println("versus server listening on " + server.getPort() + " with " + reactors + " reactors");
+        long lastBytes = 0;
+        while (true) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(period));
+            long bytes = server.getBytesSent();
+            System.out.println("sessions=" + server.getSessions() + " matches=" + server.getMatches()
+                    + " sent=" + (bytes - lastBytes) / period + "B/s tick " + server.getTickNanos());
+            lastBytes = bytes;
+        }
+    }
+
+}
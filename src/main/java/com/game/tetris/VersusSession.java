@@ -0,0 +1,315 @@
+package com.game.tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+
+/**
+ * 对战服务器中的一个玩家连接，只在所属的Reactor线程中访问<br>
+ * 持有一个无界面的游戏引擎，收到的输入先缓存，在每个逻辑帧统一执行，之后把状态增量写入发送缓冲区。
+ * 读写缓冲区、引擎和状态增量编码器都随连接创建一次，之后每帧不创建新对象
+ */
+public class VersusSession {
+
+    /**
+     * 每帧最多缓存的输入数量，超出的输入丢弃
+     */
+    private static final int MAX_INPUTS_PER_TICK = 32;
+
+    /**
+     * 发送缓冲区大小，客户端读得太慢导致缓冲区写满时断开连接
+     */
+    private static final int OUT_BUFFER_BYTES = 64 << 10;
+
+    /**
+     * 待接收的垃圾行数上限
+     */
+    private static final int MAX_PENDING_GARBAGE = Board.ROWS;
+
+    /**
+     * Action序号到Action的映射
+     */
+    private static final Action[] ACTIONS = Action.values();
+
+    private final SocketChannel channel;
+
+    private final SelectionKey key;
+
+    private final ByteBuffer in = ByteBuffer.allocate(256);
+
+    private final ByteBuffer out = ByteBuffer.allocate(OUT_BUFFER_BYTES);
+
+    private final GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, 0), 0);
+
+    /**
+     * 本帧待执行的输入，值为Action序号
+     */
+    private final byte[] inputs = new byte[MAX_INPUTS_PER_TICK];
+
+    private int inputCount;
+
+    /**
+     * 状态增量编码器
+     */
+    private final StateEncoder encoder = new StateEncoder();
+
+    /**
+     * 最近一次发送的待接收垃圾行数和对手堆叠高度
+     */
+    private int sentGarbage, sentOpponentHeight;
+
+    /**
+     * 垃圾行空列的随机数生成器，随对局种子重置，对战双方的空列序列相同
+     */
+    private final Random holes = new Random();
+
+    /**
+     * 对手，未在对局中时为null
+     */
+    private VersusSession opponent;
+
+    /**
+     * 待接收的垃圾行数，在下一次未消行的落地时插入
+     */
+    private int pendingGarbage;
+
+    /**
+     * 重力下落累计时间
+     */
+    private long gravityNanos;
+
+    private boolean isClosed;
+
+    /**
+     * @param channel 已设为非阻塞的连接
+     * @param key     连接在所属Reactor的Selector上的注册
+     */
+    public VersusSession(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * 以给定种子开始与对手的新一局，并通知客户端
+     *
+     * @param opponent 对手
+     * @param seed     双方共用的随机数种子，方块组序列和垃圾行空列序列都由它决定
+     */
+    public void startMatch(VersusSession opponent, long seed) {
+        this.opponent = opponent;
+        this.engine.reset(seed);
+        this.holes.setSeed(seed);
+        this.pendingGarbage = 0;
+        this.gravityNanos = 0;
+        this.inputCount = 0;
+        // 每局的第一帧为关键帧
+        this.encoder.requestKeyframe();
+        this.sentGarbage = -1;
+        if (beginMessage(VersusProtocol.MATCH_START, 8 + 1)) {
+            this.out.putLong(seed);
+            this.out.put((byte) PieceGeneratorType.BAG.ordinal());
+        }
+    }
+
+    /**
+     * 结束当前对局并通知客户端
+     *
+     * @param isWinner 是否获胜
+     */
+    public void endMatch(boolean isWinner) {
+        this.opponent = null;
+        if (beginMessage(VersusProtocol.GAME_OVER, 1)) {
+            this.out.put((byte) (isWinner ? 1 : 0));
+        }
+    }
+
+    /**
+     * 从连接读取并解析客户端发来的帧，输入缓存到本帧，心跳立即回应
+     *
+     * @return 连接是否仍然可用
+     * @throws IOException 读取失败
+     */
+    public boolean read() throws IOException {
+        if (this.channel.read(this.in) < 0) {
+            return false;
+        }
+        this.in.flip();
+        while (this.in.hasRemaining()) {
+            byte code = this.in.get(this.in.position());
+            if (code == VersusProtocol.PING) {
+                if (this.in.remaining() < VersusProtocol.PING_BYTES) {
+                    break;
+                }
+                this.in.get();
+                long nanos = this.in.getLong();
+                if (beginMessage(VersusProtocol.PONG, 8)) {
+                    this.out.putLong(nanos);
+                }
+            } else if (code >= 0 && code < ACTIONS.length) {
+                this.in.get();
+                if (this.inputCount < this.inputs.length) {
+                    this.inputs[this.inputCount++] = code;
+                }
+            } else {
+                // 无法识别的帧，协议错误
+                return false;
+            }
+        }
+        this.in.compact();
+        return !this.isClosed;
+    }
+
+    /**
+     * 执行一个逻辑帧：依次执行缓存的输入，然后处理重力下落，落地时结算垃圾行
+     */
+    public void tick() {
+        for (int i = 0; i < this.inputCount && !this.engine.isGameOver(); i++) {
+            onStep(this.engine.step(ACTIONS[this.inputs[i]]));
+        }
+        this.inputCount = 0;
+        if (this.engine.isGameOver()) {
+            return;
+        }
+        this.gravityNanos += GameLoop.TICK_NANOS;
+        long interval = this.engine.getGravityIntervalNanos();
+        if (this.gravityNanos >= interval) {
+            // 重力间隔可能短于一个逻辑帧，每帧最多下落一格
+            this.gravityNanos = Math.min(this.gravityNanos - interval, interval);
+            onStep(this.engine.tick());
+        }
+    }
+
+    /**
+     * 落地后结算垃圾行：消行时先抵消自己待接收的垃圾行，剩余的送给对手；未消行时插入待接收的垃圾行
+     *
+     * @param result 引擎返回的事件
+     */
+    private void onStep(StepResult result) {
+        if (result == StepResult.REJECTED || result == StepResult.MOVED || result == StepResult.GAME_OVER) {
+            return;
+        }
+        int cleared = this.engine.getLastClearedLines();
+        if (cleared > 0) {
+            int attack = VersusProtocol.GARBAGE_LINES[cleared];
+            int cancelled = Math.min(attack, this.pendingGarbage);
+            this.pendingGarbage -= cancelled;
+            attack -= cancelled;
+            if (attack > 0 && this.opponent != null) {
+                this.opponent.pendingGarbage = Math.min(MAX_PENDING_GARBAGE, this.opponent.pendingGarbage + attack);
+            }
+        } else if (this.pendingGarbage > 0) {
+            this.engine.addGarbage(this.pendingGarbage, this.holes.nextInt(Board.COLS));
+            this.pendingGarbage = 0;
+        }
+    }
+
+    /**
+     * 状态有变化时把增量写入发送缓冲区
+     */
+    public void writeState() {
+        if (this.isClosed) {
+            return;
+        }
+        int payloadOffset = VersusProtocol.HEADER_BYTES + 2;
+        if (this.out.remaining() < payloadOffset + StateEncoder.MAX_FRAME_BYTES) {
+            this.isClosed = true;
+            return;
+        }
+        int opponentHeight = this.opponent != null ? this.opponent.engine.getWall().getHeight() : 0;
+        int start = this.out.position();
+        this.out.position(start + payloadOffset);
+        int frameBytes = this.encoder.encode(this.engine, this.out);
+        if (frameBytes == 0) {
+            if (this.pendingGarbage == this.sentGarbage && opponentHeight == this.sentOpponentHeight) {
+                this.out.position(start);
+                return;
+            }
+            // 只有垃圾行数或对手高度变化，附带一个不改变状态的空帧
+            this.out.put((byte) (this.engine.isGameOver() ? StateEncoder.GAME_OVER : 0));
+            frameBytes = 1;
+        }
+        this.out.put(start, VersusProtocol.STATE);
+        this.out.putShort(start + 1, (short) (2 + frameBytes));
+        this.out.put(start + 3, (byte) this.pendingGarbage);
+        this.out.put(start + 4, (byte) opponentHeight);
+        this.sentGarbage = this.pendingGarbage;
+        this.sentOpponentHeight = opponentHeight;
+    }
+
+    /**
+     * 写入消息头，发送缓冲区放不下时关闭连接
+     *
+     * @param type          消息类型
+     * @param payloadLength 负载长度
+     * @return 是否可以继续写入负载
+     */
+    private boolean beginMessage(byte type, int payloadLength) {
+        if (this.isClosed) {
+            return false;
+        }
+        if (this.out.remaining() < VersusProtocol.HEADER_BYTES + payloadLength) {
+            this.isClosed = true;
+            return false;
+        }
+        this.out.put(type);
+        this.out.putShort((short) payloadLength);
+        return true;
+    }
+
+    /**
+     * 尽可能多地发送缓冲区中的数据，发不完时关注可写事件
+     *
+     * @return 本次发送的字节数
+     * @throws IOException 发送失败
+     */
+    public int flush() throws IOException {
+        if (this.out.position() == 0) {
+            return 0;
+        }
+        this.out.flip();
+        int written = this.channel.write(this.out);
+        this.out.compact();
+        int ops = this.out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (this.key.interestOps() != ops) {
+            this.key.interestOps(ops);
+        }
+        return written;
+    }
+
+    /**
+     * 关闭连接，重复调用无副作用
+     */
+    public void close() {
+        this.isClosed = true;
+        this.key.cancel();
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            // 连接已不可用，忽略
+        }
+    }
+
+    /**
+     * @return 连接是否已关闭或因协议错误、发送积压而需要关闭
+     */
+    public boolean isClosed() {
+        return this.isClosed;
+    }
+
+    /**
+     * @return 对手，未在对局中时为null
+     */
+    public VersusSession getOpponent() {
+        return this.opponent;
+    }
+
+    /**
+     * @return 游戏核心引擎
+     */
+    public GameEngine getEngine() {
+        return this.engine;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.game.tetris;
+
+/**
+ * 按特征加权求和的局面评估函数：空洞数、各列高度之和、相邻列高度差之和、消除行数<br>
+ * 各列高度直接取Board增量维护的打包高度，空洞数由一次自上而下的遍历算出，不创建新对象
+ */
+public class WeightedEvaluator implements BoardEvaluator {
+
+    /**
+     * 默认权重，取自公开的遗传算法调参结果
+     */
+    public static final WeightedEvaluator DEFAULT = new WeightedEvaluator(-0.35663, -0.510066, -0.184483, 0.760666);
+
+    /**
+     * 空洞数的权重，空洞指上方有方块的空格
+     */
+    private final double holesWeight;
+
+    /**
+     * 各列高度之和的权重
+     */
+    private final double heightWeight;
+
+    /**
+     * 相邻列高度差之和的权重
+     */
+    private final double bumpinessWeight;
+
+    /**
+     * 消除行数的权重
+     */
+    private final double linesWeight;
+
+    public WeightedEvaluator(double holesWeight, double heightWeight, double bumpinessWeight, double linesWeight) {
+        this.holesWeight = holesWeight;
+        this.heightWeight = heightWeight;
+        this.bumpinessWeight = bumpinessWeight;
+        this.linesWeight = linesWeight;
+    }
+
+    @Override
+    public double evaluate(Board board, int clearedLines) {
+        int seen = 0, holes = 0;
+        for (int row = 0; row < Board.ROWS; row++) {
+            int mask = board.getRow(row);
+            holes += Integer.bitCount(seen & ~mask);
+            seen |= mask;
+        }
+        long heights = board.getColumnHeights();
+        int aggregateHeight = 0, bumpiness = 0;
+        int previous = (int) (heights & Board.HEIGHT_MASK);
+        aggregateHeight += previous;
+        for (int col = 1; col < Board.COLS; col++) {
+            int height = (int) ((heights >>> (col * Board.HEIGHT_BITS)) & Board.HEIGHT_MASK);
+            aggregateHeight += height;
+            bumpiness += Math.abs(height - previous);
+            previous = height;
+        }
+        return this.holesWeight * holes + this.heightWeight * aggregateHeight
+                + this.bumpinessWeight * bumpiness + this.linesWeight * clearedLines;
+    }
+
+    @Override
+    public String toString() {
+        return "WeightedEvaluator[holes=" + this.holesWeight + ", height=" + this.heightWeight
+                + ", bumpiness=" + this.bumpinessWeight + ", lines=" + this.linesWeight + ']';
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * 增量维护的Zobrist哈希与按行内容完整重建的哈希对照测试
+ */
+public class BoardHashTest {
+
+    private static final TetrominoType[] TYPES = TetrominoType.values();
+
+    private final Board board = new Board();
+
+    private final Tetromino tetromino = new Tetromino(TetrominoType.T);
+
+    @Test
+    public void hashMatchesRebuildAfterEveryOperation() {
+        Random random = new Random(0x5EEDL);
+        Board empty = new Board();
+        assertEquals(empty.getHash(), this.board.getHash());
+        for (int step = 0; step < 50000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 7) {
+                landRandom(random);
+                assertHashRebuilt("land");
+                this.board.clearLines();
+                assertHashRebuilt("clearLines");
+            } else if (operation < 9) {
+                this.board.removeRows(random.nextInt(1 << Board.ROWS) & random.nextInt(1 << Board.ROWS));
+                assertHashRebuilt("removeRows");
+            } else {
+                this.board.addGarbage(1 + random.nextInt(3), random.nextInt(Board.COLS),
+                        TYPES[random.nextInt(TYPES.length)]);
+                assertHashRebuilt("addGarbage");
+            }
+            if (this.board.getHeight() > Board.ROWS - 4) {
+                this.board.clear();
+                assertEquals(empty.getHash(), this.board.getHash());
+            }
+        }
+    }
+
+    @Test
+    public void hashDependsOnOccupancyOnly() {
+        this.board.setRow(Board.ROWS - 1, 0x3F, TetrominoType.I);
+        Board other = new Board();
+        other.setRow(Board.ROWS - 1, 0x3F, TetrominoType.Z);
+        assertEquals(this.board.getHash(), other.getHash());
+        other.setRow(Board.ROWS - 2, 0x1, TetrominoType.Z);
+        assertNotEquals(this.board.getHash(), other.getHash());
+        // 同样的占据情况出现在不同的行，哈希不同
+        other.clear();
+        other.setRow(Board.ROWS - 2, 0x3F, TetrominoType.I);
+        assertNotEquals(this.board.getHash(), other.getHash());
+    }
+
+    @Test
+    public void clearLinesEqualsRemoveRows() {
+        Random random = new Random(7L);
+        Board replica = new Board();
+        for (int step = 0; step < 20000; step++) {
+            if (landRandom(random)) {
+                replica.land(this.tetromino);
+            }
+            this.board.clearLines();
+            replica.removeRows(this.board.getLastClearedMask());
+            assertEquals(this.board.getHash(), replica.getHash());
+            for (int row = 0; row < Board.ROWS; row++) {
+                assertEquals(this.board.getRowTypes(row), replica.getRowTypes(row));
+            }
+            if (this.board.getHeight() > Board.ROWS - 4) {
+                this.board.clear();
+                replica.clear();
+            }
+        }
+    }
+
+    /**
+     * 随机选择类型、旋转状态和列，从顶部直接落底
+     *
+     * @return 是否落地，放不下时不落地
+     */
+    private boolean landRandom(Random random) {
+        TetrominoType type = TYPES[random.nextInt(TYPES.length)];
+        this.tetromino.spawn(type);
+        this.tetromino.place(type, random.nextInt(4), this.tetromino.getRow(),
+                this.tetromino.getCol() + random.nextInt(Board.COLS) - Board.COLS / 2);
+        if (this.board.collides(this.tetromino)) {
+            return false;
+        }
+        this.tetromino.dropBy(this.board.dropDistance(this.tetromino));
+        this.board.land(this.tetromino);
+        return true;
+    }
+
+    private void assertHashRebuilt(String operation) {
+        Board rebuilt = new Board();
+        for (int row = 0; row < Board.ROWS; row++) {
+            rebuilt.setRowTypes(row, this.board.getRowTypes(row));
+        }
+        assertEquals(operation, rebuilt.getHash(), this.board.getHash());
+        assertEquals(operation, rebuilt.getColumnHeights(), this.board.getColumnHeights());
+    }
+
+}
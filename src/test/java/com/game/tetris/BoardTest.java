@@ -0,0 +1,229 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 位图面板与逐格实现的朴素面板对照测试：重叠、下落、落地、消行，以及增量维护的各列高度
+ */
+public class BoardTest {
+
+    private static final TetrominoType[] TYPES = TetrominoType.values();
+
+    /**
+     * 朴素面板，grid[row][col]为方块类型编号，0为空
+     */
+    private final int[][] grid = new int[Board.ROWS][Board.COLS];
+
+    private final Board board = new Board();
+
+    @Test
+    public void collidesOutOfBounds() {
+        Tetromino tetromino = new Tetromino(TetrominoType.I);
+        assertFalse(this.board.collides(tetromino));
+        int row = tetromino.getRow(), col = tetromino.getCol();
+        int top = tetromino.getTop(), bottom = tetromino.getBottom();
+        int left = tetromino.getLeft(), right = tetromino.getRight();
+        // 包围盒分别越过上、左、右、下边界一格
+        tetromino.place(TetrominoType.I, 0, row - top - 1, col);
+        assertTrue(this.board.collides(tetromino));
+        tetromino.place(TetrominoType.I, 0, row, col - left - 1);
+        assertTrue(this.board.collides(tetromino));
+        tetromino.place(TetrominoType.I, 0, row, col + Board.COLS - right);
+        assertTrue(this.board.collides(tetromino));
+        tetromino.place(TetrominoType.I, 0, row + Board.ROWS - bottom, col);
+        assertTrue(this.board.collides(tetromino));
+        tetromino.place(TetrominoType.I, 0, row + Board.ROWS - 1 - bottom, col);
+        assertFalse(this.board.collides(tetromino));
+        assertFalse(this.board.canDrop(tetromino));
+        assertEquals(0, this.board.dropDistance(tetromino));
+    }
+
+    @Test
+    public void dropDistanceUnderOverhang() {
+        // 第5行左侧悬空，方块组已平移到悬空方块下方，只能落到底部
+        this.board.setRow(5, 0x7, TetrominoType.O);
+        fill(5, 0x7, TetrominoType.O);
+        Tetromino tetromino = new Tetromino(TetrominoType.O);
+        tetromino.place(TetrominoType.O, 0, 10, 0);
+        assertFalse(this.board.collides(tetromino));
+        assertEquals(naiveDropDistance(tetromino), this.board.dropDistance(tetromino));
+        assertEquals(Board.ROWS - 1 - tetromino.getBottom(), this.board.dropDistance(tetromino));
+    }
+
+    @Test
+    public void clearLinesCompactsRows() {
+        int holes = Board.FULL_ROW & ~(1 << 3);
+        this.board.setRow(Board.ROWS - 1, Board.FULL_ROW, TetrominoType.I);
+        this.board.setRow(Board.ROWS - 2, holes, TetrominoType.L);
+        this.board.setRow(Board.ROWS - 3, Board.FULL_ROW, TetrominoType.S);
+        this.board.setRow(Board.ROWS - 4, 0x1, TetrominoType.Z);
+        assertEquals(2, this.board.clearLines());
+        assertEquals(1 << (Board.ROWS - 1) | 1 << (Board.ROWS - 3), this.board.getLastClearedMask());
+        assertEquals(holes, this.board.getRow(Board.ROWS - 1));
+        assertEquals(TetrominoType.L.getId(), this.board.getType(Board.ROWS - 1, 0));
+        assertEquals(0x1, this.board.getRow(Board.ROWS - 2));
+        assertEquals(TetrominoType.Z.getId(), this.board.getType(Board.ROWS - 2, 0));
+        assertEquals(0, this.board.getRow(Board.ROWS - 3));
+        assertEquals(2, this.board.getHeight());
+        assertEquals(2, this.board.getColumnHeight(0));
+        assertEquals(0, this.board.getColumnHeight(3));
+        assertEquals(0, this.board.clearLines());
+    }
+
+    @Test
+    public void randomPlacementsMatchNaiveBoard() {
+        Random random = new Random(20240501L);
+        Tetromino tetromino = new Tetromino(TetrominoType.T);
+        for (int trial = 0; trial < 200000; trial++) {
+            TetrominoType type = TYPES[random.nextInt(TYPES.length)];
+            tetromino.place(type, random.nextInt(4), random.nextInt(Board.ROWS + 4) - 3,
+                    random.nextInt(Board.COLS + 4) - 3);
+            boolean collides = naiveCollides(tetromino);
+            assertEquals(collides, this.board.collides(tetromino));
+            if (collides) {
+                continue;
+            }
+            boolean canDrop = naiveCanDrop(tetromino);
+            assertEquals(canDrop, this.board.canDrop(tetromino));
+            int distance = naiveDropDistance(tetromino);
+            assertEquals(distance, this.board.dropDistance(tetromino));
+            if (random.nextInt(4) != 0) {
+                continue;
+            }
+            // 随机选择直接落底或停在原处，后者会留下悬空方块
+            if (random.nextBoolean()) {
+                tetromino.dropBy(distance);
+            }
+            this.board.land(tetromino);
+            for (int i = 0; i < 4; i++) {
+                this.grid[tetromino.getCellRow(i)][tetromino.getCellCol(i)] = type.getId();
+            }
+            assertEquals(naiveClearLines(), this.board.clearLines());
+            assertSameAsGrid();
+            if (this.board.getHeight() > Board.ROWS - 4) {
+                this.board.clear();
+                clearGrid();
+                assertSameAsGrid();
+            }
+        }
+    }
+
+    @Test
+    public void copyFromCopiesEverything() {
+        this.board.setRow(Board.ROWS - 1, Board.FULL_ROW, TetrominoType.J);
+        this.board.setRow(Board.ROWS - 2, 0x30, TetrominoType.T);
+        this.board.clearLines();
+        Board copy = new Board();
+        copy.copyFrom(this.board);
+        for (int row = 0; row < Board.ROWS; row++) {
+            assertEquals(this.board.getRow(row), copy.getRow(row));
+            assertEquals(this.board.getRowTypes(row), copy.getRowTypes(row));
+        }
+        assertEquals(this.board.getHash(), copy.getHash());
+        assertEquals(this.board.getColumnHeights(), copy.getColumnHeights());
+        assertEquals(this.board.getLastClearedMask(), copy.getLastClearedMask());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addGarbageRejectsHoleOutsideBoard() {
+        this.board.addGarbage(1, Board.COLS, TetrominoType.O);
+    }
+
+    private void assertSameAsGrid() {
+        int height = 0;
+        for (int row = 0; row < Board.ROWS; row++) {
+            int mask = 0;
+            for (int col = 0; col < Board.COLS; col++) {
+                if (this.grid[row][col] != 0) {
+                    mask |= 1 << col;
+                }
+                assertEquals(this.grid[row][col] != 0, this.board.isOccupied(row, col));
+                assertEquals(this.grid[row][col], this.board.getType(row, col));
+            }
+            assertEquals(mask, this.board.getRow(row));
+            if (mask != 0 && height == 0) {
+                height = Board.ROWS - row;
+            }
+        }
+        assertEquals(height, this.board.getHeight());
+        for (int col = 0; col < Board.COLS; col++) {
+            int columnHeight = 0;
+            for (int row = Board.ROWS - 1; row >= 0; row--) {
+                if (this.grid[row][col] != 0) {
+                    columnHeight = Board.ROWS - row;
+                }
+            }
+            assertEquals("column " + col, columnHeight, this.board.getColumnHeight(col));
+        }
+    }
+
+    private boolean naiveCollides(Tetromino tetromino) {
+        return naiveCollides(tetromino, 0);
+    }
+
+    private boolean naiveCollides(Tetromino tetromino, int offset) {
+        for (int i = 0; i < 4; i++) {
+            int row = tetromino.getCellRow(i) + offset;
+            int col = tetromino.getCellCol(i);
+            if (row < 0 || row >= Board.ROWS || col < 0 || col >= Board.COLS || this.grid[row][col] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean naiveCanDrop(Tetromino tetromino) {
+        return !naiveCollides(tetromino, 1);
+    }
+
+    private int naiveDropDistance(Tetromino tetromino) {
+        int distance = 0;
+        while (!naiveCollides(tetromino, distance + 1)) {
+            distance++;
+        }
+        return distance;
+    }
+
+    /**
+     * 逐行检查并删除已满的行，上方的行逐行下移
+     */
+    private int naiveClearLines() {
+        int cleared = 0;
+        for (int row = Board.ROWS - 1; row >= 0; row--) {
+            boolean isFull = true;
+            for (int col = 0; col < Board.COLS; col++) {
+                isFull &= this.grid[row][col] != 0;
+            }
+            if (!isFull) {
+                continue;
+            }
+            for (int above = row; above > 0; above--) {
+                this.grid[above] = this.grid[above - 1].clone();
+            }
+            this.grid[0] = new int[Board.COLS];
+            cleared++;
+            row++;
+        }
+        return cleared;
+    }
+
+    private void fill(int row, int mask, TetrominoType type) {
+        for (int col = 0; col < Board.COLS; col++) {
+            this.grid[row][col] = (mask & (1 << col)) != 0 ? type.getId() : 0;
+        }
+    }
+
+    private void clearGrid() {
+        for (int[] row : this.grid) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 指南式计分测试：在手工构造的面板上落地，检查GameEngine的T旋判定、连击、背靠背和GuidelineScoringRules的得分
+ */
+public class GameEngineScoringTest {
+
+    private final GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW,
+            1L), 1L, RotationSystem.SRS, ScoringType.GUIDELINE.create());
+
+    /**
+     * T朝上停在槽上方，两次右转原地转为朝下，三个斜角被占据且朝下一侧的两个斜角都被占据，T旋消两行
+     */
+    @Test
+    public void tSpinDoubleByRotation() {
+        setRows(17,
+                "####......",
+                "###...####",
+                "####.#####");
+        place(TetrominoType.T, 0, 18, 4);
+        assertFalse(this.engine.getWall().canDrop(this.engine.getTetromino()));
+        assertEquals(StepResult.MOVED, this.engine.step(Action.ROTATE_RIGHT));
+        assertEquals(StepResult.MOVED, this.engine.step(Action.ROTATE_RIGHT));
+        assertEquals(2, this.engine.getTetromino().getRotation());
+        assertEquals(1200, lock());
+        assertEquals(2, this.engine.getLastClearedLines());
+        assertEquals(TSpin.FULL, this.engine.getLastTSpin());
+        assertTrue(this.engine.isBackToBack());
+    }
+
+    /**
+     * 左转用到第5个偏移进入槽中，朝左一侧只有一个斜角被占据，本应是迷你T旋，因为最远的踢墙偏移升级为T旋
+     */
+    @Test
+    public void tstKickUpgradesMiniToFull() {
+        setRows(14,
+                "....#.....",
+                "..........",
+                "####.#####",
+                "###..#####",
+                "###..#####",
+                ".#########");
+        place(TetrominoType.T, 0, 15, 3);
+        assertEquals(StepResult.MOVED, this.engine.step(Action.ROTATE_LEFT));
+        Tetromino t = this.engine.getTetromino();
+        assertEquals(3, t.getRotation());
+        assertEquals(17, t.getRow());
+        assertEquals(4, t.getCol());
+        assertFalse(this.engine.getWall().isOccupied(18, 3));
+        assertEquals(1200, lock());
+        assertEquals(2, this.engine.getLastClearedLines());
+        assertEquals(TSpin.FULL, this.engine.getLastTSpin());
+    }
+
+    /**
+     * 左转落到悬空方块下方的地面上是迷你T旋；同样的旋转之后再平移一格，即使三个斜角仍被占据也不是T旋
+     */
+    @Test
+    public void moveAfterRotationIsNotTSpin() {
+        setRows(18, "#..#......");
+        place(TetrominoType.T, 1, 18, 1);
+        assertEquals(StepResult.MOVED, this.engine.step(Action.ROTATE_LEFT));
+        assertEquals(19, this.engine.getTetromino().getRow());
+        assertEquals(2, this.engine.getTetromino().getCol());
+        assertEquals(100, lock());
+        assertEquals(TSpin.MINI, this.engine.getLastTSpin());
+
+        this.engine.getWall().clear();
+        setRows(18, "#..#......");
+        place(TetrominoType.T, 1, 18, 1);
+        assertEquals(StepResult.MOVED, this.engine.step(Action.ROTATE_LEFT));
+        assertEquals(StepResult.MOVED, this.engine.step(Action.MOVE_LEFT));
+        assertEquals(1, this.engine.getTetromino().getCol());
+        assertEquals(0, lock());
+        assertEquals(TSpin.NONE, this.engine.getLastTSpin());
+    }
+
+    /**
+     * 连续消行时连击数逐次加一，每级连击加50分；没有消行的落地把连击重置
+     */
+    @Test
+    public void comboCountsAndResets() {
+        setRows(16,
+                "....######",
+                "....######",
+                "....######",
+                "....######");
+        assertEquals(-1, this.engine.getCombo());
+        for (int combo = 0; combo < 3; combo++) {
+            place(TetrominoType.I, 0, 19, 1);
+            assertEquals(100 + 50 * combo, lock());
+            assertEquals(combo, this.engine.getCombo());
+        }
+        place(TetrominoType.O, 0, 18, 4);
+        assertEquals(0, lock());
+        assertEquals(-1, this.engine.getCombo());
+        place(TetrominoType.I, 0, 19, 1);
+        assertEquals(100, lock());
+        assertEquals(0, this.engine.getCombo());
+        assertFalse(this.engine.isBackToBack());
+    }
+
+    /**
+     * 背靠背状态跨过没有消行的落地保留，只有第二次困难消行乘以1.5
+     */
+    @Test
+    public void backToBackSurvivesNonClearingLocks() {
+        String[] stack = {"#########.", "#########.", "#########.", "#########."};
+        setRows(16, stack);
+        place(TetrominoType.I, 1, 17, 8);
+        assertEquals(800, lock());
+        assertEquals(4, this.engine.getLastClearedLines());
+        assertTrue(this.engine.isBackToBack());
+        assertEquals(0, this.engine.getWall().getHeight());
+
+        setRows(16, stack);
+        place(TetrominoType.T, 0, 15, 4);
+        assertEquals(0, lock());
+        assertTrue(this.engine.isBackToBack());
+        assertEquals(-1, this.engine.getCombo());
+        place(TetrominoType.I, 1, 17, 8);
+        assertEquals(800 + 400, lock());
+        assertTrue(this.engine.isBackToBack());
+
+        // 普通的单行消除中断背靠背
+        setRows(19, "#########.");
+        place(TetrominoType.I, 1, 17, 8);
+        assertEquals(100 + 50, lock());
+        assertFalse(this.engine.isBackToBack());
+        assertEquals(9, this.engine.getLines());
+    }
+
+    @Test
+    public void guidelineRulesTable() {
+        ScoringRules rules = new GuidelineScoringRules();
+        assertEquals(800, rules.getLockPoints(4, TSpin.NONE, -1, false, 1));
+        assertEquals(1200 * 3, rules.getLockPoints(4, TSpin.NONE, -1, true, 3));
+        assertEquals(400, rules.getLockPoints(0, TSpin.FULL, -1, false, 1));
+        assertEquals(1600, rules.getLockPoints(3, TSpin.FULL, 0, false, 1));
+        assertEquals(200, rules.getLockPoints(1, TSpin.MINI, -1, false, 1));
+        assertEquals((300 + 50 * 2) * 2, rules.getLockPoints(2, TSpin.NONE, 2, false, 2));
+        assertEquals(1, rules.getLevel(0));
+        assertEquals(2, rules.getLevel(10));
+        assertEquals(GuidelineScoringRules.MAX_LEVEL, rules.getLevel(1000));
+        assertEquals(2, rules.getSoftDropPoints(2));
+        assertEquals(6, rules.getHardDropPoints(3));
+        for (int level = 2; level <= GuidelineScoringRules.MAX_LEVEL; level++) {
+            assertTrue(rules.getGravityIntervalNanos(level) < rules.getGravityIntervalNanos(level - 1));
+        }
+    }
+
+    /**
+     * 把当前方块组放到指定位置，不能与面板重叠
+     */
+    private void place(TetrominoType type, int rotation, int row, int col) {
+        Tetromino t = this.engine.getTetromino();
+        t.place(type, rotation, row, col);
+        assertFalse(this.engine.getWall().collides(t));
+    }
+
+    /**
+     * 在原地直接落底，不计硬降得分
+     *
+     * @return 落地的得分
+     */
+    private int lock() {
+        assertEquals(0, this.engine.getWall().dropDistance(this.engine.getTetromino()));
+        int scores = this.engine.getScores();
+        this.engine.step(Action.HARD_DROP);
+        assertFalse(this.engine.isGameOver());
+        return this.engine.getScores() - scores;
+    }
+
+    private void setRows(int top, String... rows) {
+        for (int i = 0; i < rows.length; i++) {
+            int mask = 0;
+            for (int col = 0; col < Board.COLS; col++) {
+                if (rows[i].charAt(col) == '#') {
+                    mask |= 1 << col;
+                }
+            }
+            this.engine.getWall().setRow(top + i, mask, TetrominoType.O);
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 快照与还原测试：随机走N步后保存快照，再走M步；还原后重走同样的M步，每一步的局面、记分状态和之后的方块组序列都必须相同
+ */
+public class GameSnapshotTest {
+
+    private static final Action[] ACTIONS = Action.values();
+
+    /**
+     * 操作编码中表示重力下落的值
+     */
+    private static final int GRAVITY = ACTIONS.length;
+
+    private static final int BEFORE_STEPS = 500, AFTER_STEPS = 1500, SEQUENCE_PIECES = 50;
+
+    @Test
+    public void restoreReplaysIdentically() {
+        for (PieceGeneratorType generatorType : PieceGeneratorType.values()) {
+            for (long seed = 1; seed <= 3; seed++) {
+                assertReplaysIdentically(generatorType, seed);
+            }
+        }
+    }
+
+    /**
+     * 覆盖写入已有快照后还原，得到的是后一次保存时的状态
+     */
+    @Test
+    public void snapshotIntoExistingOverwrites() {
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, 8L), 8L,
+                RotationSystem.SRS, ScoringType.GUIDELINE.create());
+        GameSnapshot snapshot = engine.snapshot();
+        GamePolicy policy = new PlacementPolicy();
+        while (engine.getPieces() < 20) {
+            engine.step(policy.decide(engine));
+        }
+        engine.snapshot(snapshot);
+        String expected = describe(engine);
+        while (engine.getPieces() < 40) {
+            engine.step(policy.decide(engine));
+        }
+        engine.restore(snapshot);
+        assertEquals(expected, describe(engine));
+        assertEquals(20, snapshot.getPieces());
+        assertEquals(engine.getWall().getHash(), snapshot.getHash());
+    }
+
+    private static void assertReplaysIdentically(PieceGeneratorType generatorType, long seed) {
+        GameEngine engine = new GameEngine(generatorType.create(PieceGeneratorType.DEFAULT_PREVIEW, seed), seed,
+                RotationSystem.SRS, ScoringType.GUIDELINE.create());
+        Random random = new Random(seed);
+        GamePolicy policy = new PlacementPolicy();
+        for (int i = 0; i < BEFORE_STEPS && !engine.isGameOver(); i++) {
+            apply(engine, next(engine, random, policy));
+        }
+        String context = generatorType + " seed " + seed;
+        assertTrue(context, !engine.isGameOver() && engine.getPieces() > 0);
+        GameSnapshot snapshot = engine.snapshot();
+        String before = describe(engine);
+
+        int[] codes = new int[AFTER_STEPS];
+        List<String> states = new ArrayList<>();
+        for (int i = 0; i < AFTER_STEPS; i++) {
+            codes[i] = next(engine, random, policy);
+            apply(engine, codes[i]);
+            states.add(describe(engine));
+        }
+        List<TetrominoType> sequence = drawSequence(engine);
+
+        for (int round = 0; round < 2; round++) {
+            engine.restore(snapshot);
+            assertEquals(context, before, describe(engine));
+            for (int i = 0; i < AFTER_STEPS; i++) {
+                apply(engine, codes[i]);
+                assertEquals(context + " step " + i, states.get(i), describe(engine));
+            }
+            assertEquals(context, sequence, drawSequence(engine));
+        }
+    }
+
+    /**
+     * 大部分时候由落点搜索策略操作，夹杂随机操作和重力下落，使局面包含暂存、连击和T旋等各种状态
+     */
+    private static int next(GameEngine engine, Random random, GamePolicy policy) {
+        int roll = random.nextInt(20);
+        if (roll == 0) {
+            return GRAVITY;
+        }
+        return roll == 1 ? random.nextInt(ACTIONS.length) : policy.decide(engine).ordinal();
+    }
+
+    private static void apply(GameEngine engine, int code) {
+        if (code == GRAVITY) {
+            engine.tick();
+        } else {
+            engine.step(ACTIONS[code]);
+        }
+    }
+
+    /**
+     * 从生成器直接取出之后的方块组，会改变引擎的状态，只在比较的最后调用
+     */
+    private static List<TetrominoType> drawSequence(GameEngine engine) {
+        List<TetrominoType> sequence = new ArrayList<>();
+        for (int i = 0; i < SEQUENCE_PIECES; i++) {
+            sequence.add(engine.getGenerator().next());
+        }
+        return sequence;
+    }
+
+    private static String describe(GameEngine engine) {
+        Tetromino t = engine.getTetromino();
+        StringBuilder builder = new StringBuilder()
+                .append("hash=").append(engine.getWall().getHash())
+                .append(" piece=").append(t.getType()).append('/').append(t.getRotation())
+                .append('@').append(t.getRow()).append(',').append(t.getCol())
+                .append(" next=").append(engine.getNextTetromino().getType())
+                .append(" held=").append(engine.getHeldType()).append('/').append(engine.isHoldUsed())
+                .append(" combo=").append(engine.getCombo())
+                .append(" b2b=").append(engine.isBackToBack())
+                .append(" tspin=").append(engine.getLastTSpin())
+                .append(" scores=").append(engine.getScores())
+                .append(" lines=").append(engine.getLines())
+                .append(" pieces=").append(engine.getPieces())
+                .append(" over=").append(engine.isGameOver())
+                .append(" preview=");
+        for (int i = 0; i < engine.getPreviewCount(); i++) {
+            builder.append(engine.getPreview(i));
+        }
+        for (int row = 0; row < Board.ROWS; row++) {
+            builder.append(' ').append(engine.getWall().getRowTypes(row));
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 输入子系统测试：用人为的时间戳调用update()，逐帧检查DAS、ARR、ARR为0、操作系统自动重复的过滤和软降倍率
+ */
+public class InputControllerTest {
+
+    /**
+     * 时间戳的起点，0在InputController中表示没有松开事件，不能用作时间戳
+     */
+    private static final long START_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final Action L = Action.MOVE_LEFT, R = Action.MOVE_RIGHT;
+
+    private final InputController input = new InputController();
+
+    public InputControllerTest() {
+        this.input.setDasMillis(100);
+        this.input.setArrMillis(20);
+    }
+
+    /**
+     * 按下时立即平移一次，按住满DAS后平移一次，之后每隔ARR平移一次，松开后停止
+     */
+    @Test
+    public void dasThenArr() {
+        this.input.press(L, nanos(0));
+        assertFrame(0, L);
+        assertEquals(nanos(0), this.input.getActionNanos(0));
+        assertFrame(99);
+        assertFrame(100, L);
+        assertEquals(0, this.input.getActionNanos(0));
+        assertFrame(119);
+        assertFrame(140, L, L);
+        assertFrame(159);
+        assertFrame(160, L);
+        this.input.release(L, nanos(165));
+        // 松开后的2ms内可能是操作系统的自动重复，仍视为按住
+        assertFrame(166);
+        assertFrame(167);
+        assertFrame(500);
+    }
+
+    /**
+     * ARR为0时满DAS后每帧直接平移到底
+     */
+    @Test
+    public void zeroArrShiftsToWall() {
+        this.input.setArrMillis(0);
+        this.input.press(R, nanos(0));
+        assertFrame(0, R);
+        assertFrame(99);
+        assertFrame(100, R, R, R, R, R, R, R, R, R);
+        assertFrame(117, R, R, R, R, R, R, R, R, R);
+    }
+
+    /**
+     * 松开后2ms内又按下，或没有松开的重复按下，都是操作系统的自动重复，不产生操作，也不重新开始DAS
+     */
+    @Test
+    public void osRepeatIsFiltered() {
+        this.input.press(L, nanos(0));
+        this.input.release(L, nanos(50));
+        this.input.press(L, nanos(51));
+        this.input.press(L, nanos(70));
+        assertFrame(80, L);
+        assertFrame(100, L);
+        // 间隔足够长的松开和按下是真正的再次按下，DAS从头开始
+        this.input.release(L, nanos(105));
+        assertFrame(110);
+        this.input.press(L, nanos(115));
+        assertFrame(115, L);
+        assertFrame(214);
+        assertFrame(215, L);
+    }
+
+    /**
+     * 先松开当前方向时，仍按住的另一个方向从松开时开始DAS
+     */
+    @Test
+    public void releasingShiftFallsBackToOtherDirection() {
+        this.input.press(L, nanos(0));
+        this.input.press(R, nanos(10));
+        assertFrame(10, L, R);
+        assertFrame(109);
+        assertFrame(110, R);
+        this.input.release(R, nanos(120));
+        assertFrame(125);
+        assertFrame(224);
+        assertFrame(225, L);
+    }
+
+    /**
+     * 按住下键时重力乘以软降倍率，松开（越过自动重复的判定时间）后恢复为1
+     */
+    @Test
+    public void softDropFactor() {
+        this.input.setSoftDropFactor(10);
+        assertEquals(1, this.input.getGravityFactor());
+        this.input.press(Action.SOFT_DROP, nanos(0));
+        assertFrame(0, Action.SOFT_DROP);
+        assertEquals(10, this.input.getGravityFactor());
+        // 按住下键不会像平移那样自动重复
+        assertFrame(1000);
+        assertEquals(10, this.input.getGravityFactor());
+        this.input.release(Action.SOFT_DROP, nanos(1000));
+        assertFrame(1001);
+        assertEquals(1, this.input.getGravityFactor());
+        assertFrame(1002);
+        assertEquals(1, this.input.getGravityFactor());
+        this.input.setSoftDropFactor(0);
+        this.input.press(Action.SOFT_DROP, nanos(2000));
+        assertFrame(2000, Action.SOFT_DROP);
+        assertEquals(1, this.input.getGravityFactor());
+    }
+
+    /**
+     * 单击只执行一次，不改变按键状态
+     */
+    @Test
+    public void tapDoesNotHold() {
+        this.input.tap(Action.HARD_DROP, nanos(0));
+        this.input.tap(L, nanos(1));
+        assertFrame(1, Action.HARD_DROP, L);
+        assertFrame(1000);
+    }
+
+    private void assertFrame(long millis, Action... expected) {
+        int count = this.input.update(nanos(millis));
+        Action[] actual = new Action[count];
+        for (int i = 0; i < count; i++) {
+            actual[i] = this.input.getAction(i);
+        }
+        assertArrayEquals("frame at " + millis + " ms", expected, actual);
+    }
+
+    private static long nanos(long millis) {
+        return START_NANOS + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+}
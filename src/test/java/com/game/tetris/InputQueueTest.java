@@ -0,0 +1,82 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多生产者单消费者输入队列测试：容量、满时入队失败，以及多个线程并发入队时每个事件恰好出队一次且保持各生产者的顺序
+ */
+public class InputQueueTest {
+
+    private static final int PRODUCERS = 4, EVENTS = 200_000;
+
+    @Test
+    public void offerFailsWhenFull() {
+        InputQueue queue = new InputQueue(8);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i, 100 + i));
+        }
+        assertFalse(queue.offer(8, 108));
+        assertTrue(queue.poll());
+        assertEquals(0, queue.getPolledCode());
+        assertEquals(100, queue.getPolledTime());
+        assertTrue(queue.offer(8, 108));
+        for (int i = 1; i <= 8; i++) {
+            assertTrue(queue.poll());
+            assertEquals(i, queue.getPolledCode());
+        }
+        assertFalse(queue.poll());
+        queue.offer(9, 109);
+        queue.clear();
+        assertFalse(queue.poll());
+    }
+
+    @Test(timeout = 60_000)
+    public void concurrentProducersDrainExactlyOnceInOrder() throws InterruptedException {
+        InputQueue queue = new InputQueue(64);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < EVENTS; i++) {
+                    // 事件编码为生产者编号，时间戳为该生产者的事件序号
+                    while (!queue.offer(producer, i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producers[p].start();
+        }
+        start.countDown();
+        long[] expected = new long[PRODUCERS];
+        for (int received = 0; received < PRODUCERS * EVENTS; ) {
+            if (queue.poll()) {
+                int producer = queue.getPolledCode();
+                assertEquals("producer " + producer, expected[producer], queue.getPolledTime());
+                expected[producer]++;
+                received++;
+            } else {
+                Thread.yield();
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertFalse(queue.poll());
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(EVENTS, expected[p]);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 前瞻搜索策略测试：只搜索1层时与PlacementPolicy选择同样的操作
+ */
+public class LookaheadPolicyTest {
+
+    @Test
+    public void onePlyMatchesPlacementPolicy() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (RotationSystem rotationSystem : RotationSystem.values()) {
+                long seed = 21L + rotationSystem.ordinal();
+                GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW,
+                        seed), seed, rotationSystem);
+                PlacementPolicy placement = new PlacementPolicy();
+                LookaheadPolicy lookahead = new LookaheadPolicy(WeightedEvaluator.DEFAULT, 1,
+                        TimeUnit.MINUTES.toNanos(1), pool);
+                while (!engine.isGameOver() && engine.getPieces() < 300) {
+                    Action expected = placement.decide(engine);
+                    assertEquals(rotationSystem + " piece " + engine.getPieces(), expected, lookahead.decide(engine));
+                    engine.step(expected);
+                }
+                assertEquals(1, lookahead.getLastDepth());
+                assertTrue(engine.getLines() > 0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
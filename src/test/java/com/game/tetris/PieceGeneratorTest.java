@@ -0,0 +1,131 @@
+package com.game.tetris;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 方块组生成器测试：7-bag每个对齐的7个一组都是一个排列；相同种子得到相同序列；peek(i)与之后的next()一致；next()不分配内存
+ */
+public class PieceGeneratorTest {
+
+    private static final int PIECES = 7 * 1000;
+
+    /**
+     * 检查内存分配时调用next()的次数，每次调用即使只分配一个对象，总量也远超允许的误差
+     */
+    private static final int ALLOCATION_CALLS = 100_000;
+
+    /**
+     * 读取线程分配量本身可能产生的少量分配
+     */
+    private static final long ALLOCATION_TOLERANCE = 1024;
+
+    @Test
+    public void bagRunsArePermutations() {
+        for (long seed = 1; seed <= 5; seed++) {
+            PieceGenerator generator = PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, seed);
+            for (int bag = 0; bag < PIECES / 7; bag++) {
+                int seen = 0;
+                for (int i = 0; i < 7; i++) {
+                    seen |= 1 << generator.next().ordinal();
+                }
+                assertEquals("seed " + seed + " bag " + bag, (1 << 7) - 1, seen);
+            }
+        }
+    }
+
+    /**
+     * 相同种子的两个生成器，以及reset(seed)之后的生成器，都得到相同的序列；不同种子的序列不同
+     */
+    @Test
+    public void sameSeedSameSequence() {
+        for (PieceGeneratorType type : PieceGeneratorType.values()) {
+            List<TetrominoType> expected = draw(type.create(PieceGeneratorType.DEFAULT_PREVIEW, 7L), PIECES);
+            assertEquals(type.name(), expected, draw(type.create(PieceGeneratorType.DEFAULT_PREVIEW, 7L), PIECES));
+            assertNotEquals(type.name(), expected, draw(type.create(PieceGeneratorType.DEFAULT_PREVIEW, 8L), PIECES));
+
+            PieceGenerator generator = type.create(PieceGeneratorType.DEFAULT_PREVIEW, 8L);
+            draw(generator, 123);
+            generator.reset(7L);
+            assertEquals(type.name(), expected, draw(generator, PIECES));
+        }
+    }
+
+    /**
+     * 每一步的peek(i)都等于之后第i+1次next()的结果
+     */
+    @Test
+    public void peekMatchesLaterNext() {
+        for (PieceGeneratorType type : PieceGeneratorType.values()) {
+            PieceGenerator generator = type.create(PieceGeneratorType.DEFAULT_PREVIEW, 3L);
+            int capacity = generator.getPreviewCapacity();
+            assertTrue(capacity >= PieceGeneratorType.DEFAULT_PREVIEW);
+            List<TetrominoType> sequence = draw(type.create(PieceGeneratorType.DEFAULT_PREVIEW, 3L), PIECES + capacity);
+            for (int n = 0; n < PIECES; n++) {
+                for (int i = 0; i < capacity; i++) {
+                    assertEquals(type + " piece " + n + " peek " + i, sequence.get(n + i), generator.peek(i));
+                }
+                assertEquals(type + " piece " + n, sequence.get(n), generator.next());
+            }
+        }
+    }
+
+    /**
+     * 复制状态后两个生成器继续产生相同的序列
+     */
+    @Test
+    public void copyFromContinuesSequence() {
+        for (PieceGeneratorType type : PieceGeneratorType.values()) {
+            PieceGenerator source = type.create(PieceGeneratorType.DEFAULT_PREVIEW, 5L);
+            draw(source, 100);
+            PieceGenerator copy = type.create(PieceGeneratorType.DEFAULT_PREVIEW, 9L);
+            copy.copyFrom(source);
+            assertEquals(type.name(), draw(source, PIECES), draw(copy, PIECES));
+        }
+    }
+
+    @Test
+    public void nextDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+        for (PieceGeneratorType type : PieceGeneratorType.values()) {
+            PieceGenerator generator = type.create(PieceGeneratorType.DEFAULT_PREVIEW, 11L);
+            // 预热，让类加载和解释执行阶段的分配发生在统计之前
+            int checksum = drain(generator, ALLOCATION_CALLS);
+            long before = threads.getThreadAllocatedBytes(thread);
+            checksum += drain(generator, ALLOCATION_CALLS);
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            assertTrue(type + " allocated " + allocated + " bytes", allocated <= ALLOCATION_TOLERANCE);
+            assertTrue(checksum > 0);
+        }
+    }
+
+    private static int drain(PieceGenerator generator, int count) {
+        int checksum = 0;
+        for (int i = 0; i < count; i++) {
+            checksum += generator.peek(i % generator.getPreviewCapacity()).ordinal();
+            checksum += generator.next().ordinal();
+        }
+        return checksum;
+    }
+
+    private static List<TetrominoType> draw(PieceGenerator generator, int count) {
+        List<TetrominoType> sequence = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sequence.add(generator.next());
+        }
+        return sequence;
+    }
+
+}
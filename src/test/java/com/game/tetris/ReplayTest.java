@@ -0,0 +1,152 @@
+package com.game.tetris;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 回放往返测试：ReplayRecorder记录的一局由ReplayPlayer重放后，结束局面的哈希和记分与原局相同
+ */
+public class ReplayTest {
+
+    private static final Action[] ACTIONS = Action.values();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripReproducesFinalState() throws IOException {
+        File file = this.folder.newFile("round-trip.ttr");
+        GameEngine engine = record(file, 42L, RotationSystem.SRS, ScoringType.GUIDELINE, 20000);
+        try (ReplayPlayer player = new ReplayPlayer(file)) {
+            assertEquals(RotationSystem.SRS, player.getRotationSystem());
+            assertEquals(ScoringType.GUIDELINE, player.getScoringType());
+            assertEquals(42L, player.getSeed());
+            GameEngine replayed = player.createEngine();
+            assertTrue(player.isCompatible(replayed));
+            player.fastForward(replayed, Long.MAX_VALUE);
+            assertFalse(player.hasNext());
+            assertSameState(engine, replayed);
+            assertTrue(replayed.getLines() > 0);
+        }
+    }
+
+    @Test
+    public void fastForwardStopsBeforeFrame() throws IOException {
+        File file = this.folder.newFile("fast-forward.ttr");
+        record(file, 7L, RotationSystem.CLASSIC, ScoringType.CLASSIC, 2000);
+        try (ReplayPlayer player = new ReplayPlayer(file)) {
+            GameEngine replayed = player.createEngine();
+            player.fastForward(replayed, 1000);
+            assertTrue(player.hasNext());
+            assertTrue(player.peekFrame() >= 1000);
+        }
+    }
+
+    /**
+     * 用很小的映射窗口重放，事件在每种对齐方式下都会跨越窗口边界，结果必须与一次映射整个文件相同
+     */
+    @Test
+    public void eventsSpanningWindowBoundaries() throws IOException {
+        File file = this.folder.newFile("windows.ttr");
+        GameEngine engine = record(file, 99L, RotationSystem.SRS, ScoringType.GUIDELINE, 3000);
+        for (int windowBytes = 17; windowBytes <= 48; windowBytes++) {
+            try (ReplayPlayer player = new ReplayPlayer(file, windowBytes)) {
+                GameEngine replayed = player.createEngine();
+                player.fastForward(replayed, Long.MAX_VALUE);
+                assertSameState(engine, replayed);
+            }
+        }
+    }
+
+    /**
+     * 末尾写了一半的事件视为文件结束
+     */
+    @Test
+    public void truncatedEventEndsReplay() throws IOException {
+        File file = this.folder.newFile("truncated.ttr");
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(5, 3L), 3L);
+        try (ReplayRecorder recorder = new ReplayRecorder(new FileOutputStream(file), engine)) {
+            recorder.record(1, Action.MOVE_LEFT);
+            recorder.record(1 << 20, Action.HARD_DROP);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        try (ReplayPlayer player = new ReplayPlayer(file, 17)) {
+            GameEngine replayed = player.createEngine();
+            assertEquals(1, player.fastForward(replayed, Long.MAX_VALUE));
+        }
+    }
+
+    /**
+     * 只接受当前版本的文件头
+     */
+    @Test
+    public void otherVersionIsRejected() throws IOException {
+        File file = this.folder.newFile("version.ttr");
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(5, 3L), 3L);
+        new ReplayRecorder(new FileOutputStream(file), engine).close();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.write(ReplayRecorder.VERSION + 1);
+        }
+        try {
+            new ReplayPlayer(file).close();
+            fail("accepted version " + (ReplayRecorder.VERSION + 1));
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("版本"));
+        }
+    }
+
+    /**
+     * 由落点搜索策略操作，夹杂随机输入和重力记录一局；偶尔长时间没有事件，使帧间隔编码为多字节varint
+     */
+    private static GameEngine record(File file, long seed, RotationSystem rotationSystem, ScoringType scoringType,
+                                     int events) throws IOException {
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(5, seed), seed, rotationSystem,
+                scoringType.create());
+        Random random = new Random(seed);
+        GamePolicy policy = new PlacementPolicy();
+        long frame = 0;
+        try (ReplayRecorder recorder = new ReplayRecorder(new BufferedOutputStream(new FileOutputStream(file)),
+                engine)) {
+            for (int i = 0; i < events && !engine.isGameOver(); i++) {
+                int gap = random.nextInt(100);
+                frame += gap == 0 ? random.nextInt(1 << 22) : gap;
+                int roll = random.nextInt(20);
+                if (roll < 2) {
+                    engine.tick();
+                    recorder.recordGravity(frame);
+                } else {
+                    Action action = roll == 2 ? ACTIONS[random.nextInt(ACTIONS.length)] : policy.decide(engine);
+                    engine.step(action);
+                    recorder.record(frame, action);
+                }
+            }
+        }
+        return engine;
+    }
+
+    private static void assertSameState(GameEngine expected, GameEngine actual) {
+        assertEquals(expected.getWall().getHash(), actual.getWall().getHash());
+        assertEquals(expected.getScores(), actual.getScores());
+        assertEquals(expected.getLines(), actual.getLines());
+        assertEquals(expected.getPieces(), actual.getPieces());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        assertEquals(expected.getHeldType(), actual.getHeldType());
+    }
+
+}
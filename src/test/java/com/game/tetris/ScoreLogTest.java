@@ -0,0 +1,241 @@
+package com.game.tetris;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 成绩记录文件测试：重新打开、最高分排序、扫描在未提交的记录处停止、压缩前后累计统计不变
+ */
+public class ScoreLogTest {
+
+    /**
+     * 文件头长度、记录长度和提交标记在记录中的偏移，见ScoreLog的文件格式
+     */
+    private static final int HEADER_BYTES = 64, RECORD_BYTES = 40, COMMIT = 39;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopenAfterAppend() throws IOException {
+        File file = new File(this.folder.getRoot(), "scores/scores.tts");
+        try (ScoreLog log = new ScoreLog(file, ScoreLog.DEFAULT_TOP_CAPACITY)) {
+            log.append(new FinishedGame(11L, 300, 3, 40), TimeUnit.SECONDS.toNanos(20));
+            log.append(new FinishedGame(12L, 1200, 10, 90), TimeUnit.SECONDS.toNanos(45));
+        }
+        try (ScoreLog log = new ScoreLog(file, ScoreLog.DEFAULT_TOP_CAPACITY)) {
+            assertEquals(2, log.getRecordCount());
+            assertEquals(2, log.getGames());
+            assertEquals(1500, log.getTotalScores());
+            assertEquals(13, log.getTotalLines());
+            assertEquals(130, log.getTotalPieces());
+            assertEquals(65000, log.getTotalDurationMillis());
+            assertEquals(1200, log.getBestScores());
+            ScoreRecord record = log.getRecord(1);
+            assertEquals(12L, record.getSeed());
+            assertEquals(1200, record.getScores());
+            assertEquals(10, record.getLines());
+            assertEquals(90, record.getPieces());
+            assertEquals(45000, record.getDurationMillis());
+            assertEquals(2.0f, record.getPiecesPerSecond(), 1e-6f);
+            assertEquals(PieceGeneratorType.BAG, record.getGeneratorType());
+            assertEquals(RotationSystem.SRS, record.getRotationSystem());
+            assertEquals(ScoringType.GUIDELINE, record.getScoringType());
+            log.append(new FinishedGame(13L, 700, 6, 60), TimeUnit.SECONDS.toNanos(30));
+            assertEquals(3, log.getRecordCount());
+        }
+    }
+
+    /**
+     * 打开期间持有文件锁，另一个ScoreLog无法同时打开同一个文件，压缩后仍持有新文件的锁
+     */
+    @Test
+    public void secondOpenIsRejected() throws IOException {
+        File file = new File(this.folder.getRoot(), "locked.tts");
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            log.append(new FinishedGame(1L, 10, 0, 1), 0);
+            assertLocked(file);
+            log.compact(1);
+            assertTrue(log.isOpen());
+            assertLocked(file);
+        }
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            assertEquals(1, log.getRecordCount());
+        }
+    }
+
+    /**
+     * 得分相同时先记录的排在前面，未进入最高分的返回-1；重新打开后扫描得到同样的顺序
+     */
+    @Test
+    public void topOrderWithTies() throws IOException {
+        File file = new File(this.folder.getRoot(), "ties.tts");
+        int[] scores = {50, 80, 50, 80, 100, 10};
+        int[] expectedRanks = {0, 0, 2, 1, 0, -1};
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            for (int i = 0; i < scores.length; i++) {
+                assertEquals("game " + i, expectedRanks[i], log.append(new FinishedGame(i, scores[i], 0, 1), 0));
+            }
+            assertTop(log, 4, 1, 3);
+        }
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            assertTop(log, 4, 1, 3);
+        }
+    }
+
+    /**
+     * 写入中途退出的记录没有提交标记，打开时扫描到此为止，之后的追加覆盖它
+     */
+    @Test
+    public void scanStopsAtUncommittedRecord() throws IOException {
+        File file = new File(this.folder.getRoot(), "torn.tts");
+        try (ScoreLog log = new ScoreLog(file, ScoreLog.DEFAULT_TOP_CAPACITY)) {
+            for (int i = 0; i < 4; i++) {
+                log.append(new FinishedGame(i, 100 * (i + 1), i, 10), 0);
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(HEADER_BYTES + 2 * RECORD_BYTES + COMMIT);
+            raf.write(0);
+        }
+        try (ScoreLog log = new ScoreLog(file, ScoreLog.DEFAULT_TOP_CAPACITY)) {
+            assertEquals(2, log.getRecordCount());
+            assertEquals(300, log.getTotalScores());
+            assertEquals(200, log.getBestScores());
+            assertEquals(2, log.append(new FinishedGame(9L, 50, 0, 5), 0));
+            assertEquals(9L, log.getRecord(2).getSeed());
+        }
+        try (ScoreLog log = new ScoreLog(file, ScoreLog.DEFAULT_TOP_CAPACITY)) {
+            // 第3条记录已被覆盖并提交，原来的第4条仍然有效
+            assertEquals(4, log.getRecordCount());
+            assertEquals(50 + 100 + 200 + 400, log.getTotalScores());
+        }
+    }
+
+    @Test
+    public void compactKeepsTotals() throws IOException {
+        File file = new File(this.folder.getRoot(), "compact.tts");
+        long totalScores = 0, totalLines = 0, totalPieces = 0;
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            for (int i = 0; i < 50; i++) {
+                int scores = (i * 37) % 101;
+                log.append(new FinishedGame(i, scores, i % 7, 20 + i), TimeUnit.MILLISECONDS.toNanos(1000 + i));
+                totalScores += scores;
+                totalLines += i % 7;
+                totalPieces += 20 + i;
+            }
+            assertTop(log, 30, 19, 49);
+            // 保留最近5条和最高分3条，最高分中的第49局恰好在最近5条中，按原来的顺序写入
+            assertEquals(43, log.compact(5));
+            assertEquals(7, log.getRecordCount());
+            assertTotals(log, 50, totalScores, totalLines, totalPieces, 50 * 1000 + 49 * 50 / 2);
+            assertTop(log, 30, 19, 49);
+            assertEquals(19L, log.getRecord(0).getSeed());
+            assertEquals(45L, log.getRecord(2).getSeed());
+            log.append(new FinishedGame(50L, 1000, 1, 1), 0);
+        }
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            assertEquals(8, log.getRecordCount());
+            assertTotals(log, 51, totalScores + 1000, totalLines + 1, totalPieces + 1, 50 * 1000 + 49 * 50 / 2);
+            assertTop(log, 50, 30, 19);
+        }
+    }
+
+    /**
+     * 写临时文件失败时删除临时文件，原文件保持打开，可以继续追加
+     */
+    @Test
+    public void failedCompactLeavesLogUsable() throws IOException {
+        File file = new File(this.folder.getRoot(), "failed.tts");
+        File temporary = new File(file.getPath() + ".tmp");
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            for (int i = 0; i < 10; i++) {
+                log.append(new FinishedGame(i, i, 0, 1), 0);
+            }
+            // 临时文件的位置被目录占据，无法写入
+            assertTrue(temporary.mkdir());
+            try {
+                log.compact(2);
+                fail("compacted into a directory");
+            } catch (IOException e) {
+                assertFalse(temporary.exists());
+            }
+            assertEquals(10, log.getRecordCount());
+            log.append(new FinishedGame(10L, 100, 0, 1), 0);
+            assertEquals(100, log.getBestScores());
+        }
+        try (ScoreLog log = new ScoreLog(file, 3)) {
+            assertEquals(11, log.getRecordCount());
+        }
+    }
+
+    private static void assertLocked(File file) {
+        try {
+            new ScoreLog(file, 3).close();
+            fail("opened a locked score log");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(file.getPath()));
+        }
+    }
+
+    private static void assertTop(ScoreLog log, long... seeds) {
+        assertEquals(seeds.length, log.getTopCount());
+        for (int rank = 0; rank < seeds.length; rank++) {
+            assertEquals("rank " + rank, seeds[rank], log.getTop(rank).getSeed());
+        }
+    }
+
+    private static void assertTotals(ScoreLog log, long games, long scores, long lines, long pieces,
+                                     long durationMillis) {
+        assertEquals(games, log.getGames());
+        assertEquals(scores, log.getTotalScores());
+        assertEquals(lines, log.getTotalLines());
+        assertEquals(pieces, log.getTotalPieces());
+        assertEquals(durationMillis, log.getTotalDurationMillis());
+    }
+
+    /**
+     * 得分、行数和方块组数固定的已结束对局
+     */
+    private static class FinishedGame extends GameEngine {
+
+        private final int scores, lines, pieces;
+
+        FinishedGame(long seed, int scores, int lines, int pieces) {
+            super(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, seed), seed, RotationSystem.SRS,
+                    ScoringType.GUIDELINE.create());
+            this.scores = scores;
+            this.lines = lines;
+            this.pieces = pieces;
+        }
+
+        @Override
+        public int getScores() {
+            return this.scores;
+        }
+
+        @Override
+        public int getLines() {
+            return this.lines;
+        }
+
+        @Override
+        public int getPieces() {
+            return this.pieces;
+        }
+
+    }
+
+}
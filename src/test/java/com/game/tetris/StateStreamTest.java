@@ -0,0 +1,203 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 状态增量流的无损测试：每个逻辑帧编码一次，解码器重建的状态必须与引擎完全一致，
+ * 覆盖增量帧、消行帧、关键帧、中途以关键帧加入的观战者和格式错误的帧
+ */
+public class StateStreamTest {
+
+    /**
+     * 观战者中途加入时已经过的逻辑帧数
+     */
+    private static final int LATE_JOIN_TICK = 600;
+
+    private static final Action[] ACTIONS = Action.values();
+
+    /**
+     * 留出多余的空间，超过MAX_FRAME_BYTES的帧由断言发现，而不是写满缓冲区
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(2 * StateEncoder.MAX_FRAME_BYTES);
+
+    @Test
+    public void deltaStreamIsLossless() {
+        int flags = play(11L, 0, 300, false);
+        assertEquals(StateEncoder.KEYFRAME, flags & StateEncoder.KEYFRAME);
+        assertEquals(StateEncoder.CLEAR, flags & StateEncoder.CLEAR);
+        assertEquals(StateEncoder.ROWS, flags & StateEncoder.ROWS);
+        assertEquals(StateEncoder.PIECE, flags & StateEncoder.PIECE);
+        assertEquals(StateEncoder.MOVE, flags & StateEncoder.MOVE);
+        assertEquals(StateEncoder.NEXT, flags & StateEncoder.NEXT);
+        assertEquals(StateEncoder.HUD, flags & StateEncoder.HUD);
+    }
+
+    @Test
+    public void periodicKeyframesAreLossless() {
+        play(12L, 16, 200, false);
+    }
+
+    /**
+     * 随机操作很快结束游戏，覆盖暂存和GAME_OVER标志
+     */
+    @Test
+    public void randomPlayUntilGameOverIsLossless() {
+        int flags = play(13L, 0, Integer.MAX_VALUE, true);
+        assertEquals(StateEncoder.GAME_OVER, flags & StateEncoder.GAME_OVER);
+    }
+
+    @Test
+    public void deltaBeforeKeyframeIsSkipped() {
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, 5L), 5L);
+        StateEncoder encoder = new StateEncoder();
+        StateDecoder decoder = new StateDecoder();
+        encode(encoder, engine);
+        engine.step(Action.MOVE_LEFT);
+        encode(encoder, engine);
+        assertEquals(StateEncoder.MOVE, decoder.decode(this.buffer));
+        assertFalse(decoder.isSynced());
+        assertEquals(0, decoder.getWall().getHeight());
+        this.buffer.clear();
+        encoder.writeKeyframe(this.buffer);
+        this.buffer.flip();
+        decoder.decode(this.buffer);
+        assertTrue(decoder.isSynced());
+        verify(engine, decoder);
+    }
+
+    /**
+     * 格式错误的帧被拒绝，解码器回到未同步状态，收到下一个关键帧后恢复
+     */
+    @Test
+    public void malformedFrameIsRejectedUntilKeyframe() {
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, 6L), 6L);
+        StateEncoder encoder = new StateEncoder();
+        StateDecoder decoder = new StateDecoder();
+        encode(encoder, engine);
+        decoder.decode(this.buffer);
+        assertTrue(decoder.isSynced());
+        byte[][] frames = {
+                {StateEncoder.KEYFRAME, (byte) (Board.ROWS + 1)},
+                {StateEncoder.PIECE, 9, 0, 0, 4},
+                {StateEncoder.PIECE, 0, (byte) 0x7C, 0, 4},
+                {StateEncoder.PIECE, 1, 0, (byte) Board.ROWS, 4},
+                {StateEncoder.NEXT, 7},
+                {StateEncoder.NEXT, (byte) 0x40},
+                {StateEncoder.CLEAR, (byte) 0xF0, 0, 0},
+                {StateEncoder.ROWS, 0, 0, 1, (byte) 0x7F, 0, 0, 0}
+        };
+        for (byte[] frame : frames) {
+            try {
+                decoder.decode(ByteBuffer.wrap(frame));
+                fail("accepted malformed frame " + Arrays.toString(frame));
+            } catch (IllegalArgumentException e) {
+                assertFalse(decoder.isSynced());
+            }
+        }
+        engine.step(Action.MOVE_RIGHT);
+        encode(encoder, engine);
+        decoder.decode(this.buffer);
+        assertFalse(decoder.isSynced());
+        this.buffer.clear();
+        encoder.writeKeyframe(this.buffer);
+        this.buffer.flip();
+        decoder.decode(this.buffer);
+        assertTrue(decoder.isSynced());
+        verify(engine, decoder);
+    }
+
+    /**
+     * 模拟一局并逐帧校验，LATE_JOIN_TICK时另一个解码器以writeKeyframe()的关键帧中途加入
+     *
+     * @return 所有帧标志的按位或
+     */
+    private int play(long seed, int keyframeInterval, int maxPieces, boolean isRandom) {
+        GameEngine engine = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW, seed),
+                seed);
+        GamePolicy policy = new PlacementPolicy();
+        Random random = new Random(seed);
+        StateEncoder encoder = new StateEncoder(keyframeInterval);
+        StateDecoder decoder = new StateDecoder();
+        StateDecoder spectator = new StateDecoder();
+        int flags = 0;
+        long gravityNanos = 0;
+        for (int tick = 0; !engine.isGameOver() && engine.getPieces() < maxPieces; tick++) {
+            if (tick % 6 == 0) {
+                engine.step(isRandom || random.nextInt(50) == 0 ? ACTIONS[random.nextInt(ACTIONS.length)]
+                        : policy.decide(engine));
+            }
+            gravityNanos += GameLoop.TICK_NANOS;
+            long interval = engine.getGravityIntervalNanos();
+            if (!engine.isGameOver() && gravityNanos >= interval) {
+                gravityNanos = Math.min(gravityNanos - interval, interval);
+                engine.tick();
+            }
+            if (tick == LATE_JOIN_TICK) {
+                this.buffer.clear();
+                assertFrameFits(encoder.writeKeyframe(this.buffer));
+                this.buffer.flip();
+                spectator.decode(this.buffer);
+                assertTrue(spectator.isSynced());
+            }
+            if (encode(encoder, engine) > 0) {
+                flags |= decoder.decode(this.buffer);
+                assertFalse(this.buffer.hasRemaining());
+                if (spectator.isSynced()) {
+                    this.buffer.rewind();
+                    spectator.decode(this.buffer);
+                }
+            }
+            verify(engine, decoder);
+            if (spectator.isSynced()) {
+                verify(engine, spectator);
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * 编码一帧，返回时缓冲区已翻转，可直接解码
+     */
+    private int encode(StateEncoder encoder, GameEngine engine) {
+        this.buffer.clear();
+        int bytes = encoder.encode(engine, this.buffer);
+        this.buffer.flip();
+        assertFrameFits(bytes);
+        return bytes;
+    }
+
+    private static void assertFrameFits(int bytes) {
+        assertTrue("frame of " + bytes + " bytes", bytes <= StateEncoder.MAX_FRAME_BYTES);
+    }
+
+    private static void verify(GameEngine engine, StateDecoder decoder) {
+        Board wall = engine.getWall();
+        String context = "piece " + engine.getPieces();
+        for (int row = 0; row < Board.ROWS; row++) {
+            assertEquals(context, wall.getRowTypes(row), decoder.getWall().getRowTypes(row));
+        }
+        assertEquals(context, wall.getHash(), decoder.getWall().getHash());
+        Tetromino expected = engine.getTetromino(), actual = decoder.getTetromino();
+        assertEquals(context, expected.getType(), actual.getType());
+        assertEquals(context, expected.getRotationSystem(), actual.getRotationSystem());
+        assertEquals(context, expected.getRotation(), actual.getRotation());
+        assertEquals(context, expected.getRow(), actual.getRow());
+        assertEquals(context, expected.getCol(), actual.getCol());
+        assertEquals(context, engine.getNextTetromino().getType(), decoder.getNextType());
+        assertEquals(context, engine.getHeldType(), decoder.getHeldType());
+        assertEquals(context, engine.getScores(), decoder.getScores());
+        assertEquals(context, engine.getLines(), decoder.getLines());
+        assertEquals(context, engine.getLevel(), decoder.getLevel());
+        assertEquals(context, engine.isGameOver(), decoder.isGameOver());
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * SRS踢墙表测试：标准的T旋三消和I踢墙局面，以及rotate()返回的偏移下标
+ */
+public class TetrominoKickTest {
+
+    private final Board board = new Board();
+
+    @Test
+    public void rotateInPlaceReturnsZero() {
+        Tetromino tetromino = new Tetromino(TetrominoType.T);
+        assertEquals(0, tetromino.rotate(this.board, true));
+        assertEquals(1, tetromino.getRotation());
+        assertEquals(0, tetromino.rotate(this.board, false));
+        assertEquals(0, tetromino.getRotation());
+    }
+
+    /**
+     * T旋三消：T朝上停在悬空方块上，左转时前4个偏移都碰撞，第5个偏移(+1, -2)把它送进三行深的槽
+     */
+    @Test
+    public void tSpinTripleUsesFifthKick() {
+        setRows(14,
+                "....#.....",
+                "..........",
+                "####.#####",
+                "###..#####",
+                "####.#####",
+                ".#########");
+        Tetromino tetromino = new Tetromino(TetrominoType.T);
+        tetromino.place(TetrominoType.T, 0, 15, 3);
+        assertFalse(this.board.collides(tetromino));
+        assertFalse(this.board.canDrop(tetromino));
+        assertEquals(4, tetromino.rotate(this.board, false));
+        assertEquals(3, tetromino.getRotation());
+        assertArrayEquals(cells(16, 4, 17, 3, 17, 4, 18, 4), cells(tetromino));
+        this.board.land(tetromino);
+        assertEquals(3, this.board.clearLines());
+        assertEquals(".#########", rowString(Board.ROWS - 1));
+        assertEquals("..........", rowString(Board.ROWS - 2));
+        assertEquals("....#.....", rowString(Board.ROWS - 3));
+    }
+
+    /**
+     * 竖直的I贴着右墙右转，原地旋转越界，第2个偏移(-1, 0)向左移一格
+     */
+    @Test
+    public void iKicksOffRightWall() {
+        Tetromino tetromino = new Tetromino(TetrominoType.I);
+        tetromino.place(TetrominoType.I, 1, 10, 8);
+        assertArrayEquals(cells(9, 9, 10, 9, 11, 9, 12, 9), cells(tetromino));
+        assertEquals(1, tetromino.rotate(this.board, true));
+        assertEquals(2, tetromino.getRotation());
+        assertArrayEquals(cells(11, 6, 11, 7, 11, 8, 11, 9), cells(tetromino));
+    }
+
+    /**
+     * 平躺在底部的I右转，前4个偏移都越过底部，第5个偏移(+1, +2)向上抬两格
+     */
+    @Test
+    public void iKicksOffFloor() {
+        Tetromino tetromino = new Tetromino(TetrominoType.I);
+        tetromino.place(TetrominoType.I, 0, Board.ROWS - 1, 4);
+        assertEquals(4, tetromino.rotate(this.board, true));
+        assertEquals(1, tetromino.getRotation());
+        assertArrayEquals(cells(16, 6, 17, 6, 18, 6, 19, 6), cells(tetromino));
+    }
+
+    /**
+     * 所有偏移都碰撞时返回-1，方块组保持原来的状态和位置
+     */
+    @Test
+    public void failedRotationLeavesPieceUnchanged() {
+        setRows(15,
+                "##########",
+                "##########",
+                "##########",
+                "###...####",
+                "####.#####");
+        Tetromino tetromino = new Tetromino(TetrominoType.T);
+        tetromino.place(TetrominoType.T, 2, 18, 4);
+        assertFalse(this.board.collides(tetromino));
+        int[] before = cells(tetromino);
+        assertEquals(-1, tetromino.rotate(this.board, true));
+        assertEquals(-1, tetromino.rotate(this.board, false));
+        assertEquals(2, tetromino.getRotation());
+        assertArrayEquals(before, cells(tetromino));
+    }
+
+    /**
+     * 经典旋转不踢墙，贴墙旋转直接失败
+     */
+    @Test
+    public void classicRotationDoesNotKick() {
+        Tetromino tetromino = new Tetromino(TetrominoType.I, RotationSystem.CLASSIC);
+        tetromino.place(TetrominoType.I, 1, 10, Board.COLS - 1);
+        assertFalse(this.board.collides(tetromino));
+        assertEquals(-1, tetromino.rotate(this.board, true));
+        assertEquals(1, tetromino.getRotation());
+        tetromino.place(TetrominoType.I, 1, 10, 5);
+        assertEquals(0, tetromino.rotate(this.board, true));
+    }
+
+    private void setRows(int top, String... rows) {
+        for (int i = 0; i < rows.length; i++) {
+            int mask = 0;
+            for (int col = 0; col < Board.COLS; col++) {
+                if (rows[i].charAt(col) == '#') {
+                    mask |= 1 << col;
+                }
+            }
+            this.board.setRow(top + i, mask, TetrominoType.O);
+        }
+    }
+
+    private String rowString(int row) {
+        StringBuilder builder = new StringBuilder();
+        for (int col = 0; col < Board.COLS; col++) {
+            builder.append(this.board.isOccupied(row, col) ? '#' : '.');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return 按(行, 列)排序的格子编号row * COLS + col
+     */
+    private static int[] cells(Tetromino tetromino) {
+        int[] cells = new int[4];
+        for (int i = 0; i < 4; i++) {
+            cells[i] = tetromino.getCellRow(i) * Board.COLS + tetromino.getCellCol(i);
+        }
+        Arrays.sort(cells);
+        return cells;
+    }
+
+    private static int[] cells(int... rowCols) {
+        int[] cells = new int[rowCols.length / 2];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = rowCols[2 * i] * Board.COLS + rowCols[2 * i + 1];
+        }
+        Arrays.sort(cells);
+        return cells;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 置换表测试：命中、键不匹配、同一槽位的冲突，以及按深度和搜索轮次的替换
+ */
+public class TranspositionTableTest {
+
+    private final TranspositionTable table = new TranspositionTable(1000);
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(1024, this.table.getCapacity());
+        assertEquals(1024, new TranspositionTable(1024).getCapacity());
+        assertEquals(4, new TranspositionTable(3).getCapacity());
+    }
+
+    @Test
+    public void storeAndProbe() {
+        long key = 0x123456789ABCDEFL;
+        assertMiss(key);
+        this.table.put(key, 1.5, 2);
+        assertEquals(1.5, this.table.get(key), 0);
+        // 落在同一槽位的其他键不命中
+        assertMiss(key + this.table.getCapacity());
+        assertMiss(key ^ 1L << 40);
+        this.table.put(key + 1, Double.NEGATIVE_INFINITY, 0);
+        assertEquals(Double.NEGATIVE_INFINITY, this.table.get(key + 1), 0);
+        assertEquals(1.5, this.table.get(key), 0);
+    }
+
+    /**
+     * 同一个键总是覆盖，与深度无关
+     */
+    @Test
+    public void sameKeyOverwrites() {
+        long key = 77L;
+        this.table.put(key, 1.0, 5);
+        this.table.put(key, -2.0, 0);
+        assertEquals(-2.0, this.table.get(key), 0);
+    }
+
+    /**
+     * 本轮搜索中，槽位里更深的结果不被更浅的其他局面覆盖，深度相同或更深时覆盖
+     */
+    @Test
+    public void deeperEntrySurvivesCollisionInSameAge() {
+        long key = 5L, other = key + this.table.getCapacity(), third = other + this.table.getCapacity();
+        this.table.put(key, 1.0, 3);
+        this.table.put(other, 2.0, 2);
+        assertEquals(1.0, this.table.get(key), 0);
+        assertMiss(other);
+        this.table.put(other, 2.0, 3);
+        assertMiss(key);
+        assertEquals(2.0, this.table.get(other), 0);
+        this.table.put(third, 3.0, 4);
+        assertMiss(other);
+        assertEquals(3.0, this.table.get(third), 0);
+    }
+
+    /**
+     * 上一轮搜索的结果仍可命中，但不再阻止更浅的结果覆盖
+     */
+    @Test
+    public void olderAgeIsReplaced() {
+        long key = 9L, other = key + this.table.getCapacity();
+        this.table.put(key, 1.0, 7);
+        this.table.nextAge();
+        assertEquals(1.0, this.table.get(key), 0);
+        this.table.put(other, 2.0, 1);
+        assertMiss(key);
+        assertEquals(2.0, this.table.get(other), 0);
+        this.table.put(key, 1.0, 0);
+        assertMiss(key);
+    }
+
+    private void assertMiss(long key) {
+        assertTrue("hit " + key, Double.isNaN(this.table.get(key)));
+    }
+
+}
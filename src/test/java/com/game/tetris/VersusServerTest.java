@@ -0,0 +1,152 @@
+package com.game.tetris;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 对战服务器的回环测试：两个客户端连接后配对开始对局，一方按本地镜像引擎上的落点搜索策略操作，
+ * 从STATE解码的面板与镜像一致；消两行以上时对手的待接收垃圾行数增加；断开连接后对手获胜
+ */
+public class VersusServerTest {
+
+    /**
+     * 一方最多操作的方块组数量，超过时仍未消两行则测试失败
+     */
+    private static final int MAX_PIECES = 300;
+
+    @Test(timeout = 120_000)
+    public void loopbackMatch() throws IOException {
+        try (VersusServer server = new VersusServer(0, 1, 42L);
+             Client a = new Client(server.getPort());
+             Client b = new Client(server.getPort())) {
+            long seed = a.expectMatchStart();
+            assertEquals(seed, b.expectMatchStart());
+
+            GameEngine mirror = new GameEngine(PieceGeneratorType.BAG.create(PieceGeneratorType.DEFAULT_PREVIEW,
+                    seed), seed);
+            GamePolicy policy = new PlacementPolicy();
+            ByteArrayOutputStream inputs = new ByteArrayOutputStream();
+            int cleared = 0;
+            while (cleared < 2) {
+                assertTrue("no double within " + MAX_PIECES + " pieces", mirror.getPieces() < MAX_PIECES);
+                a.awaitState(mirror);
+                // 服务器上的方块组可能已被重力拉下几行，镜像从同一行开始操作
+                Tetromino t = mirror.getTetromino();
+                t.place(t.getType(), t.getRotation(), a.decoder.getTetromino().getRow(), t.getCol());
+                int pieces = mirror.getPieces();
+                inputs.reset();
+                while (mirror.getPieces() == pieces) {
+                    Action action = policy.decide(mirror);
+                    mirror.step(action);
+                    inputs.write(action.ordinal());
+                }
+                assertFalse(mirror.isGameOver());
+                a.socket.getOutputStream().write(inputs.toByteArray());
+                cleared = mirror.getLastClearedLines();
+            }
+            a.awaitState(mirror);
+            assertEquals(mirror.getLines(), a.decoder.getLines());
+            // 对手没有可以抵消的垃圾行，攻击全部进入待接收
+            int expected = VersusProtocol.GARBAGE_LINES[cleared];
+            while (b.pendingGarbage != expected) {
+                assertEquals(VersusProtocol.STATE, b.next());
+            }
+
+            a.socket.close();
+            while (b.next() != VersusProtocol.GAME_OVER) {
+                assertEquals(VersusProtocol.STATE, b.type);
+            }
+            assertEquals(1, b.payload[0]);
+        }
+    }
+
+    /**
+     * 阻塞式的测试客户端，逐条读取服务器消息，STATE交给StateDecoder解码
+     */
+    private static class Client implements AutoCloseable {
+
+        private final Socket socket;
+
+        private final DataInputStream in;
+
+        private final StateDecoder decoder = new StateDecoder();
+
+        private byte type;
+
+        private byte[] payload;
+
+        private int pendingGarbage;
+
+        Client(int port) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+            this.socket.setSoTimeout(10_000);
+            this.in = new DataInputStream(this.socket.getInputStream());
+        }
+
+        /**
+         * @return 对局种子
+         */
+        long expectMatchStart() throws IOException {
+            assertEquals(VersusProtocol.MATCH_START, next());
+            assertEquals(8 + 1, this.payload.length);
+            assertEquals(PieceGeneratorType.BAG.ordinal(), this.payload[8]);
+            return ByteBuffer.wrap(this.payload).getLong();
+        }
+
+        /**
+         * 读取一条消息，STATE消息更新待接收垃圾行数并解码状态增量
+         *
+         * @return 消息类型
+         */
+        byte next() throws IOException {
+            this.type = this.in.readByte();
+            this.payload = new byte[this.in.readUnsignedShort()];
+            this.in.readFully(this.payload);
+            if (this.type == VersusProtocol.STATE) {
+                this.pendingGarbage = this.payload[0];
+                this.decoder.decode(ByteBuffer.wrap(this.payload, 2, this.payload.length - 2));
+            }
+            return this.type;
+        }
+
+        /**
+         * 读取STATE，直到解码出的面板、当前和下一个方块组与镜像引擎一致
+         */
+        void awaitState(GameEngine mirror) throws IOException {
+            while (true) {
+                assertEquals(VersusProtocol.STATE, next());
+                if (this.decoder.isSynced() && matches(mirror)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean matches(GameEngine mirror) {
+            for (int row = 0; row < Board.ROWS; row++) {
+                if (this.decoder.getWall().getRowTypes(row) != mirror.getWall().getRowTypes(row)) {
+                    return false;
+                }
+            }
+            return this.decoder.getTetromino().getType() == mirror.getTetromino().getType()
+                    && this.decoder.getNextType() == mirror.getNextTetromino().getType();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.socket.close();
+        }
+
+    }
+
+}